@@ -1,7 +1,30 @@
 package de.htwsaar.cantineplanner.app;
 
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
 public class App {
     public static void main(String[] args) {
+        if (Arrays.asList(args).contains("--rebuild-rating-summary")) {
+            AppRunner.rebuildMealRatingSummary();
+            return;
+        }
+        List<String> arguments = Arrays.asList(args);
+        int replay = arguments.indexOf("--replay-events");
+        if (replay >= 0 && replay + 1 < args.length) {
+            try {
+                AppRunner.replayEvents(Path.of(args[replay + 1]), arguments.contains("--max-speed"));
+            } catch (IllegalStateException e) {
+                System.err.println(e.getMessage());
+            }
+            return;
+        }
+        if (Arrays.asList(args).contains("--calibrate-password-policy")) {
+            AppRunner.calibratePasswordPolicy();
+            return;
+        }
+
         AppRunner appRunner = new AppRunner();
         appRunner.start();
     }
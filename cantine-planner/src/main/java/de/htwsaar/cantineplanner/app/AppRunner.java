@@ -1,11 +1,31 @@
 package de.htwsaar.cantineplanner.app;
 
+import de.htwsaar.cantineplanner.businessLogic.manager.EventJournal;
 import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
+import de.htwsaar.cantineplanner.businessLogic.manager.SessionContext;
 import de.htwsaar.cantineplanner.businessLogic.manager.SessionManager;
 import de.htwsaar.cantineplanner.businessLogic.service.CantineService;
+import de.htwsaar.cantineplanner.businessLogic.service.CredentialService;
 import de.htwsaar.cantineplanner.businessLogic.controller.MainController;
+import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
+import de.htwsaar.cantineplanner.data.exceptions.DataBaseLoadException;
+import de.htwsaar.cantineplanner.data.security.PasswordPolicy;
+import de.htwsaar.cantineplanner.data.security.PasswordPolicyCalibrator;
+import de.htwsaar.cantineplanner.data.security.PasswordUtil;
+import de.htwsaar.cantineplanner.data.util.ApplicationProperties;
 import de.htwsaar.cantineplanner.data.util.DataBaseUtil;
+import de.htwsaar.cantineplanner.presentation.HeadlessTextGUI;
 import de.htwsaar.cantineplanner.presentation.ScreenManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
 
 /**
  * The AppRunner class is responsible for bootstrapping the application.
@@ -23,6 +43,12 @@ import de.htwsaar.cantineplanner.presentation.ScreenManager;
  */
 public class AppRunner {
 
+    private static final String DATABASE_PATH = "./database/database.db";
+    private static final Path PASSWORD_POLICY_PATH = Path.of("./database/password-policy.properties");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AppRunner.class);
+
+    private final EventManager eventManager;
     private final MainController mainController;
 
     /**
@@ -32,23 +58,51 @@ public class AppRunner {
      * This constructor performs the following actions:
      * <ul>
      *   <li>Loads and validates the initial database from the specified path.</li>
-     *   <li>Initializes the EventManager and CantineService using secure configurations.</li>
-     *   <li>Instantiates ScreenManager and SessionManager to manage UI screens and user sessions.</li>
+     *   <li>Selects the password hashing policy, calibrating it first if configured.</li>
+     *   <li>Initializes the EventManager and CantineService using secure configurations;
+     *   the CantineService applies pending schema migrations to the loaded database.</li>
+     *   <li>Instantiates ScreenManager and SessionManager to manage UI screens and user sessions,
+     *   and the SessionContext of the terminal.</li>
+     *   <li>Runs blocking event handlers on virtual threads if {@code events.async.enabled} is set and logs the
+     *   event statistics every {@code events.statistics.log-interval-minutes}.</li>
+     *   <li>Appends the events caused by the user to the journal at {@code events.journal.path}, if set.</li>
+     *   <li>Creates the CredentialService that hashes and verifies passwords off the UI thread.</li>
      *   <li>Creates the MainController, passing in all necessary dependencies.</li>
      * </ul>
      * </p>
      */
     public AppRunner() {
-        DataBaseUtil.loadInitialDataBase("./database/database.db");
+        DataBaseUtil.loadInitialDataBase(DATABASE_PATH);
+        PasswordUtil.setPolicy(loadPasswordPolicy());
 
 
 
         EventManager eventManager = new EventManager();
         CantineService cantineService = new CantineService();
         ScreenManager screenManager = new ScreenManager(eventManager, cantineService);
+        if (ApplicationProperties.getBoolean("events.async.enabled", false)) {
+            eventManager.enableAsyncDispatch(screenManager.getRenderExecutor());
+        }
+        int statisticsLogInterval = ApplicationProperties.getInt("events.statistics.log-interval-minutes", 0);
+        if (statisticsLogInterval > 0) {
+            eventManager.getStatistics().startLogging(Duration.ofMinutes(statisticsLogInterval));
+        }
+        String journalPath = ApplicationProperties.getString("events.journal.path", null);
+        if (journalPath != null) {
+            try {
+                eventManager.setJournal(EventJournal.open(Path.of(journalPath)));
+            } catch (IOException e) {
+                LOGGER.error("Opening the event journal {} failed, no events are recorded", journalPath, e);
+            }
+        }
         SessionManager sessionManager = new SessionManager();
+        SessionContext sessionContext = new SessionContext(sessionManager);
+
+        CredentialService credentialService = new CredentialService(cantineService);
 
-        this.mainController = new MainController(screenManager, cantineService, eventManager, sessionManager);
+        this.eventManager = eventManager;
+        this.mainController = new MainController(screenManager, cantineService, eventManager, sessionContext,
+                credentialService);
     }
 
     /**
@@ -61,5 +115,156 @@ public class AppRunner {
      */
     public void start() {
         mainController.start();
+
+        EventJournal journal = eventManager.getJournal();
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                LOGGER.warn("Closing the event journal failed", e);
+            }
+        }
+    }
+
+    /**
+     * Replays the events of a journal headlessly and prints the throughput and the latency per event type.
+     *
+     * <p>
+     * The events run through the controllers against the database configured by {@code events.replay.datasource}
+     * and change it like the users changed the recorded one, so it has to be a copy of the production database.
+     * The redacted passwords of logins and password changes are replaced by {@code events.replay.password}, so the
+     * recorded users need that password in the replay database.
+     * </p>
+     *
+     * @param journalPath the path of the journal to replay
+     * @param maxSpeed    true to replay the events without the pauses the users made
+     * @return the result of the replay
+     * @throws IllegalStateException if no replay database is configured or it is the application database
+     */
+    public static EventReplay.Report replayEvents(Path journalPath, boolean maxSpeed) {
+        String replayDataSource = requireReplayDataSource(
+                ApplicationProperties.getString("events.replay.datasource", ""), "hikari.properties");
+        PasswordUtil.setPolicy(loadPasswordPolicy());
+        String replayPassword = ApplicationProperties.getString("events.replay.password", "replay");
+        CantineService cantineService = new CantineService(replayDataSource);
+        EventManager eventManager = new EventManager();
+        CredentialService credentialService = new CredentialService(cantineService);
+
+        try {
+            List<EventJournal.Entry> entries = EventJournal.read(journalPath, replayPassword);
+            ScreenManager screenManager = new ScreenManager(eventManager, cantineService, new HeadlessTextGUI());
+            new MainController(screenManager, cantineService, eventManager,
+                    new SessionContext(new SessionManager()), credentialService);
+
+            System.out.println("Replaying " + entries.size() + " events from " + journalPath
+                    + (maxSpeed ? " at max speed..." : " at 1x speed..."));
+            EventReplay.Report report = new EventReplay(eventManager, screenManager).replay(entries, maxSpeed);
+            System.out.println(report);
+            return report;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error replaying the event journal " + journalPath, e);
+        } finally {
+            credentialService.shutdown();
+        }
+    }
+
+    /**
+     * Checks that events are replayed against a database of their own.
+     *
+     * <p>
+     * A replay registers users, writes reviews and deletes and edits meals, so it must never run against the
+     * application database. The databases are compared by their files, so different spellings of the same path
+     * are caught as well.
+     * </p>
+     *
+     * @param replayProperties      the properties file of the replay database in the classpath
+     * @param applicationProperties the properties file of the application database in the classpath
+     * @return the properties file of the replay database
+     * @throws IllegalStateException if the replay database is not configured or is the application database
+     */
+    public static String requireReplayDataSource(String replayProperties, String applicationProperties) {
+        if (replayProperties == null || replayProperties.isBlank()) {
+            throw new IllegalStateException("Set events.replay.datasource to the properties file of a copy of the "
+                    + "database to replay the events against");
+        }
+        Path replayDatabase = HikariCPDataSource.getDatabaseFile(replayProperties);
+        Path applicationDatabase = HikariCPDataSource.getDatabaseFile(applicationProperties);
+        if (isSameFile(replayDatabase, applicationDatabase)) {
+            throw new IllegalStateException("Refusing to replay events against the application database "
+                    + applicationDatabase + ", configure a copy of it in " + replayProperties);
+        }
+        return replayProperties;
+    }
+
+    private static boolean isSameFile(Path first, Path second) {
+        if (Files.exists(first) && Files.exists(second)) {
+            try {
+                return Files.isSameFile(first, second);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error comparing the databases " + first + " and " + second, e);
+            }
+        }
+        return first.equals(second);
+    }
+
+    /**
+     * Rebuilds the meal rating summary of the application database without starting the user interface.
+     *
+     * <p>
+     * The summary is kept up to date on every review write, so this is only needed for databases
+     * whose reviews were changed outside of the application.
+     * </p>
+     */
+    public static void rebuildMealRatingSummary() {
+        DataBaseUtil.loadInitialDataBase(DATABASE_PATH);
+
+        try {
+            int meals = new CantineService().rebuildMealRatingSummary();
+            System.out.println("Rebuilt the rating summary of " + meals + " meals.");
+        } catch (SQLException e) {
+            throw new DataBaseLoadException("Error rebuilding the meal rating summary...", e);
+        }
+    }
+
+    /**
+     * Returns the password policy stored by the last calibration, or the configured one.
+     *
+     * <p>
+     * If {@code password.calibration.on-startup} is set and no calibrated policy is stored yet,
+     * the policy is calibrated and stored first.
+     * </p>
+     *
+     * @return the password policy to hash new passwords with
+     */
+    private static PasswordPolicy loadPasswordPolicy() {
+        if (!Files.exists(PASSWORD_POLICY_PATH)
+                && ApplicationProperties.getBoolean("password.calibration.on-startup", false)) {
+            return calibratePasswordPolicy().policy();
+        }
+        return PasswordPolicy.load(PASSWORD_POLICY_PATH);
+    }
+
+    /**
+     * Measures Argon2id on this host, stores the chosen password policy and prints it.
+     *
+     * <p>
+     * The target latency and the number of concurrent logins are read from
+     * {@code password.calibration.target-ms} and {@code password.calibration.concurrent-logins}.
+     * Stored hashes with other parameters are upgraded on the next login of their user.
+     * </p>
+     *
+     * @return the result of the calibration
+     */
+    public static PasswordPolicyCalibrator.Calibration calibratePasswordPolicy() {
+        int targetMillis = ApplicationProperties.getInt("password.calibration.target-ms", 150);
+        int concurrentLogins = ApplicationProperties.getInt("password.calibration.concurrent-logins", 4);
+
+        System.out.println("Calibrating the password policy for " + targetMillis + " ms and "
+                + concurrentLogins + " concurrent logins...");
+        PasswordPolicyCalibrator.Calibration calibration =
+                new PasswordPolicyCalibrator(targetMillis, concurrentLogins).calibrate();
+        calibration.policy().store(PASSWORD_POLICY_PATH, calibration.toString());
+        System.out.println(calibration);
+        return calibration;
     }
-}
\ No newline at end of file
+}
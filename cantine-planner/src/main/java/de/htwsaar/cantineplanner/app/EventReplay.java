@@ -0,0 +1,128 @@
+package de.htwsaar.cantineplanner.app;
+
+import de.htwsaar.cantineplanner.businessLogic.manager.EventJournal;
+import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
+import de.htwsaar.cantineplanner.businessLogic.manager.EventStatistics;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
+import de.htwsaar.cantineplanner.presentation.ScreenManager;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the events of an {@link EventJournal} through the controllers, e.g. as a load test.
+ * <p>
+ * Every event is notified like the user caused it and the replay waits until the event is handled
+ * completely, including the background operations it started, before the next event is notified. The time
+ * until then is recorded per event type. At 1x speed the replay waits between the events as long as the
+ * user did; at max speed it notifies the next event right away. The segments of a journal are replayed one
+ * after another without waiting in between. EXIT events are skipped so the replay doesn't close the
+ * application.
+ * </p>
+ * <p>
+ * Screens are drawn on the GUI of the given {@link ScreenManager}, usually a headless one, and the event
+ * manager must dispatch synchronously, so the latency covers the whole handling of the event.
+ * </p>
+ */
+public class EventReplay {
+    private final EventManager eventManager;
+    private final ScreenManager screenManager;
+
+    /**
+     * The result of a replay.
+     *
+     * @param events       the number of replayed events
+     * @param elapsedNanos the wall time of the replay in nanoseconds
+     * @param summaries    the latency of the events per event type
+     */
+    public record Report(long events, long elapsedNanos, List<EventStatistics.Summary> summaries) {
+
+        /**
+         * Returns the number of events handled per second.
+         *
+         * @return the throughput in events per second
+         */
+        public double eventsPerSecond() {
+            return elapsedNanos == 0 ? 0 : events * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder(String.format("Replayed %d events in %.3f s (%.1f events/s)",
+                    events, elapsedNanos / 1e9, eventsPerSecond()));
+            for (EventStatistics.Summary summary : summaries) {
+                report.append(System.lineSeparator()).append("  ").append(summary);
+            }
+            return report.toString();
+        }
+    }
+
+    /**
+     * Constructs an EventReplay.
+     *
+     * @param eventManager  the event manager the controllers are subscribed to
+     * @param screenManager the screen manager of the controllers
+     */
+    public EventReplay(EventManager eventManager, ScreenManager screenManager) {
+        this.eventManager = eventManager;
+        this.screenManager = screenManager;
+    }
+
+    /**
+     * Replays the given events.
+     *
+     * @param entries  the events to replay, in the order they were recorded
+     * @param maxSpeed true to replay the events without the pauses between them
+     * @return the throughput and the latency per event type
+     * @throws IOException if the screen cannot be updated
+     */
+    public Report replay(List<EventJournal.Entry> entries, boolean maxSpeed) throws IOException {
+        EventStatistics statistics = new EventStatistics();
+        long events = 0;
+        long start = System.nanoTime();
+        // The recorded time of the first event of the current segment and the time it was replayed
+        int segment = -1;
+        long segmentStartMicros = 0;
+        long segmentStartNanos = 0;
+
+        for (EventJournal.Entry entry : entries) {
+            if (entry.eventType() == EventType.EXIT) {
+                continue;
+            }
+            if (entry.segment() != segment) {
+                segment = entry.segment();
+                segmentStartMicros = entry.timestampMicros();
+                segmentStartNanos = System.nanoTime();
+            } else if (!maxSpeed) {
+                long dueNanos = segmentStartNanos
+                        + TimeUnit.MICROSECONDS.toNanos(entry.timestampMicros() - segmentStartMicros);
+                sleepUntil(dueNanos);
+            }
+
+            EventStatistics.Stats stats = statistics.dispatch(entry.eventType());
+            long eventStart = System.nanoTime();
+            try {
+                eventManager.notify(entry.eventType(), entry.data());
+                screenManager.awaitPendingOperations();
+            } catch (RuntimeException e) {
+                stats.recordError();
+            }
+            stats.record(System.nanoTime() - eventStart);
+            events++;
+        }
+        return new Report(events, System.nanoTime() - start, statistics.summarize());
+    }
+
+    private static void sleepUntil(long dueNanos) {
+        long remaining;
+        while ((remaining = dueNanos - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -1,24 +1,35 @@
 package de.htwsaar.cantineplanner.businessLogic.controller;
 
-import de.htwsaar.cantineplanner.businessLogic.manager.SessionManager;
+import de.htwsaar.cantineplanner.businessLogic.manager.SessionContext;
 import de.htwsaar.cantineplanner.businessLogic.service.CantineService;
 import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
+import de.htwsaar.cantineplanner.data.util.ApplicationProperties;
 import de.htwsaar.cantineplanner.presentation.ScreenManager;
 
 public abstract class AbstractController {
     protected final ScreenManager screenManager;
     protected final CantineService cantineService;
     protected final EventManager eventManager;
-    protected final SessionManager sessionManager;
+    protected final SessionContext sessionContext;
+
+    /**
+     * Error message for operations rejected because too many credential checks are waiting.
+     */
+    protected static final String BUSY_MESSAGE = "Too many requests at the moment, please try again!";
+
+    /**
+     * Number of rows read per page by the tables that read their listing page by page.
+     */
+    protected final int tablePageSize = ApplicationProperties.getInt("table.page-size", 100);
 
     public AbstractController(ScreenManager screenManager,
                               CantineService cantineService,
                               EventManager eventManager,
-                              SessionManager sessionManager) {
+                              SessionContext sessionContext) {
         this.screenManager = screenManager;
         this.cantineService = cantineService;
         this.eventManager = eventManager;
-        this.sessionManager = sessionManager;
+        this.sessionContext = sessionContext;
     }
 
     protected abstract void subscribeToEvents();
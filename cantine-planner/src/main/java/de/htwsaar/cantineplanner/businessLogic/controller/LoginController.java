@@ -1,20 +1,22 @@
 package de.htwsaar.cantineplanner.businessLogic.controller;
 
-import de.htwsaar.cantineplanner.businessLogic.manager.SessionManager;
+import de.htwsaar.cantineplanner.businessLogic.manager.SessionContext;
 import de.htwsaar.cantineplanner.businessLogic.service.CantineService;
+import de.htwsaar.cantineplanner.businessLogic.service.CredentialService;
 import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventData;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.IntData;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.StringArrayData;
+import de.htwsaar.cantineplanner.codegen.tables.records.UsersRecord;
 import de.htwsaar.cantineplanner.data.exceptions.InvalidEmailTypeException;
+import de.htwsaar.cantineplanner.data.exceptions.SessionLimitExceededException;
 import de.htwsaar.cantineplanner.data.exceptions.UserAlreadyExistsException;
-import de.htwsaar.cantineplanner.data.exceptions.UserDoesntExistException;
 import de.htwsaar.cantineplanner.data.exceptions.UserNotValidatedException;
 import de.htwsaar.cantineplanner.presentation.ScreenManager;
 
-import java.sql.SQLException;
 import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * The LoginController class is responsible for handling user authentication and registration.
@@ -24,6 +26,9 @@ import java.util.Objects;
  * </p>
  */
 public class LoginController extends AbstractController {
+    private static final String REGISTER_ERROR_MESSAGE =
+            "There was an error while registering please try again and check if you filled everything correctly!";
+    private final CredentialService credentialService;
 
     /**
      * Constructs a new LoginController.
@@ -35,13 +40,16 @@ public class LoginController extends AbstractController {
      * @param screenManager  the screen manager to manage UI screens
      * @param cantineService the service to handle cantine-related operations
      * @param eventManager   the event manager to handle events
-     * @param sessionManager the session manager to manage user sessions
+     * @param sessionContext the session of the terminal the controller serves
+     * @param credentialService the service hashing and verifying passwords in the background
      */
     protected LoginController(ScreenManager screenManager,
                               CantineService cantineService,
                               EventManager eventManager,
-                              SessionManager sessionManager) {
-        super(screenManager, cantineService, eventManager,sessionManager);
+                              SessionContext sessionContext,
+                              CredentialService credentialService) {
+        super(screenManager, cantineService, eventManager,sessionContext);
+        this.credentialService = credentialService;
         this.subscribeToEvents();
     }
 
@@ -62,7 +70,7 @@ public class LoginController extends AbstractController {
     /**
      * Handles the login event.
      * <p>
-     * Validates the user credentials and logs the user in if valid.
+     * Validates the user credentials in the background and logs the user in if valid.
      * </p>
      *
      * @param data an Object array containing username and password as Strings
@@ -75,26 +83,40 @@ public class LoginController extends AbstractController {
         String[] credentials = (String[]) data.getData();
         String username = credentials[0];
         String password = credentials[1];
-        try {
-            if (cantineService.validateUser(username, password)) {
-                sessionManager.setCurrentUser(cantineService.getUser(username));
-                screenManager.closeActiveWindow();
-                screenManager.showSuccessScreen("Login successful!");
-                eventManager.notify(EventType.SWITCH_MENU, new IntData(1));
-            } else {
-                screenManager.showErrorScreen("Invalid username or password!");
-            }
-        } catch (UserNotValidatedException e) {
-            screenManager.showErrorScreen(e.getMessage());
-        } catch (SQLException | UserDoesntExistException e) {
+        screenManager.showProgressUntilDone("Verifying...", credentialService.authenticate(username, password),
+                this::completeLogin);
+    }
+
+    /**
+     * Completes the login once the credentials are verified.
+     *
+     * @param user  the authenticated user, null if the authentication failed
+     * @param error the exception the authentication failed with, null if it succeeded
+     */
+    private void completeLogin(UsersRecord user, Throwable error) {
+        if (error instanceof UserNotValidatedException) {
+            screenManager.showErrorScreen("Invalid username or password!");
+        } else if (error instanceof RejectedExecutionException) {
+            screenManager.showErrorScreen(BUSY_MESSAGE);
+        } else if (error != null) {
             screenManager.showErrorScreen("There was an error while logging in please try again!");
+        } else {
+            try {
+                sessionContext.login(user);
+            } catch (SessionLimitExceededException e) {
+                screenManager.showErrorScreen(e.getMessage());
+                return;
+            }
+            screenManager.closeActiveWindow();
+            screenManager.showSuccessScreen("Login successful!");
+            eventManager.notify(EventType.SWITCH_MENU, new IntData(1));
         }
     }
 
     /**
      * Handles user registration.
      * <p>
-     * Registers a new user with the provided credentials if all fields are filled.
+     * Registers a new user with the provided credentials in the background if all fields are filled.
      * </p>
      *
      * @param data an Object array containing username, password, and email as Strings
@@ -109,16 +131,30 @@ public class LoginController extends AbstractController {
                 screenManager.showErrorScreen("Please fill in all fields!");
                 return;
             }
-            if (cantineService.registerUser(username, password, email)) {
-                screenManager.closeActiveWindow();
-                screenManager.showSuccessScreen("Registration successful!");
-                eventManager.notify(EventType.SWITCH_MENU, new IntData(0));
-            }
-
-        } catch (InvalidEmailTypeException | UserAlreadyExistsException e) {
-            screenManager.showErrorScreen(e.getMessage());
+            screenManager.showProgressUntilDone("Registering...",
+                    credentialService.registerUser(username, password, email), this::completeRegister);
         } catch (Exception e) {
-            screenManager.showErrorScreen("There was an error while registering please try again and check if you filled everything correctly!");
+            screenManager.showErrorScreen(REGISTER_ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Completes the registration once the user is stored.
+     *
+     * @param registered whether the user was registered, null if the registration failed
+     * @param error      the exception the registration failed with, null if it succeeded
+     */
+    private void completeRegister(Boolean registered, Throwable error) {
+        if (error instanceof InvalidEmailTypeException || error instanceof UserAlreadyExistsException) {
+            screenManager.showErrorScreen(error.getMessage());
+        } else if (error instanceof RejectedExecutionException) {
+            screenManager.showErrorScreen(BUSY_MESSAGE);
+        } else if (error != null) {
+            screenManager.showErrorScreen(REGISTER_ERROR_MESSAGE);
+        } else if (registered) {
+            screenManager.closeActiveWindow();
+            screenManager.showSuccessScreen("Registration successful!");
+            eventManager.notify(EventType.SWITCH_MENU, new IntData(0));
         }
     }
 
@@ -1,9 +1,11 @@
 package de.htwsaar.cantineplanner.businessLogic.controller;
 
-import de.htwsaar.cantineplanner.businessLogic.manager.SessionManager;
+import de.htwsaar.cantineplanner.businessLogic.manager.SessionContext;
 import de.htwsaar.cantineplanner.businessLogic.service.CantineService;
+import de.htwsaar.cantineplanner.businessLogic.service.CredentialService;
 import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
+import de.htwsaar.cantineplanner.data.exceptions.SessionExpiredException;
 import de.htwsaar.cantineplanner.presentation.ScreenManager;
 
 /**
@@ -22,30 +24,36 @@ public class MainController extends AbstractController {
     private final UserController userController;
     private final WeeklyController weeklyController;
     private final LoginController loginController;
+    private final SearchController searchController;
+    private final CredentialService credentialService;
 
     /**
      * Constructs a new MainController.
      * <p>
      * This constructor initializes the MainController with the provided ScreenManager, CantineService, and EventManager.
-     * It also initializes the controllers for meals, reviews, users, weekly plans, and login, and subscribes to the relevant events.
+     * It also initializes the controllers for meals, reviews, users, weekly plans, login, and search, and subscribes to the relevant events.
      * </p>
      *
      * @param screenManager  the screen manager to manage UI screens
      * @param cantineService the service to handle cantine-related operations
      * @param eventManager   the event manager to handle events
-     * @param sessionManager the session manager to manage user sessions
+     * @param sessionContext the session of the terminal the controller serves
+     * @param credentialService the service hashing and verifying passwords in the background
      */
     public MainController(ScreenManager screenManager,
                           CantineService cantineService,
                           EventManager eventManager,
-                          SessionManager sessionManager) {
-
-        super(screenManager, cantineService, eventManager,sessionManager);
-        this.mealController = new MealController(screenManager, cantineService, eventManager,sessionManager);
-        this.reviewController = new ReviewController(screenManager, cantineService, eventManager,sessionManager);
-        this.userController = new UserController(screenManager, cantineService, eventManager,sessionManager);
-        this.weeklyController = new WeeklyController(screenManager, cantineService, eventManager,sessionManager);
-        this.loginController = new LoginController(screenManager, cantineService, eventManager,sessionManager);
+                          SessionContext sessionContext,
+                          CredentialService credentialService) {
+
+        super(screenManager, cantineService, eventManager,sessionContext);
+        this.credentialService = credentialService;
+        this.mealController = new MealController(screenManager, cantineService, eventManager,sessionContext);
+        this.reviewController = new ReviewController(screenManager, cantineService, eventManager,sessionContext);
+        this.userController = new UserController(screenManager, cantineService, eventManager,sessionContext, credentialService);
+        this.weeklyController = new WeeklyController(screenManager, cantineService, eventManager,sessionContext);
+        this.loginController = new LoginController(screenManager, cantineService, eventManager,sessionContext, credentialService);
+        this.searchController = new SearchController(screenManager, cantineService, eventManager, sessionContext);
 
         subscribeToEvents();
     }
@@ -65,7 +73,7 @@ public class MainController extends AbstractController {
         eventManager.subscribe(EventType.SHOW_ERROR_SCREEN, (data) -> screenManager.showErrorScreen((String) data.getData()));
         eventManager.subscribe(EventType.LOGOUT, (data) -> {
             switchMenu(0);
-            sessionManager.logout();
+            sessionContext.logout();
         });
     }
 
@@ -79,31 +87,56 @@ public class MainController extends AbstractController {
         running = true;
         currentMenu = 0;
         while (running) {
-            switch (currentMenu) {
-                case 0:
-                    loginMenu();
-                    break;
-                case 1:
-                    mainMenu();
-                    break;
-                case 2:
-                    mealMenu();
-                    break;
-                case 3:
-                    reviewMenu();
-                    break;
-                case 4:
-                    userMenu();
-                    break;
-                case 5:
-                    weeklyMenu();
-                    break;
-                default:
-                    break;
+            if (currentMenu > 0 && !sessionContext.isLoggedIn()) {
+                expireSession();
+                continue;
+            }
+            try {
+                showMenu();
+            } catch (SessionExpiredException e) {
+                expireSession();
             }
         }
     }
 
+    /**
+     * Shows the current menu.
+     */
+    private void showMenu() {
+        switch (currentMenu) {
+            case 0:
+                loginMenu();
+                break;
+            case 1:
+                mainMenu();
+                break;
+            case 2:
+                mealMenu();
+                break;
+            case 3:
+                reviewMenu();
+                break;
+            case 4:
+                userMenu();
+                break;
+            case 5:
+                weeklyMenu();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Returns to the login menu after the session of the terminal expired.
+     */
+    private void expireSession() {
+        sessionContext.logout();
+        screenManager.closeActiveWindow();
+        currentMenu = 0;
+        screenManager.showErrorScreen("Your session has expired, please log in again!");
+    }
+
     /**
      * Switches the current active menu.
      *
@@ -174,6 +207,7 @@ public class MainController extends AbstractController {
      * </p>
      */
     private void exitApplication() {
+        credentialService.shutdown();
         screenManager.closeTerminal();
         running = false;
     }
@@ -1,8 +1,9 @@
 package de.htwsaar.cantineplanner.businessLogic.controller;
 
-import de.htwsaar.cantineplanner.businessLogic.manager.SessionManager;
+import de.htwsaar.cantineplanner.businessLogic.manager.SessionContext;
 import de.htwsaar.cantineplanner.businessLogic.service.CantineService;
 import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
+import de.htwsaar.cantineplanner.businessLogic.types.Permission;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventData;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.IntData;
@@ -10,11 +11,14 @@ import de.htwsaar.cantineplanner.codegen.tables.records.MealsRecord;
 import de.htwsaar.cantineplanner.data.exceptions.MealAlreadyExistsException;
 import de.htwsaar.cantineplanner.data.exceptions.MealDoesntExistException;
 import de.htwsaar.cantineplanner.data.exceptions.MealiDNotFoundException;
-import de.htwsaar.cantineplanner.data.exceptions.UseriDDoesntExcistException;
+import de.htwsaar.cantineplanner.data.model.MealRatingStats;
+import de.htwsaar.cantineplanner.data.model.Page;
 import de.htwsaar.cantineplanner.presentation.ScreenManager;
+import org.jooq.SortOrder;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The MealController class is responsible for handling meals.
@@ -35,13 +39,13 @@ public class MealController extends AbstractController {
      * @param screenManager  the screen manager to manage UI screens
      * @param cantineService the service to handle cantine-related operations
      * @param eventManager   the event manager to handle events
-     * @param sessionManager the session manager to manage user sessions
+     * @param sessionContext the session of the terminal the controller serves
      */
     protected MealController(ScreenManager screenManager,
                              CantineService cantineService,
                              EventManager eventManager,
-                             SessionManager sessionManager) {
-        super(screenManager, cantineService, eventManager,sessionManager);
+                             SessionContext sessionContext) {
+        super(screenManager, cantineService, eventManager,sessionContext);
         this.subscribeToEvents();
     }
 
@@ -57,7 +61,10 @@ public class MealController extends AbstractController {
         // Meal-bezogene Events
         eventManager.subscribe(EventType.SHOW_SORT_MEALS, (data) -> screenManager.showSortMealScreen());
         eventManager.subscribe(EventType.SORT_MEALS_BY_PRICE, this::handleSortMealByPrice);
-        eventManager.subscribe(EventType.SORT_MEALS_BY_RATING, this::handleSortMealByRating);
+        eventManager.subscribeBlocking(EventType.SORT_MEALS_BY_RATING,
+                data -> fetchMealTable(cantineService.sortMealsByRating()),
+                table -> screenManager.showAllMeals(table.meals(), table.ratingStats()),
+                "There was an error while sorting meals by rating please try again!");
         eventManager.subscribe(EventType.SORT_MEALS_BY_NAME, this::handleSortMealByName);
         eventManager.subscribe(EventType.SORT_MEALS_BY_ALLERGENS, this::handleSortMealByAllergy);
         eventManager.subscribe(EventType.SORT_MEALS_BY_CALORIES, this::handleSortMealByCalories);
@@ -79,23 +86,17 @@ public class MealController extends AbstractController {
     /**
      * Displays the meal menu screen.
      * <p>
-     * This method checks if the current user is an admin and displays the meal menu screen accordingly.
+     * This method checks if the current user may manage meals and displays the meal menu screen accordingly.
      * If the user does not have the necessary permissions, an error screen is shown and the menu is switched.
-     * If an error occurs while validating the user or accessing the meal menu, an error screen is shown.
+     * The permission is cached in the session, so this doesn't query the database.
      * </p>
      */
     protected void showMealMenu() {
-        try {
-            if (cantineService.isAdmin(sessionManager.getCurrentUserId())) {
-                screenManager.showMealMenuScreen(true);
-            } else {
-                screenManager.showErrorScreen("You do not have the necessary permissions to access the meal menu.");
-                eventManager.notify(EventType.SWITCH_MENU, new IntData(1));
-            }
-        } catch (UseriDDoesntExcistException e) {
-            screenManager.showErrorScreen("The user with the given username doesn't exist!");
-        } catch (SQLException e) {
-            screenManager.showErrorScreen("There was an error while accessing the meal menu, please try again!");
+        if (sessionContext.hasPermission(Permission.MANAGE_MEALS)) {
+            screenManager.showMealMenuScreen(true);
+        } else {
+            screenManager.showErrorScreen("You do not have the necessary permissions to access the meal menu.");
+            eventManager.notify(EventType.SWITCH_MENU, new IntData(1));
         }
     }
 
@@ -189,8 +190,9 @@ public class MealController extends AbstractController {
      */
     public void handleShowAllMeals() {
         try {
-            List<MealsRecord> meals = cantineService.getAllMeals();
-            screenManager.showAllMeals(meals);
+            Page.Source<MealsRecord> meals =
+                    (afterId, limit) -> cantineService.getMealsPage(afterId, limit, SortOrder.ASC);
+            screenManager.showAllMeals(meals.load(null, tablePageSize), meals);
         } catch (SQLException e) {
             screenManager.showErrorScreen("There was an error while fetching all meals please try again!");
         }
@@ -359,22 +361,6 @@ public class MealController extends AbstractController {
         }
     }
 
-    /**
-     * Handles sorting meals by rating.
-     *
-     * <p>This method retrieves a list of meals sorted by rating from the cantine service
-     * and displays them using the screen manager. If an SQLException is encountered,
-     * an error screen is shown.</p>
-     */
-    private void handleSortMealByRating() {
-        try {
-            List<MealsRecord> meals = cantineService.sortMealsByRating();
-            screenManager.showAllMeals(meals);
-        } catch (SQLException e) {
-            screenManager.showErrorScreen("There was an error while sorting meals by rating please try again!");
-        }
-    }
-
     /**
      * Handles sorting meals by name.
      *
@@ -410,16 +396,36 @@ public class MealController extends AbstractController {
     /**
      * Handles sorting meals by allergy.
      *
-     * <p>This method retrieves a list of meals sorted by allergy information, possibly based on the current user's ID,
-     * from the cantine service and displays them using the screen manager. If an SQLException is encountered,
+     * <p>This method retrieves a list of meals without the allergies the current user set, whose mask is cached in
+     * the session, from the cantine service and displays them using the screen manager. If an SQLException is encountered,
      * an error screen is shown.</p>
      */
     private void handleSortMealByAllergy() {
         try {
-            List<MealsRecord> meals = cantineService.sortMealsByAllergy(sessionManager.getCurrentUserId());
+            List<MealsRecord> meals = cantineService.getMealsWithoutAllergens(sessionContext.getSession().getAllergyMask());
             screenManager.showAllMeals(meals);
         } catch (SQLException e) {
             screenManager.showErrorScreen("There was an error while sorting meals by allergy please try again!");
         }
     }
+
+    /**
+     * Fetches the rating statistics of the given meals, so the table can be rendered without querying the database.
+     *
+     * @param meals the meals to show
+     * @return the meals together with their rating statistics
+     * @throws SQLException if a database error occurs
+     */
+    private MealTable fetchMealTable(List<MealsRecord> meals) throws SQLException {
+        return new MealTable(meals, cantineService.getMealRatingStats(meals.stream().map(MealsRecord::getMealId).toList()));
+    }
+
+    /**
+     * Meals and their rating statistics, fetched by blocking work and rendered on the GUI thread.
+     *
+     * @param meals       the meals to show
+     * @param ratingStats the rating statistics of the meals by meal ID
+     */
+    private record MealTable(List<MealsRecord> meals, Map<Integer, MealRatingStats> ratingStats) {
+    }
 }
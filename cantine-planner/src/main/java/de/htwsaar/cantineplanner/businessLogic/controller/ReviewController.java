@@ -1,14 +1,18 @@
 package de.htwsaar.cantineplanner.businessLogic.controller;
 
-import de.htwsaar.cantineplanner.businessLogic.manager.SessionManager;
+import de.htwsaar.cantineplanner.businessLogic.manager.Session;
+import de.htwsaar.cantineplanner.businessLogic.manager.SessionContext;
 import de.htwsaar.cantineplanner.businessLogic.service.CantineService;
 import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
+import de.htwsaar.cantineplanner.businessLogic.types.Permission;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventData;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
 import de.htwsaar.cantineplanner.codegen.tables.records.ReviewRecord;
 import de.htwsaar.cantineplanner.data.exceptions.MealDoesntExistException;
 import de.htwsaar.cantineplanner.data.exceptions.ReviewiDDoesntExistException;
+import de.htwsaar.cantineplanner.data.model.Page;
 import de.htwsaar.cantineplanner.presentation.ScreenManager;
+import org.jooq.SortOrder;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -31,13 +35,13 @@ public class ReviewController extends AbstractController {
      * @param screenManager  the screen manager to manage UI screens
      * @param cantineService the service to handle cantine-related operations
      * @param eventManager   the event manager to handle events
-     * @param sessionManager the session manager to manage user sessions
+     * @param sessionContext the session of the terminal the controller serves
      */
     protected ReviewController(ScreenManager screenManager,
                                CantineService cantineService,
                                EventManager eventManager,
-                               SessionManager sessionManager) {
-        super(screenManager, cantineService, eventManager, sessionManager);
+                               SessionContext sessionContext) {
+        super(screenManager, cantineService, eventManager, sessionContext);
         this.subscribeToEvents();
     }
 
@@ -55,9 +59,15 @@ public class ReviewController extends AbstractController {
         eventManager.subscribe(EventType.ADD_REVIEW, this::handleAddReview);
         eventManager.subscribe(EventType.SHOW_DELETE_REVIEW, (data) -> screenManager.showDeleteReviewScreen());
         eventManager.subscribe(EventType.DELETE_REVIEW, this::handleDeleteReview);
-        eventManager.subscribe(EventType.SHOW_ALL_REVIEWS, this::handleShowAllReviews);
+        Page.Source<ReviewRecord> allReviews =
+                (afterId, limit) -> cantineService.getReviewsPage(afterId, limit, SortOrder.ASC);
+        eventManager.subscribeBlocking(EventType.SHOW_ALL_REVIEWS, data -> allReviews.load(null, tablePageSize),
+                page -> screenManager.showAllReviews(page, allReviews),
+                "There was an error while showing all Reviews please try again!");
         eventManager.subscribe(EventType.SHOW_SEARCH_REVIEWS_BY_MEAL_NAME, (data) -> screenManager.showSearchReviewsByMealName());
-        eventManager.subscribe(EventType.SEARCH_REVIEWS_BY_MEAL_NAME, this::handleSearchReviewsByMealName);
+        eventManager.subscribeBlocking(EventType.SEARCH_REVIEWS_BY_MEAL_NAME, this::searchReviewsByMealName,
+                screenManager::showAllReviews, e -> e instanceof MealDoesntExistException ? e.getMessage()
+                        : "There was an error while searching for the Reviews please try again!");
     }
 
     /**
@@ -94,7 +104,7 @@ public class ReviewController extends AbstractController {
             review.setMealId(mealId);
             review.setRating(rating);
             review.setComment(comment);
-            review.setUserid(sessionManager.getCurrentUserId());
+            review.setUserid(sessionContext.getCurrentUserId());
             cantineService.addReview(review);
             screenManager.closeActiveWindow();
             screenManager.showSuccessScreen("Review added successfully!");
@@ -118,17 +128,14 @@ public class ReviewController extends AbstractController {
         try {
             String[] reviewData = (String[]) data.getData();
             int reviewId = Integer.parseInt(reviewData[0]);
-            int reviewUserId = cantineService.getUserIdFromReviewId(reviewId);
-            // Check if the current user is admin
-            boolean isAdmin = cantineService.isAdmin(sessionManager.getCurrentUserId());
-            // If not admin and review's user id does not match, reject deletion
-            if (!isAdmin && reviewUserId != sessionManager.getCurrentUserId()) {
+            // Without the permission to delete any review and if the review's user id does not match,
+            // the deletion is rejected
+            Session session = sessionContext.getSession();
+            if (!cantineService.deleteReview(reviewId, session.getUserId(),
+                    session.hasPermission(Permission.DELETE_ANY_REVIEW))) {
                 screenManager.showErrorScreen("Unauthorized: You can only delete your own reviews.");
                 return;
             }
-
-            // Authorized to delete review
-            cantineService.deleteReview(reviewId);
             screenManager.showSuccessScreen("Review deleted successfully!");
         } catch (NumberFormatException e) {
             screenManager.showErrorScreen("Invalid review ID format!");
@@ -140,39 +147,21 @@ public class ReviewController extends AbstractController {
     }
 
     /**
-     * Handles displaying all reviews.
-     * <p>
-     * Retrieves a list of all reviews and displays them.
-     * </p>
-     */
-    private void handleShowAllReviews() {
-        try {
-            List<ReviewRecord> reviews = cantineService.getAllReviews();
-            screenManager.showAllReviews(reviews);
-        } catch (SQLException e) {
-            screenManager.showErrorScreen("There was an error while showing all Reviews please try again!");
-        }
-    }
-
-    /**
-     * Handles searching reviews by meal name.
+     * Searches reviews by meal name.
      * <p>
-     * Retrieves reviews corresponding to the given meal name and displays them.
+     * Runs as blocking work of the SEARCH_REVIEWS_BY_MEAL_NAME event, the reviews are displayed by the
+     * event manager.
      * </p>
      *
      * @param data an Object array where the first element is the meal name as a String
+     * @return the reviews of the meal
+     * @throws SQLException             if a database error occurs
+     * @throws MealDoesntExistException if there is no meal with the given name
      */
-    private void handleSearchReviewsByMealName(EventData data) {
-        try {
-            String[] dataArray = (String[]) data.getData();
-            String mealName = dataArray[0];
-            List<ReviewRecord> reviews = cantineService.searchReviewsByMealName(mealName);
-            screenManager.showAllReviews(reviews);
-        } catch (MealDoesntExistException e) {
-            screenManager.showErrorScreen(e.getMessage());
-        } catch (SQLException e) {
-            screenManager.showErrorScreen("There was an error while searching for the Reviews please try again!");
-        }
+    private List<ReviewRecord> searchReviewsByMealName(EventData data) throws SQLException, MealDoesntExistException {
+        String[] dataArray = (String[]) data.getData();
+        String mealName = dataArray[0];
+        return cantineService.searchReviewsByMealName(mealName);
     }
 
 
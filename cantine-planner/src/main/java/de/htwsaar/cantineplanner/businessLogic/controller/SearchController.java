@@ -0,0 +1,78 @@
+package de.htwsaar.cantineplanner.businessLogic.controller;
+
+import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
+import de.htwsaar.cantineplanner.businessLogic.manager.SessionContext;
+import de.htwsaar.cantineplanner.businessLogic.service.CantineService;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventData;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
+import de.htwsaar.cantineplanner.data.model.SearchHit;
+import de.htwsaar.cantineplanner.data.util.ApplicationProperties;
+import de.htwsaar.cantineplanner.presentation.ScreenManager;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The SearchController class is responsible for the full-text search over meals and reviews.
+ * <p>
+ * At most {@code search.result-limit} hits are shown, best matches first.
+ * </p>
+ */
+public class SearchController extends AbstractController {
+    private final int resultLimit;
+
+    /**
+     * Constructs a new SearchController.
+     *
+     * @param screenManager  the screen manager to manage UI screens
+     * @param cantineService the service to handle cantine-related operations
+     * @param eventManager   the event manager to handle events
+     * @param sessionContext the session of the terminal the controller serves
+     */
+    protected SearchController(ScreenManager screenManager,
+                               CantineService cantineService,
+                               EventManager eventManager,
+                               SessionContext sessionContext) {
+        super(screenManager, cantineService, eventManager, sessionContext);
+        this.resultLimit = ApplicationProperties.getInt("search.result-limit", 50);
+        this.subscribeToEvents();
+    }
+
+    /**
+     * Subscribes to the search events.
+     */
+    @Override
+    protected void subscribeToEvents() {
+        eventManager.subscribe(EventType.SHOW_SEARCH, (data) -> screenManager.showSearchScreen());
+        eventManager.subscribeBlocking(EventType.SEARCH, this::search, this::showSearchResults,
+                "There was an error while searching please try again!");
+    }
+
+    /**
+     * Searches meals and reviews.
+     * <p>
+     * Runs as blocking work of the SEARCH event, the hits are displayed by the event manager.
+     * </p>
+     *
+     * @param data an Object array where the first element is the search query as a String
+     * @return the hits of the search
+     * @throws SQLException if a database error occurs
+     */
+    private List<SearchHit> search(EventData data) throws SQLException {
+        String[] dataArray = (String[]) data.getData();
+        return cantineService.search(dataArray[0], resultLimit);
+    }
+
+    /**
+     * Displays the hits of a search, or an error screen if nothing matched.
+     *
+     * @param hits the hits of the search
+     */
+    private void showSearchResults(List<SearchHit> hits) {
+        if (hits.isEmpty()) {
+            screenManager.showErrorScreen("No meals or reviews match your search!");
+        } else {
+            screenManager.showSearchResults(hits);
+        }
+    }
+}
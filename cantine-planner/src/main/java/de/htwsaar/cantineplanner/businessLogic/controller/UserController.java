@@ -1,22 +1,29 @@
 package de.htwsaar.cantineplanner.businessLogic.controller;
 
-import de.htwsaar.cantineplanner.businessLogic.manager.SessionManager;
+import de.htwsaar.cantineplanner.businessLogic.manager.Session;
+import de.htwsaar.cantineplanner.businessLogic.manager.SessionContext;
 import de.htwsaar.cantineplanner.businessLogic.service.CantineService;
+import de.htwsaar.cantineplanner.businessLogic.service.CredentialService;
 import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventData;
+import de.htwsaar.cantineplanner.businessLogic.types.Permission;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.IntData;
 import de.htwsaar.cantineplanner.codegen.tables.records.ReviewRecord;
 import de.htwsaar.cantineplanner.codegen.tables.records.UsersRecord;
 import de.htwsaar.cantineplanner.data.exceptions.InvalidEmailTypeException;
+import de.htwsaar.cantineplanner.data.exceptions.SessionExpiredException;
 import de.htwsaar.cantineplanner.data.exceptions.UserDoesntExistException;
 import de.htwsaar.cantineplanner.data.exceptions.UserNotValidatedException;
 import de.htwsaar.cantineplanner.data.exceptions.UseriDDoesntExcistException;
+import de.htwsaar.cantineplanner.data.model.Page;
 import de.htwsaar.cantineplanner.presentation.ScreenManager;
+import org.jooq.SortOrder;
 
 import java.sql.SQLException;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * The UserController class is responsible for handling user-related operations.
@@ -26,6 +33,8 @@ import java.util.Objects;
  * </p>
  */
 public class UserController extends AbstractController {
+    private final CredentialService credentialService;
+
     /**
      * Constructs a new UserController.
      * <p>
@@ -36,13 +45,16 @@ public class UserController extends AbstractController {
      * @param screenManager  the screen manager to manage UI screens
      * @param cantineService the service to handle cantine-related operations
      * @param eventManager   the event manager to handle events
-     * @param sessionManager the session manager to manage user sessions
+     * @param sessionContext the session of the terminal the controller serves
+     * @param credentialService the service hashing and verifying passwords in the background
      */
     protected UserController(ScreenManager screenManager,
                              CantineService cantineService,
                              EventManager eventManager,
-                             SessionManager sessionManager) {
-        super(screenManager, cantineService, eventManager, sessionManager);
+                             SessionContext sessionContext,
+                             CredentialService credentialService) {
+        super(screenManager, cantineService, eventManager, sessionContext);
+        this.credentialService = credentialService;
         this.subscribeToEvents();
     }
 
@@ -60,7 +72,10 @@ public class UserController extends AbstractController {
         eventManager.subscribe(EventType.EDIT_USER_DATA, this::handleEditUserData);
         eventManager.subscribe(EventType.SHOW_EDIT_NEW_USER_DATA, screenManager::showEditNewUserDataScreen);
         eventManager.subscribe(EventType.EDIT_NEW_USER_DATA, this::handleInputNewUserData);
-        eventManager.subscribe(EventType.SHOW_REVIEWS_BY_USER, this::handleShowReviewsByUser);
+        eventManager.subscribeBlocking(EventType.SHOW_REVIEWS_BY_USER, data -> loadReviewsOfCurrentUser(),
+                reviews -> screenManager.showAllReviews(reviews.firstPage(), reviews.nextPages()),
+                e -> e instanceof UseriDDoesntExcistException || e instanceof SessionExpiredException ? e.getMessage()
+                        : "There was an error while fetching all reviews please try again!");
         eventManager.subscribe(EventType.SHOW_ALLERGEN_SETTINGS, screenManager::showAllergeneSettings);
         eventManager.subscribe(EventType.ALLERGENE_SETTINGS, this::handleAllergeneSettings);
         eventManager.subscribe(EventType.SHOW_ALL_USERS, this::handleAllUser);
@@ -68,22 +83,19 @@ public class UserController extends AbstractController {
         eventManager.subscribe(EventType.DELETE_USER, this::handleDeleteUser);
         eventManager.subscribe(EventType.SHOW_UPDATE_USER_ROLE, screenManager::showUpdateUserRoleScreen);
         eventManager.subscribe(EventType.UPDATE_USER_ROLE, this::handleUpdateUserRole);
+        eventManager.subscribe(EventType.USER_ROLE_CHANGED, this::handleUserRoleChanged);
+        eventManager.subscribe(EventType.SHOW_DIAGNOSTICS, this::handleShowDiagnostics);
     }
 
     /**
      * Displays the user menu screen.
      * <p>
-     * This method checks if the current user is an admin and displays the user menu screen accordingly.
-     * If an error occurs while validating the user, an error screen is shown.
+     * This method checks if the current user may manage users and displays the user menu screen accordingly.
+     * The permission is cached in the session, so this doesn't query the database.
      * </p>
      */
     protected void showUserMenu() {
-
-        try {
-            screenManager.showUserMenuScreen(cantineService.isAdmin(sessionManager.getCurrentUserId()));
-        } catch (SQLException | UserDoesntExistException e) {
-            screenManager.showErrorScreen("There was an error while validating the user. Try again!");
-        }
+        screenManager.showUserMenuScreen(sessionContext.hasPermission(Permission.MANAGE_USERS));
     }
 
     /**
@@ -102,17 +114,21 @@ public class UserController extends AbstractController {
         String[] userData = (String[]) data.getData();
         String currentPassword = userData[0];
 
-        try {
-            if (cantineService.validateUser(sessionManager.getCurrentUserId(), currentPassword)) {
-                screenManager.closeActiveWindow();
-                screenManager.showSuccessScreen("User validated!");
-                screenManager.showEditNewUserDataScreen();
-            }
-        } catch (UserNotValidatedException e) {
-            screenManager.showErrorScreen(e.getMessage());
-        } catch (SQLException e) {
-            screenManager.showErrorScreen("There was an error while validating user data, please try again!");
-        }
+        screenManager.showProgressUntilDone("Verifying...",
+                credentialService.validateUser(sessionContext.getCurrentUserId(), currentPassword),
+                (valid, error) -> {
+                    if (error instanceof UserNotValidatedException) {
+                        screenManager.showErrorScreen(error.getMessage());
+                    } else if (error instanceof RejectedExecutionException) {
+                        screenManager.showErrorScreen(BUSY_MESSAGE);
+                    } else if (error != null) {
+                        screenManager.showErrorScreen("There was an error while validating user data, please try again!");
+                    } else if (valid) {
+                        screenManager.closeActiveWindow();
+                        screenManager.showSuccessScreen("User validated!");
+                        screenManager.showEditNewUserDataScreen();
+                    }
+                });
     }
 
     /**
@@ -137,15 +153,20 @@ public class UserController extends AbstractController {
             return;
         }
 
-        try {
-            cantineService.editUserData(sessionManager.getCurrentUserId(), newPassword, newEmail);
-            screenManager.closeActiveWindow();
-            screenManager.showSuccessScreen("Password and email updated successfully!");
-        } catch (InvalidEmailTypeException e) {
-            screenManager.showErrorScreen(e.getMessage());
-        } catch (SQLException e) {
-            screenManager.showErrorScreen("There was an error while updating password and email, please try again!");
-        }
+        screenManager.showProgressUntilDone("Saving...",
+                credentialService.editUserData(sessionContext.getCurrentUserId(), newPassword, newEmail),
+                (result, error) -> {
+                    if (error instanceof InvalidEmailTypeException) {
+                        screenManager.showErrorScreen(error.getMessage());
+                    } else if (error instanceof RejectedExecutionException) {
+                        screenManager.showErrorScreen(BUSY_MESSAGE);
+                    } else if (error != null) {
+                        screenManager.showErrorScreen("There was an error while updating password and email, please try again!");
+                    } else {
+                        screenManager.closeActiveWindow();
+                        screenManager.showSuccessScreen("Password and email updated successfully!");
+                    }
+                });
     }
 
 
@@ -163,6 +184,7 @@ public class UserController extends AbstractController {
             int userId = Integer.parseInt(dataArray[0]);
             int role = Integer.parseInt(dataArray[1]);
             cantineService.updateUserRole(userId, role);
+            eventManager.notify(EventType.USER_ROLE_CHANGED, new IntData(userId));
             screenManager.closeActiveWindow();
             screenManager.showSuccessScreen("User role updated successfully!");
         } catch (NumberFormatException e) {
@@ -173,30 +195,48 @@ public class UserController extends AbstractController {
     }
 
     /**
-     * Handles displaying all reviews made by the current user.
+     * Handles a changed user role.
+     * <p>
+     * Reloads the user once and refreshes the role and permissions cached in all sessions of the user.
+     * </p>
+     *
+     * @param data the ID of the user whose role changed
      */
-    private void handleShowReviewsByUser() {
+    private void handleUserRoleChanged(EventData data) {
         try {
-            List<ReviewRecord> reviews = cantineService.getAllReviewsByUser(sessionManager.getCurrentUserId());
-            screenManager.showAllReviews(reviews);
-        } catch (UseriDDoesntExcistException e) {
-            screenManager.showErrorScreen(e.getMessage());
-        } catch (SQLException e) {
-            screenManager.showErrorScreen("There was an error while fetching all reviews please try again!");
+            sessionContext.refresh(cantineService.getUserById((int) data.getData()));
+        } catch (SQLException | UserDoesntExistException e) {
+            screenManager.showErrorScreen("There was an error while refreshing the user sessions, please try again!");
+        }
+    }
+
+    /**
+     * Handles displaying the event statistics.
+     * <p>
+     * Only users allowed to view diagnostics see the statistics, others get an error screen.
+     * </p>
+     */
+    private void handleShowDiagnostics() {
+        if (!sessionContext.hasPermission(Permission.VIEW_DIAGNOSTICS)) {
+            screenManager.showErrorScreen("You do not have the necessary permissions to view the diagnostics.");
+            return;
         }
+        screenManager.showDiagnosticsScreen(eventManager.getStatistics().summarize());
     }
 
     /**
      * Handles updating allergen settings for the current user.
      * <p>
-     * Parses the allergen settings from input data and updates them.
+     * Parses the allergen settings from input data, updates them and refreshes the allergies cached in the session.
      * </p>
      *
      * @param data an Object array containing allergen settings as Strings
      */
     private void handleAllergeneSettings(EventData data) {
         try {
-            cantineService.setAllergeneSettings(sessionManager.getCurrentUserId(), Arrays.toString((String[]) data.getData()));
+            Session session = sessionContext.getSession();
+            cantineService.setAllergeneSettings(session.getUserId(), Arrays.toString((String[]) data.getData()));
+            sessionContext.refresh(cantineService.getUserById(session.getUserId()));
             screenManager.closeActiveWindow();
             screenManager.showSuccessScreen("Allergene settings updated successfully!");
         } catch (SQLException e) {
@@ -219,6 +259,28 @@ public class UserController extends AbstractController {
         return false;
     }
 
+    /**
+     * Reads the first page of the reviews of the logged-in user.
+     * <p>
+     * The next pages are read for the same user, even if the session ends while the table is shown.
+     * </p>
+     *
+     * @return the first page and the source of the next pages
+     * @throws SQLException if a database error occurs
+     */
+    private ReviewPages loadReviewsOfCurrentUser() throws SQLException {
+        int userId = sessionContext.getCurrentUserId();
+        Page.Source<ReviewRecord> reviews =
+                (afterId, limit) -> cantineService.getReviewsPageByUser(userId, afterId, limit, SortOrder.ASC);
+        return new ReviewPages(reviews.load(null, tablePageSize), reviews);
+    }
+
+    /**
+     * The first page of a review listing and the source of its next pages.
+     */
+    private record ReviewPages(Page<ReviewRecord> firstPage, Page.Source<ReviewRecord> nextPages) {
+    }
+
     /**
      * Handles displaying all users.
      * <p>
@@ -227,8 +289,9 @@ public class UserController extends AbstractController {
      */
     private void handleAllUser() {
         try {
-            List<UsersRecord> users = cantineService.getAllUser();
-            screenManager.showAllUser(users);
+            Page.Source<UsersRecord> users =
+                    (afterId, limit) -> cantineService.getUsersPage(afterId, limit, SortOrder.ASC);
+            screenManager.showAllUser(users.load(null, tablePageSize), users);
         } catch (SQLException e) {
             screenManager.showErrorScreen("There was an error while fetching all users please try again!");
         }
@@ -247,6 +310,8 @@ public class UserController extends AbstractController {
             String[] dataArray = (String[]) data.getData();
             int userId = Integer.parseInt(dataArray[0]);
             cantineService.deleteUser(userId);
+            // The permissions are cached in the sessions, a deleted user must not keep them
+            sessionContext.closeAll(userId);
             screenManager.closeActiveWindow();
             screenManager.showSuccessScreen("User deleted successfully!");
         } catch (NumberFormatException e) {
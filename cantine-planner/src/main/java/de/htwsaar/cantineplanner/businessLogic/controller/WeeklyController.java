@@ -1,9 +1,10 @@
 package de.htwsaar.cantineplanner.businessLogic.controller;
 
-import de.htwsaar.cantineplanner.businessLogic.manager.SessionManager;
+import de.htwsaar.cantineplanner.businessLogic.manager.SessionContext;
 import de.htwsaar.cantineplanner.businessLogic.types.Weekday;
 import de.htwsaar.cantineplanner.businessLogic.service.CantineService;
 import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
+import de.htwsaar.cantineplanner.businessLogic.types.Permission;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventData;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
 import de.htwsaar.cantineplanner.codegen.tables.records.MealsRecord;
@@ -32,13 +33,13 @@ public class WeeklyController extends AbstractController {
      * @param screenManager  the screen manager to manage UI screens
      * @param cantineService the service to handle cantine-related operations
      * @param eventManager   the event manager to handle events
-     * @param sessionManager the session manager to manage user sessions
+     * @param sessionContext the session of the terminal the controller serves
      */
     protected WeeklyController(ScreenManager screenManager,
                             CantineService cantineService,
                             EventManager eventManager,
-                            SessionManager sessionManager) {
-        super(screenManager, cantineService, eventManager, sessionManager);
+                            SessionContext sessionContext) {
+        super(screenManager, cantineService, eventManager, sessionContext);
         this.subscribeToEvents();
         currentWeekdayEdit = null;
     }
@@ -63,16 +64,12 @@ public class WeeklyController extends AbstractController {
     /**
      * Displays the weekly menu screen.
      * <p>
-     * This method checks if the current user is an admin and displays the weekly menu screen accordingly.
-     * If an error occurs while validating the user, an error screen is shown.
+     * This method checks if the current user may edit the weekly plan and displays the weekly menu screen
+     * accordingly. The permission is cached in the session, so this doesn't query the database.
      * </p>
      */
     protected void showWeeklyMenu() {
-        try {
-            screenManager.showWeeklyMenuScreen(cantineService.isAdmin(sessionManager.getCurrentUserId()));
-        } catch (SQLException e) {
-            screenManager.showErrorScreen("There was an error while validating the user. Try again!");
-        }
+        screenManager.showWeeklyMenuScreen(sessionContext.hasPermission(Permission.EDIT_WEEKLY_PLAN));
     }
 
     /**
@@ -0,0 +1,317 @@
+package de.htwsaar.cantineplanner.businessLogic.manager;
+
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventData;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.IntData;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.StringArrayData;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.StringData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only binary journal of the events caused by the users, e.g. to replay real sessions as load tests.
+ * <p>
+ * Every time a journal is opened a segment is appended to the file. A segment starts with the time it was
+ * opened and the names of all event types, so a journal stays readable after event types were added or
+ * reordered. Each event is written as the index of its type, the microseconds since the previous record and
+ * its payload, with variable-length numbers; a typical event takes a few bytes. Every record is flushed to
+ * the file system when it is written, a crash loses at most the record being written, which the reader skips.
+ * </p>
+ * <p>
+ * Credentials are never written: the password fields of the login, registration and user data events are
+ * replaced by a marker that the reader turns into a configurable replacement password.
+ * </p>
+ */
+public class EventJournal implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventJournal.class);
+
+    private static final int MAGIC = 0x43504A31; // "CPJ1"
+
+    private static final byte SEGMENT = 0;
+    private static final byte EVENT = 1;
+
+    private static final byte NO_DATA = 0;
+    private static final byte INT_DATA = 1;
+    private static final byte STRING_DATA = 2;
+    private static final byte STRING_ARRAY_DATA = 3;
+
+    private static final byte NULL_ELEMENT = 0;
+    private static final byte ELEMENT = 1;
+    private static final byte REDACTED_ELEMENT = 2;
+
+    // Indexes of the password fields in the StringArrayData of the events that carry credentials
+    private static final Map<EventType, int[]> CREDENTIAL_FIELDS = new EnumMap<>(EventType.class);
+
+    static {
+        CREDENTIAL_FIELDS.put(EventType.LOGIN, new int[]{1});
+        CREDENTIAL_FIELDS.put(EventType.REGISTER, new int[]{1});
+        CREDENTIAL_FIELDS.put(EventType.EDIT_USER_DATA, new int[]{0});
+        CREDENTIAL_FIELDS.put(EventType.EDIT_NEW_USER_DATA, new int[]{0});
+    }
+
+    private final Path path;
+    private final DataOutputStream output;
+    private long lastRecordNanos;
+    private boolean failed;
+
+    /**
+     * An event read from a journal.
+     *
+     * @param segment         the index of the segment the event was recorded in, i.e. the run of the application
+     * @param timestampMicros the time the event was recorded, in microseconds since the epoch
+     * @param eventType       the type of the event
+     * @param data            the data of the event, with redacted passwords replaced
+     */
+    public record Entry(int segment, long timestampMicros, EventType eventType, EventData data) {
+    }
+
+    private EventJournal(Path path, DataOutputStream output) {
+        this.path = path;
+        this.output = output;
+    }
+
+    /**
+     * Opens a journal for appending and starts a new segment, creating the file if needed.
+     *
+     * @param path the path of the journal file
+     * @return the opened journal
+     * @throws IOException if the file cannot be opened or written
+     */
+    public static EventJournal open(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        EventJournal journal = new EventJournal(path, output);
+        try {
+            journal.writeSegmentHeader();
+        } catch (IOException e) {
+            output.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    /**
+     * Appends an event to the journal.
+     * <p>
+     * The journal must never break the application: if writing fails, the error is logged and the journal
+     * stops recording.
+     * </p>
+     *
+     * @param eventType the type of the event
+     * @param data      the data of the event, may be null
+     */
+    public synchronized void append(EventType eventType, EventData data) {
+        if (failed) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            output.writeByte(EVENT);
+            writeVarLong(output, eventType.ordinal());
+            writeVarLong(output, (now - lastRecordNanos) / 1_000);
+            // Advance by whole microseconds only, so the rounding doesn't add up over a long segment
+            lastRecordNanos += (now - lastRecordNanos) / 1_000 * 1_000;
+            writeData(output, eventType, data);
+            output.flush();
+        } catch (IOException e) {
+            failed = true;
+            LOGGER.error("Writing the event journal {} failed, no more events are recorded", path, e);
+        }
+    }
+
+    /**
+     * Closes the journal file.
+     *
+     * @throws IOException if the buffered records cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        failed = true;
+        output.close();
+    }
+
+    /**
+     * Reads all events of a journal file.
+     * <p>
+     * Events of types that no longer exist are skipped, as is a record left incomplete by a crash at the end.
+     * </p>
+     *
+     * @param path                the path of the journal file
+     * @param redactedReplacement the value to put in place of the redacted passwords
+     * @return the events in the order they were recorded
+     * @throws IOException if the file cannot be read or is no event journal
+     */
+    public static List<Entry> read(Path path, String redactedReplacement) throws IOException {
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(path))) {
+            return read(new DataInputStream(input), redactedReplacement);
+        }
+    }
+
+    private static List<Entry> read(DataInputStream input, String redactedReplacement) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        EventType[] types = null;
+        int segment = -1;
+        long timestampMicros = 0;
+        int tag;
+        while ((tag = input.read()) != -1) {
+            try {
+                if (tag == SEGMENT) {
+                    if (input.readInt() != MAGIC) {
+                        throw new IOException("Corrupt event journal, expected a segment header");
+                    }
+                    timestampMicros = input.readLong();
+                    types = readEventTypes(input);
+                    segment++;
+                } else if (tag == EVENT && types != null) {
+                    int typeIndex = (int) readVarLong(input);
+                    timestampMicros += readVarLong(input);
+                    EventData data = readData(input, redactedReplacement);
+                    EventType eventType = typeIndex < types.length ? types[typeIndex] : null;
+                    if (eventType != null) {
+                        entries.add(new Entry(segment, timestampMicros, eventType, data));
+                    }
+                } else {
+                    throw new IOException("Corrupt event journal, unknown record " + tag);
+                }
+            } catch (EOFException e) {
+                LOGGER.warn("The event journal ends with an incomplete record, it is skipped");
+                break;
+            }
+        }
+        return entries;
+    }
+
+    private void writeSegmentHeader() throws IOException {
+        long nowMicros = System.currentTimeMillis() * 1_000;
+        lastRecordNanos = System.nanoTime();
+        output.writeByte(SEGMENT);
+        output.writeInt(MAGIC);
+        output.writeLong(nowMicros);
+        EventType[] types = EventType.values();
+        writeVarLong(output, types.length);
+        for (EventType type : types) {
+            output.writeUTF(type.name());
+        }
+        output.flush();
+    }
+
+    private static EventType[] readEventTypes(DataInput input) throws IOException {
+        EventType[] types = new EventType[(int) readVarLong(input)];
+        for (int i = 0; i < types.length; i++) {
+            String name = input.readUTF();
+            try {
+                types[i] = EventType.valueOf(name);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("The event type {} no longer exists, its events are skipped", name);
+            }
+        }
+        return types;
+    }
+
+    private static void writeData(DataOutput output, EventType eventType, EventData data) throws IOException {
+        if (data instanceof IntData intData) {
+            output.writeByte(INT_DATA);
+            writeVarLong(output, intData.getMessage());
+        } else if (data instanceof StringData stringData) {
+            output.writeByte(STRING_DATA);
+            output.writeUTF(stringData.getMessage());
+        } else if (data instanceof StringArrayData arrayData) {
+            String[] values = arrayData.getMessage();
+            int[] credentials = CREDENTIAL_FIELDS.getOrDefault(eventType, new int[0]);
+            output.writeByte(STRING_ARRAY_DATA);
+            writeVarLong(output, values.length);
+            for (int i = 0; i < values.length; i++) {
+                if (isCredential(credentials, i)) {
+                    output.writeByte(REDACTED_ELEMENT);
+                } else if (values[i] == null) {
+                    output.writeByte(NULL_ELEMENT);
+                } else {
+                    output.writeByte(ELEMENT);
+                    output.writeUTF(values[i]);
+                }
+            }
+        } else {
+            output.writeByte(NO_DATA);
+        }
+    }
+
+    private static EventData readData(DataInput input, String redactedReplacement) throws IOException {
+        byte kind = input.readByte();
+        switch (kind) {
+            case NO_DATA:
+                return null;
+            case INT_DATA:
+                return new IntData((int) readVarLong(input));
+            case STRING_DATA:
+                return new StringData(input.readUTF());
+            case STRING_ARRAY_DATA:
+                String[] values = new String[(int) readVarLong(input)];
+                for (int i = 0; i < values.length; i++) {
+                    byte element = input.readByte();
+                    if (element == ELEMENT) {
+                        values[i] = input.readUTF();
+                    } else if (element == REDACTED_ELEMENT) {
+                        values[i] = redactedReplacement;
+                    }
+                }
+                return new StringArrayData(values);
+            default:
+                throw new IOException("Corrupt event journal, unknown payload " + kind);
+        }
+    }
+
+    private static boolean isCredential(int[] credentials, int index) {
+        for (int credential : credentials) {
+            if (credential == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes a number with 7 bits per byte, zigzag encoded so small negative numbers stay short as well.
+     */
+    private static void writeVarLong(DataOutput output, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            output.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        output.writeByte((int) zigzag);
+    }
+
+    private static long readVarLong(DataInput input) throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = input.readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IOException("Corrupt event journal, number too long");
+    }
+}
@@ -1,61 +1,373 @@
 package de.htwsaar.cantineplanner.businessLogic.manager;
 
-    import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventData;
-    import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventData;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.StringData;
 
-    import java.util.ArrayList;
-    import java.util.HashMap;
-    import java.util.List;
-    import java.util.Map;
-    import java.util.function.Consumer;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Simple EventManager that allows registering listeners for events
+ * and invoking them when needed.
+ * <p>
+ * The listeners are kept in an {@link EnumMap} of arrays that is never changed once it is published.
+ * Subscribing copies the map and the array of the event type and publishes the copy, so events can be
+ * notified from any thread without locking, and a notification never allocates. Subscriptions happen
+ * once while the controllers are set up, notifications on every user action.
+ * </p>
+ * <p>
+ * Listeners that query the database can be subscribed as blocking with
+ * {@link #subscribeBlocking(EventType, BlockingHandler, Consumer, Function)}. By default they run like every
+ * other listener on the thread that notifies the event, usually the GUI thread. After
+ * {@link #enableAsyncDispatch(Executor)} their work runs on virtual threads instead and only the rendering of
+ * the result is handed back to the GUI thread, so the terminal stays responsive. The work of one event type
+ * runs one event at a time in the order of the notifications, so the results are rendered in that order too.
+ * </p>
+ * <p>
+ * The self time and the failures of every dispatch are recorded in the {@link EventStatistics}. The self time of
+ * a dispatch is its wall time without the dispatches of the events its listeners notify in turn, which are
+ * recorded on their own, and without the time the listeners wait for the user in a modal window, see
+ * {@link #excludeFromLatency(Runnable)}. Events caused
+ * by the user are notified with {@link #notifyUserAction(EventType, EventData)} and appended to the
+ * {@link EventJournal} if one is set; the events the listeners notify in turn are not journaled, replaying the
+ * user actions notifies them again.
+ * </p>
+ */
+public class EventManager {
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Consumer<EventData>[] NO_LISTENERS = new Consumer[0];
+
+    // The dispatches running on the current thread, innermost last
+    private static final ThreadLocal<DispatchFrames> DISPATCH_FRAMES = ThreadLocal.withInitial(DispatchFrames::new);
+
+    private volatile Map<EventType, Consumer<EventData>[]> listeners = new EnumMap<>(EventType.class);
+
+    // The executor running tasks on the GUI thread, null while events are dispatched synchronously
+    private volatile Executor renderExecutor;
+    private ExecutorService blockingExecutor;
+    private final Map<EventType, SerialLane> lanes = new EnumMap<>(EventType.class);
+    private final EventStatistics statistics = new EventStatistics();
+    private volatile EventJournal journal;
 
     /**
-     * Simple EventManager that allows registering listeners for events
-     * and invoking them when needed.
+     * The work of a blocking listener.
+     *
+     * @param <T> the type of the result to render
      */
-    public class EventManager {
-        private final Map<EventType, List<Consumer<EventData>>> listeners = new HashMap<>();
-
+    @FunctionalInterface
+    public interface BlockingHandler<T> {
         /**
-         * Subscribes a listener to a specific event type.
+         * Does the blocking work of the listener, e.g. querying the database.
          *
-         * @param eventType the type of event to listen for
-         * @param eventFunction the function to execute when the event occurs
+         * @param data the data associated with the event
+         * @return the result to render
+         * @throws Exception if the work fails
          */
-        public void subscribe(EventType eventType, Consumer<EventData> eventFunction) {
-            List<Consumer<EventData>> list = new ArrayList<>();
-            if (listeners.containsKey(eventType)) {
-                list = listeners.get(eventType);
+        T handle(EventData data) throws Exception;
+    }
+
+    /**
+     * Subscribes a listener to a specific event type.
+     *
+     * @param eventType the type of event to listen for
+     * @param eventFunction the function to execute when the event occurs
+     */
+    public synchronized void subscribe(EventType eventType, Consumer<EventData> eventFunction) {
+        Consumer<EventData>[] current = listeners.getOrDefault(eventType, NO_LISTENERS);
+        Consumer<EventData>[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = eventFunction;
+
+        EnumMap<EventType, Consumer<EventData>[]> copy = new EnumMap<>(listeners);
+        copy.put(eventType, updated);
+        listeners = copy;
+    }
+
+    /**
+     * Subscribes a runnable to a specific event type.
+     *
+     * @param eventType the type of event to listen for
+     * @param eventFunction the runnable to execute when the event occurs
+     */
+    public void subscribe(EventType eventType, Runnable eventFunction) {
+        subscribe(eventType, eventData -> eventFunction.run());
+    }
+
+    /**
+     * Subscribes a blocking listener to a specific event type.
+     * <p>
+     * The work of the listener may block, the render function shows its result and runs on the GUI thread.
+     * If the work throws, a SHOW_ERROR_SCREEN event with the message for the exception is notified on the
+     * GUI thread instead.
+     * </p>
+     *
+     * @param eventType    the type of event to listen for
+     * @param work         the blocking work to do when the event occurs
+     * @param render       the function showing the result of the work
+     * @param errorMessage maps an exception thrown by the work to the error message to show
+     * @param <T>          the type of the result of the work
+     */
+    public <T> void subscribeBlocking(EventType eventType, BlockingHandler<T> work, Consumer<T> render,
+                                      Function<Exception, String> errorMessage) {
+        subscribe(eventType, eventData -> {
+            Executor executor = renderExecutor;
+            if (executor == null) {
+                runBlocking(eventType, eventData, work, render, errorMessage, Runnable::run, false);
+            } else {
+                laneOf(eventType).execute(
+                        () -> runBlocking(eventType, eventData, work, render, errorMessage, executor, true));
             }
-            list.add(eventFunction);
-            listeners.put(eventType, list);
+        });
+    }
+
+    /**
+     * Subscribes a blocking listener to a specific event type that shows the same error message for every
+     * exception.
+     *
+     * @param eventType    the type of event to listen for
+     * @param work         the blocking work to do when the event occurs
+     * @param render       the function showing the result of the work
+     * @param errorMessage the error message to show if the work throws
+     * @param <T>          the type of the result of the work
+     * @see #subscribeBlocking(EventType, BlockingHandler, Consumer, Function)
+     */
+    public <T> void subscribeBlocking(EventType eventType, BlockingHandler<T> work, Consumer<T> render,
+                                      String errorMessage) {
+        subscribeBlocking(eventType, work, render, exception -> errorMessage);
+    }
+
+    /**
+     * Runs the work of blocking listeners on virtual threads from now on.
+     *
+     * @param renderExecutor runs the rendering of the results on the GUI thread
+     */
+    public synchronized void enableAsyncDispatch(Executor renderExecutor) {
+        if (blockingExecutor == null) {
+            blockingExecutor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("event-handler-", 0).factory());
         }
+        this.renderExecutor = renderExecutor;
+    }
 
-        /**
-         * Subscribes a runnable to a specific event type.
-         *
-         * @param eventType the type of event to listen for
-         * @param eventFunction the runnable to execute when the event occurs
-         */
-        public void subscribe(EventType eventType, Runnable eventFunction) {
-            subscribe(eventType, eventData -> eventFunction.run());
+    /**
+     * Checks if the work of blocking listeners runs on virtual threads.
+     *
+     * @return true if async dispatch is enabled
+     */
+    public boolean isAsyncDispatchEnabled() {
+        return renderExecutor != null;
+    }
+
+    /**
+     * Returns the statistics of the dispatched events.
+     *
+     * @return the event statistics
+     */
+    public EventStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Sets the journal the events caused by the user are appended to.
+     *
+     * @param journal the journal, or null to stop journaling
+     */
+    public void setJournal(EventJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Returns the journal the events caused by the user are appended to.
+     *
+     * @return the journal, or null if no events are journaled
+     */
+    public EventJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Does the work of a blocking listener and hands its result or error to the render executor.
+     * <p>
+     * Work running inline is already measured as part of the dispatch, only its failures are recorded here.
+     * </p>
+     *
+     * @param background true if the work runs on a virtual thread, false if it runs inline
+     */
+    private <T> void runBlocking(EventType eventType, EventData eventData, BlockingHandler<T> work,
+                                 Consumer<T> render, Function<Exception, String> errorMessage, Executor executor,
+                                 boolean background) {
+        EventStatistics.Stats stats = background ? statistics.background(eventType) : statistics.dispatch(eventType);
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = work.handle(eventData);
+        } catch (Exception e) {
+            stats.recordError();
+            if (background) {
+                stats.record(System.nanoTime() - start);
+            }
+            String message = errorMessage.apply(e);
+            executor.execute(() -> notify(EventType.SHOW_ERROR_SCREEN, new StringData(message)));
+            return;
         }
+        if (background) {
+            stats.record(System.nanoTime() - start);
+        }
+        executor.execute(() -> render.accept(result));
+    }
 
-        /**
-         * Notifies all listeners of a specific event type with the given data.
-         *
-         * @param eventType the type of event to notify
-         * @param data the data associated with the event
-         */
-        public void notify(EventType eventType, EventData data) {
-            if(eventType.verifyEventData(data)) {
-                List<Consumer<EventData>> list = listeners.get(eventType);
-
-                if (list != null) {
-                    for (Consumer<EventData> eventFunction : list) {
-                        eventFunction.accept(data);
-                    }
-                }
+    /**
+     * Returns the lane running the blocking work of an event type, creating it on first use.
+     *
+     * @param eventType the type of event
+     * @return the lane of the event type
+     */
+    private synchronized SerialLane laneOf(EventType eventType) {
+        return lanes.computeIfAbsent(eventType, type -> new SerialLane(blockingExecutor));
+    }
+
+    /**
+     * Notifies all listeners of a specific event type with the given data.
+     * <p>
+     * Events without listeners return right away, the data is only verified for events that are dispatched.
+     * </p>
+     *
+     * @param eventType the type of event to notify
+     * @param data the data associated with the event
+     */
+    public void notify(EventType eventType, EventData data) {
+        Consumer<EventData>[] eventFunctions = listeners.get(eventType);
+        if (eventFunctions == null || !eventType.verifyEventData(data)) {
+            return;
+        }
+        EventStatistics.Stats stats = statistics.dispatch(eventType);
+        DispatchFrames frames = DISPATCH_FRAMES.get();
+        frames.push();
+        long start = System.nanoTime();
+        try {
+            for (Consumer<EventData> eventFunction : eventFunctions) {
+                eventFunction.accept(data);
+            }
+        } catch (RuntimeException | Error e) {
+            stats.recordError();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            stats.record(elapsed - frames.pop());
+            frames.exclude(elapsed);
+        }
+    }
+
+    /**
+     * Runs a listener step that waits for the user, e.g. showing a modal window until it is closed, without
+     * counting its time as latency of the event being dispatched.
+     * <p>
+     * Events notified while waiting, e.g. by the buttons of the window, are recorded on their own as usual.
+     * </p>
+     *
+     * @param waiting the step that waits for the user
+     */
+    public static void excludeFromLatency(Runnable waiting) {
+        DispatchFrames frames = DISPATCH_FRAMES.get();
+        long excludedBefore = frames.excluded();
+        long start = System.nanoTime();
+        try {
+            waiting.run();
+        } finally {
+            // The events notified while waiting already excluded their dispatches
+            long waited = System.nanoTime() - start;
+            frames.exclude(waited - (frames.excluded() - excludedBefore));
+        }
+    }
+
+    /**
+     * Notifies the listeners of an event caused by the user, e.g. by pressing a button or submitting an input screen.
+     * <p>
+     * Unlike {@link #notify(EventType, EventData)} the event is appended to the journal first, if one is set and
+     * the event has listeners.
+     * </p>
+     *
+     * @param eventType the type of event to notify
+     * @param data the data associated with the event
+     */
+    public void notifyUserAction(EventType eventType, EventData data) {
+        EventJournal currentJournal = journal;
+        if (currentJournal != null && listeners.containsKey(eventType) && eventType.verifyEventData(data)) {
+            currentJournal.append(eventType, data);
+        }
+        notify(eventType, data);
+    }
+
+    /**
+     * The time to exclude from each dispatch running on one thread, a stack growing with nested notifications.
+     */
+    private static final class DispatchFrames {
+        private long[] excludedNanos = new long[8];
+        private int depth;
+
+        void push() {
+            if (depth == excludedNanos.length) {
+                excludedNanos = Arrays.copyOf(excludedNanos, depth * 2);
             }
+            excludedNanos[depth++] = 0;
+        }
+
+        long pop() {
+            return excludedNanos[--depth];
+        }
+
+        long excluded() {
+            return depth > 0 ? excludedNanos[depth - 1] : 0;
+        }
+
+        void exclude(long nanos) {
+            if (depth > 0) {
+                excludedNanos[depth - 1] += nanos;
+            }
+        }
+    }
+
+    /**
+     * Runs tasks one after another, in the order they were submitted, on threads of the given executor.
+     * <p>
+     * At most one task of a lane runs at a time; a lane only occupies a thread while it has tasks.
+     * </p>
+     */
+    private static final class SerialLane implements Executor {
+        private final Executor executor;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        SerialLane(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                scheduled.set(false);
+                // A task added after the last poll but before the flag was reset would be stranded otherwise
+            } while (!tasks.isEmpty() && scheduled.compareAndSet(false, true));
         }
-    }
\ No newline at end of file
+    }
+}
@@ -0,0 +1,173 @@
+package de.htwsaar.cantineplanner.businessLogic.manager;
+
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the events dispatched by the {@link EventManager}, per event type.
+ * <p>
+ * For every event type the number of dispatches, the number of failed dispatches and a histogram of the
+ * self time of the listeners are recorded, see {@link EventManager}. The work of blocking listeners that runs on virtual threads is
+ * recorded separately as background work, the dispatch of such an event only measures handing the work over.
+ * Recording only uses {@link LongAdder}s and the lock-free {@link LatencyHistogram}, so it stays on in
+ * production.
+ * </p>
+ */
+public class EventStatistics {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventStatistics.class);
+
+    private final Stats[] dispatch = newStats();
+    private final Stats[] background = newStats();
+    private ScheduledExecutorService logExecutor;
+
+    /**
+     * Returns the statistics of the dispatches of an event type.
+     *
+     * @param eventType the type of event
+     * @return the statistics of the dispatches
+     */
+    public Stats dispatch(EventType eventType) {
+        return dispatch[eventType.ordinal()];
+    }
+
+    /**
+     * Returns the statistics of the background work of the blocking listeners of an event type.
+     *
+     * @param eventType the type of event
+     * @return the statistics of the background work
+     */
+    public Stats background(EventType eventType) {
+        return background[eventType.ordinal()];
+    }
+
+    /**
+     * Summarizes the statistics of all event types that were dispatched at least once.
+     *
+     * @return the summaries, sorted by the total wall time in descending order
+     */
+    public List<Summary> summarize() {
+        List<Summary> summaries = new ArrayList<>();
+        for (EventType eventType : EventType.values()) {
+            addSummary(summaries, eventType.name(), dispatch(eventType));
+            addSummary(summaries, eventType.name() + " (background)", background(eventType));
+        }
+        summaries.sort((first, second) -> Long.compare(second.totalNanos(), first.totalNanos()));
+        return summaries;
+    }
+
+    /**
+     * Logs the summaries of all dispatched event types every interval, until {@link #stopLogging()} is called.
+     *
+     * @param interval the time between two logs
+     */
+    public synchronized void startLogging(Duration interval) {
+        stopLogging();
+        logExecutor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("event-statistics").daemon().factory());
+        logExecutor.scheduleAtFixedRate(this::log, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops logging the statistics periodically.
+     */
+    public synchronized void stopLogging() {
+        if (logExecutor != null) {
+            logExecutor.shutdownNow();
+            logExecutor = null;
+        }
+    }
+
+    /**
+     * Logs the summaries of all dispatched event types.
+     */
+    public void log() {
+        for (Summary summary : summarize()) {
+            LOGGER.info("{}", summary);
+        }
+    }
+
+    private static void addSummary(List<Summary> summaries, String name, Stats stats) {
+        long count = stats.count.sum();
+        if (count == 0) {
+            return;
+        }
+        LatencyHistogram histogram = stats.histogram;
+        summaries.add(new Summary(name, count, stats.errors.sum(), stats.totalNanos.sum(),
+                histogram.getPercentile(50), histogram.getPercentile(95), histogram.getPercentile(99)));
+    }
+
+    private static Stats[] newStats() {
+        Stats[] stats = new Stats[EventType.values().length];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new Stats();
+        }
+        return stats;
+    }
+
+    /**
+     * The recorded statistics of one event type.
+     */
+    public static final class Stats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        /**
+         * Records a dispatch or a run of background work.
+         *
+         * @param nanos the wall time in nanoseconds
+         */
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            histogram.record(nanos);
+        }
+
+        /**
+         * Records that a listener failed.
+         */
+        public void recordError() {
+            errors.increment();
+        }
+    }
+
+    /**
+     * The statistics of one event type at one point in time.
+     *
+     * @param name       the name of the event type
+     * @param count      the number of dispatches
+     * @param errors     the number of failed dispatches
+     * @param totalNanos the total wall time of the listeners in nanoseconds
+     * @param p50Nanos   the median wall time in nanoseconds
+     * @param p95Nanos   the 95th percentile of the wall time in nanoseconds
+     * @param p99Nanos   the 99th percentile of the wall time in nanoseconds
+     */
+    public record Summary(String name, long count, long errors, long totalNanos,
+                          long p50Nanos, long p95Nanos, long p99Nanos) {
+
+        /**
+         * Returns the mean wall time.
+         *
+         * @return the mean wall time in nanoseconds
+         */
+        public long meanNanos() {
+            return totalNanos / count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: count=%d errors=%d mean=%.3fms p50=%.3fms p95=%.3fms p99=%.3fms",
+                    name, count, errors, meanNanos() / 1e6, p50Nanos / 1e6, p95Nanos / 1e6, p99Nanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package de.htwsaar.cantineplanner.businessLogic.manager;
+
+import de.htwsaar.cantineplanner.businessLogic.mapper.AllergenMapper;
+import de.htwsaar.cantineplanner.businessLogic.types.Permission;
+import de.htwsaar.cantineplanner.businessLogic.types.Role;
+import de.htwsaar.cantineplanner.codegen.tables.records.UsersRecord;
+
+/**
+ * A logged-in user session.
+ * <p>
+ * The session keeps a snapshot of the user taken at login, so the role, its permissions and the allergy
+ * settings can be read without querying the database. The snapshot is immutable; {@link SessionManager#refresh}
+ * replaces the whole session after the user changed. Only the time of the last access is updated in place.
+ * </p>
+ */
+public final class Session {
+    private final String sessionId;
+    private final int userId;
+    private final String username;
+    private final Role role;
+    private final int allergyMask;
+    private volatile long lastAccessMillis;
+
+    /**
+     * Constructs a new Session from a snapshot of the given user.
+     *
+     * @param sessionId        the ID of the session
+     * @param user             the logged-in user
+     * @param lastAccessMillis the time of the login in epoch milliseconds
+     */
+    Session(String sessionId, UsersRecord user, long lastAccessMillis) {
+        this.sessionId = sessionId;
+        this.userId = user.getUserid();
+        this.username = user.getUsername();
+        this.role = Role.fromId(user.getRole());
+        this.allergyMask = AllergenMapper.getAllergenMask(user.getDontShowMeal());
+        this.lastAccessMillis = lastAccessMillis;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    /**
+     * Checks if the user of the session has the admin role.
+     *
+     * @return true if the user has the admin role
+     */
+    public boolean isAdmin() {
+        return role == Role.ADMIN;
+    }
+
+    /**
+     * Checks if the role of the user grants the given permission, without querying the database.
+     *
+     * @param permission the permission to check
+     * @return true if the user has the permission
+     */
+    public boolean hasPermission(Permission permission) {
+        return role.getPermissions().contains(permission);
+    }
+
+    /**
+     * Returns the allergens of the meals the user doesn't want to see.
+     *
+     * @return the allergen mask, see {@link AllergenMapper#getAllergenMask(String)}
+     */
+    public int getAllergyMask() {
+        return allergyMask;
+    }
+
+    long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    /**
+     * Records an access to the session.
+     * <p>
+     * The time is only written if it changed, so concurrent lookups of the same session don't keep
+     * invalidating each other's cache line.
+     * </p>
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     */
+    void touch(long nowMillis) {
+        if (nowMillis != lastAccessMillis) {
+            lastAccessMillis = nowMillis;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package de.htwsaar.cantineplanner.businessLogic.manager;
+
+import de.htwsaar.cantineplanner.businessLogic.types.Permission;
+import de.htwsaar.cantineplanner.codegen.tables.records.UsersRecord;
+import de.htwsaar.cantineplanner.data.exceptions.SessionExpiredException;
+import de.htwsaar.cantineplanner.data.exceptions.SessionLimitExceededException;
+
+/**
+ * The session of one terminal.
+ * <p>
+ * The context only holds the ID of the session opened by the last login on the terminal and resolves it
+ * in the {@link SessionManager} on every access, so an expired or closed session is noticed right away.
+ * Controllers read the current user from the context of their terminal.
+ * </p>
+ */
+public class SessionContext {
+    private final SessionManager sessionManager;
+    private volatile String sessionId;
+
+    /**
+     * Constructs a new SessionContext.
+     *
+     * @param sessionManager the registry the sessions are opened in
+     */
+    public SessionContext(SessionManager sessionManager) {
+        this.sessionManager = sessionManager;
+    }
+
+    /**
+     * Opens a session for the given user, closing the previous session of the terminal.
+     *
+     * @param user the logged-in user
+     * @return the new session
+     * @throws SessionLimitExceededException if the maximum number of sessions is open
+     */
+    public Session login(UsersRecord user) {
+        logout();
+        Session session = sessionManager.open(user);
+        sessionId = session.getSessionId();
+        return session;
+    }
+
+    /**
+     * Returns the session of the terminal.
+     *
+     * @return the session
+     * @throws SessionExpiredException if nobody is logged in or the session expired
+     */
+    public Session getSession() {
+        return sessionManager.find(sessionId)
+                .orElseThrow(() -> new SessionExpiredException("Your session has expired, please log in again!"));
+    }
+
+    /**
+     * Gets the user ID of the current user.
+     *
+     * @return the user ID of the current user
+     * @throws SessionExpiredException if nobody is logged in or the session expired
+     */
+    public int getCurrentUserId() {
+        return getSession().getUserId();
+    }
+
+    /**
+     * Checks if the user of the session has the given permission.
+     * <p>
+     * The permissions are cached in the session at login, so this doesn't query the database.
+     * </p>
+     *
+     * @param permission the permission to check
+     * @return true if the user has the permission
+     * @throws SessionExpiredException if nobody is logged in or the session expired
+     */
+    public boolean hasPermission(Permission permission) {
+        return getSession().hasPermission(permission);
+    }
+
+    /**
+     * Replaces the snapshots of all sessions of a user, on every terminal, with the current state
+     * of the user, e.g. after the role or the settings of the user were changed.
+     *
+     * @param user the current state of the user
+     */
+    public void refresh(UsersRecord user) {
+        sessionManager.refresh(user);
+    }
+
+    /**
+     * Closes all sessions of a user, on every terminal, e.g. after the user was deleted.
+     *
+     * @param userId the ID of the user
+     */
+    public void closeAll(int userId) {
+        sessionManager.closeAll(userId);
+    }
+
+    /**
+     * Checks if a user is logged in and the session hasn't expired.
+     *
+     * @return true if a user is logged in, false otherwise
+     */
+    public boolean isLoggedIn() {
+        return sessionManager.find(sessionId).isPresent();
+    }
+
+    /**
+     * Logs out the current user and closes the session.
+     */
+    public void logout() {
+        String id = sessionId;
+        sessionId = null;
+        sessionManager.close(id);
+    }
+}
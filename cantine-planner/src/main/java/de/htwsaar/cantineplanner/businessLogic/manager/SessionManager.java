@@ -1,44 +1,238 @@
 package de.htwsaar.cantineplanner.businessLogic.manager;
 
-    import de.htwsaar.cantineplanner.codegen.tables.records.UsersRecord;
+import de.htwsaar.cantineplanner.codegen.tables.records.UsersRecord;
+import de.htwsaar.cantineplanner.data.exceptions.SessionLimitExceededException;
+import de.htwsaar.cantineplanner.data.util.ApplicationProperties;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registry of the sessions of all logged-in users.
+ * <p>
+ * Every login opens a session with a random ID. Terminals keep the ID in their {@link SessionContext}
+ * and resolve the session on every access. The sessions are kept in a {@link ConcurrentHashMap}, so
+ * lookups don't lock and logins on different terminals don't block each other. A session expires when
+ * it wasn't accessed for the idle timeout; expired sessions are removed when they are looked up or when
+ * the registry is full. At most {@code maxSessions} sessions can be open at the same time.
+ * </p>
+ */
+public class SessionManager {
+
+    private static final int SESSION_ID_BYTES = 16;
+
+    private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+    // Number of open sessions, reserved before a session is added so the limit holds under concurrent logins
+    private final AtomicInteger openSessions = new AtomicInteger();
+    private final SecureRandom random = new SecureRandom();
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+    private final int maxSessions;
+    private final long idleTimeoutMillis;
+    private final Clock clock;
+
+    /**
+     * Constructs a new SessionManager configured by the {@code session.max-sessions} and
+     * {@code session.idle-timeout-minutes} application properties.
+     */
+    public SessionManager() {
+        this(ApplicationProperties.getInt("session.max-sessions", 256),
+                Duration.ofMinutes(ApplicationProperties.getInt("session.idle-timeout-minutes", 30)));
+    }
+
+    /**
+     * Constructs a new SessionManager.
+     *
+     * @param maxSessions the maximum number of open sessions
+     * @param idleTimeout how long a session stays open without being accessed
+     */
+    public SessionManager(int maxSessions, Duration idleTimeout) {
+        this(maxSessions, idleTimeout, Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a new SessionManager with the given clock.
+     *
+     * @param maxSessions the maximum number of open sessions
+     * @param idleTimeout how long a session stays open without being accessed
+     * @param clock       the clock to measure the idle time with
+     */
+    public SessionManager(int maxSessions, Duration idleTimeout, Clock clock) {
+        if (maxSessions <= 0) {
+            throw new IllegalArgumentException("The maximum number of sessions must be positive");
+        }
+        this.maxSessions = maxSessions;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Opens a new session for the given user.
+     *
+     * @param user the logged-in user
+     * @return the new session
+     * @throws SessionLimitExceededException if the maximum number of sessions is open
+     */
+    public Session open(UsersRecord user) {
+        if (!reserve()) {
+            evictExpired();
+            if (!reserve()) {
+                throw new SessionLimitExceededException("Too many users are logged in at the moment!");
+            }
+        }
+
+        long now = clock.millis();
+        Session session;
+        do {
+            session = new Session(newSessionId(), user, now);
+        } while (sessions.putIfAbsent(session.getSessionId(), session) != null);
+        return session;
+    }
+
+    /**
+     * Looks up an open session and records the access.
+     *
+     * @param sessionId the ID of the session
+     * @return the session, or an empty Optional if there is no such session or it expired
+     */
+    public Optional<Session> find(String sessionId) {
+        if (sessionId == null) {
+            return Optional.empty();
+        }
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            return Optional.empty();
+        }
+        long now = clock.millis();
+        if (isExpired(session, now)) {
+            remove(session);
+            return Optional.empty();
+        }
+        session.touch(now);
+        return Optional.of(session);
+    }
 
     /**
-     * Manages the session for the current user.
+     * Replaces the snapshots of all open sessions of a user with the current state of the user,
+     * e.g. after the role or the settings of the user changed.
+     * <p>
+     * The time of the last access of the sessions is kept, a refresh doesn't count as an access.
+     * </p>
+     *
+     * @param user the current state of the user
+     * @return the number of refreshed sessions
      */
-    public class SessionManager {
-        private UsersRecord currentUser;
+    public int refresh(UsersRecord user) {
+        int userId = user.getUserid();
+        int refreshed = 0;
+        for (Session session : sessions.values()) {
+            if (session.getUserId() == userId && sessions.replace(session.getSessionId(), session,
+                    new Session(session.getSessionId(), user, session.getLastAccessMillis()))) {
+                refreshed++;
+            }
+        }
+        return refreshed;
+    }
 
-        /**
-         * Gets the user ID of the current user.
-         *
-         * @return the user ID of the current user
-         */
-        public int getCurrentUserId() {
-            return currentUser.getUserid();
+    /**
+     * Closes all open sessions of a user, e.g. after the user was deleted.
+     *
+     * @param userId the ID of the user
+     * @return the number of closed sessions
+     */
+    public int closeAll(int userId) {
+        int closed = 0;
+        for (Session session : sessions.values()) {
+            if (session.getUserId() == userId && remove(session)) {
+                closed++;
+            }
         }
+        return closed;
+    }
 
-        /**
-         * Sets the current user.
-         *
-         * @param user the user to set as the current user
-         */
-        public void setCurrentUser(UsersRecord user) {
-            this.currentUser = user;
+    /**
+     * Closes a session.
+     *
+     * @param sessionId the ID of the session
+     */
+    public void close(String sessionId) {
+        if (sessionId != null && sessions.remove(sessionId) != null) {
+            openSessions.decrementAndGet();
         }
+    }
 
-        /**
-         * Checks if a user is logged in.
-         *
-         * @return true if a user is logged in, false otherwise
-         */
-        public boolean isLoggedIn() {
-            return currentUser != null;
+    /**
+     * Removes all sessions that were idle for longer than the idle timeout.
+     *
+     * @return the number of removed sessions
+     */
+    public int evictExpired() {
+        long now = clock.millis();
+        int evicted = 0;
+        for (Session session : sessions.values()) {
+            if (isExpired(session, now) && remove(session)) {
+                evicted++;
+            }
         }
+        return evicted;
+    }
 
-        /**
-         * Logs out the current user.
-         */
-        public void logout() {
-            currentUser = null;
+    /**
+     * Returns the number of open sessions, including expired sessions not removed yet.
+     *
+     * @return the number of open sessions
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    /**
+     * Reserves a slot for a new session if the limit isn't reached.
+     *
+     * @return true if a slot was reserved
+     */
+    private boolean reserve() {
+        int open;
+        do {
+            open = openSessions.get();
+            if (open >= maxSessions) {
+                return false;
+            }
+        } while (!openSessions.compareAndSet(open, open + 1));
+        return true;
+    }
+
+    /**
+     * Removes the given session unless it was already removed or replaced.
+     *
+     * @param session the session to remove
+     * @return true if the session was removed
+     */
+    private boolean remove(Session session) {
+        if (sessions.remove(session.getSessionId(), session)) {
+            openSessions.decrementAndGet();
+            return true;
         }
-    }
\ No newline at end of file
+        return false;
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now - session.getLastAccessMillis() >= idleTimeoutMillis;
+    }
+
+    private String newSessionId() {
+        byte[] bytes = new byte[SESSION_ID_BYTES];
+        random.nextBytes(bytes);
+        return encoder.encodeToString(bytes);
+    }
+}
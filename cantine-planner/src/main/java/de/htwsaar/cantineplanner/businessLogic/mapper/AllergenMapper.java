@@ -1,33 +1,24 @@
 package de.htwsaar.cantineplanner.businessLogic.mapper;
 
-import java.util.HashMap;
-import java.util.Map;
+import de.htwsaar.cantineplanner.businessLogic.types.Allergen;
+import de.htwsaar.cantineplanner.businessLogic.types.AllergenSet;
+
 import java.util.Objects;
 
 /**
  * The {@code AllergenMapper} class provides methods for mapping allergen codes to their full names and vice versa.
+ * <p>
+ * The lookups are backed by the {@link Allergen} enum and take constant time in both directions.
+ * </p>
  */
 public class AllergenMapper {
-    private static final Map<String, String> allergenMap = new HashMap<>();
-
-    // Static initialization block that populates the allergenMap with predefined allergen codes and names.
-    static {
-        allergenMap.put("F", "Fish");
-        allergenMap.put("N", "Nuts");
-        allergenMap.put("G", "Gluten");
-        allergenMap.put("M", "Milk");
-        allergenMap.put("E", "Eggs");
-        allergenMap.put("S", "Soy");
-        allergenMap.put("C", "Celery");
-        allergenMap.put("U", "Mustard");
-        allergenMap.put("T", "Sesame");
-        allergenMap.put("L", "Lupin");
-        allergenMap.put("P", "Peanuts");
-        allergenMap.put("I", "Sulfites");
-        allergenMap.put("K", "Crustaceans");
-        allergenMap.put("W", "Molluscs");
-        allergenMap.put("H", "Tree Nuts");
-    }
+    /**
+     * The allergen codes in the order of their bits in an allergen mask: the code at index i is bit i.
+     * <p>
+     * The masks are stored in the {@code meals.allergy_mask} column, so codes may only be appended.
+     * </p>
+     */
+    public static final String MASK_ORDER = "FNGMESCUTLPIKWH";
 
     /**
      * Retrieves the full name of the allergen corresponding to the given code.
@@ -37,22 +28,46 @@ public class AllergenMapper {
      * @return the full name of the allergen, or the code if no mapping exists
      */
     public static String getAllergenFullName(String code) {
-        return allergenMap.getOrDefault(code, Objects.equals(code, "X") ? "" : code);
+        Allergen allergen = code != null && code.length() == 1 ? Allergen.fromCode(code.charAt(0)) : null;
+        if (allergen != null) {
+            return allergen.getDisplayName();
+        }
+        return Objects.equals(code, "X") ? "" : code;
     }
 
     /**
      * Retrieves the allergen code corresponding to the given full name.
-     * Iterates over the entries of the allergenMap to find the matching code.
      *
      * @param fullName the full name of the allergen
      * @return the allergen code, or {@code null} if no matching code is found
      */
     public static String getAllergenCode(String fullName) {
-        for (Map.Entry<String, String> entry : allergenMap.entrySet()) {
-            if (entry.getValue().equals(fullName)) {
-                return entry.getKey();
-            }
-        }
-        return null; // Return null if no matching code is found
+        Allergen allergen = Allergen.fromDisplayName(fullName);
+        return allergen == null ? null : String.valueOf(allergen.getCode());
+    }
+
+    /**
+     * Computes the allergen mask of comma separated allergen codes, e.g. {@code "G,M,E"}.
+     *
+     * @param allergies the comma separated allergen codes, may be null
+     * @return the allergen mask, 0 if there are no allergens
+     * @see AllergenSet#maskOf(String)
+     */
+    public static int getAllergenMask(String allergies) {
+        return AllergenSet.maskOf(allergies);
+    }
+
+    /**
+     * Returns the display string of comma separated allergen codes, e.g. {@code "Gluten, Milk, Eggs"}.
+     * <p>
+     * The codes are parsed without allocating and the display string of each combination is built only once,
+     * so this can be called for every row of a table.
+     * </p>
+     *
+     * @param allergies the comma separated allergen codes, may be null
+     * @return the display names of the allergens, or "No Allergies" if there are none
+     */
+    public static String getAllergenDisplayString(String allergies) {
+        return AllergenSet.toDisplayString(AllergenSet.maskOf(allergies));
     }
 }
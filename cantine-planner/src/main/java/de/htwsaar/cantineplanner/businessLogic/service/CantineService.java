@@ -6,15 +6,27 @@ import de.htwsaar.cantineplanner.codegen.tables.records.MealsRecord;
 import de.htwsaar.cantineplanner.codegen.tables.records.ReviewRecord;
 import de.htwsaar.cantineplanner.codegen.tables.records.UsersRecord;
 
+import de.htwsaar.cantineplanner.data.cache.MealCatalogueCache;
+import de.htwsaar.cantineplanner.data.repository.AbstractRepository;
+import de.htwsaar.cantineplanner.data.repository.MealRatingSummaryRepository;
 import de.htwsaar.cantineplanner.data.repository.MealsRepository;
 import de.htwsaar.cantineplanner.data.repository.ReviewRepository;
+import de.htwsaar.cantineplanner.data.repository.SearchRepository;
 import de.htwsaar.cantineplanner.data.repository.UserRepository;
 import de.htwsaar.cantineplanner.data.repository.WeeklyRepository;
 import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
 import de.htwsaar.cantineplanner.data.exceptions.*;
+import de.htwsaar.cantineplanner.data.model.MealRatingStats;
+import de.htwsaar.cantineplanner.data.model.Page;
+import de.htwsaar.cantineplanner.data.model.SearchHit;
+import de.htwsaar.cantineplanner.data.util.ApplicationProperties;
+import de.htwsaar.cantineplanner.data.util.SchemaMigrator;
+import org.jooq.SortOrder;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Provides service-level operations for the cantine planner application.
@@ -26,6 +38,9 @@ public class CantineService {
     private final ReviewRepository reviewRepository;
     private final UserRepository userRepository;
     private final WeeklyRepository weeklyRepository;
+    private final MealRatingSummaryRepository mealRatingSummaryRepository;
+    private final SearchRepository searchRepository;
+    private final MealCatalogueCache mealCatalogueCache;
 
 
     ////////////////////////////////////////////////////////////////////////////////
@@ -33,21 +48,45 @@ public class CantineService {
     ////////////////////////////////////////////////////////////////////////////////
 
 
+    /**
+     * Constructs a new CantineService instance on the database configured in hikari.properties.
+     */
+    public CantineService() {
+        this("hikari.properties");
+    }
+
     /**
      * Constructs a new CantineService instance.
      *
      * @param propertiesFilePath the path to the properties file for configuring the HikariCP data source
      */
-    public CantineService() {
-
+    public CantineService(String propertiesFilePath) {
         // Initialize the HikariCP data source with the provided properties file path
-        var hikariCPDataSource = new HikariCPDataSource();
+        this(new HikariCPDataSource(propertiesFilePath));
+    }
 
+    /**
+     * Constructs a new CantineService instance on the given data source.
+     *
+     * @param hikariCPDataSource the data source of the database
+     */
+    public CantineService(HikariCPDataSource hikariCPDataSource) {
         // Initialize the repositories with the HikariCP data source
         this.mealsRepository = new MealsRepository(hikariCPDataSource);
         this.reviewRepository = new ReviewRepository(hikariCPDataSource);
         this.userRepository = new UserRepository(hikariCPDataSource);
         this.weeklyRepository = new WeeklyRepository(hikariCPDataSource);
+        this.mealRatingSummaryRepository = new MealRatingSummaryRepository(hikariCPDataSource);
+        this.searchRepository = new SearchRepository(hikariCPDataSource);
+        this.mealCatalogueCache = new MealCatalogueCache(mealsRepository,
+                ApplicationProperties.getBoolean(MealCatalogueCache.ENABLED_PROPERTY, true));
+
+        // Bring the loaded database up to the current schema version
+        try {
+            SchemaMigrator.migrate(hikariCPDataSource);
+        } catch (SQLException e) {
+            throw new DataBaseLoadException("Error migrating the database...", e);
+        }
     }
 
     ////////////////////////////////////////////////////////////////////////////////
@@ -80,6 +119,19 @@ public class CantineService {
         return userRepository.validateUser(userID, password);
     }
 
+    /**
+     * Authenticates a user by username and password and returns the user with the same query.
+     *
+     * @param username user name
+     * @param password user password
+     * @return the record of the authenticated user
+     * @throws SQLException              if a database error occurs
+     * @throws UserNotValidatedException if the username or password is invalid
+     */
+    public UsersRecord authenticate(String username, String password) throws SQLException, UserNotValidatedException {
+        return userRepository.authenticate(username, password);
+    }
+
     /**
      * Registers a new user with username, password, and email.
      *
@@ -121,7 +173,11 @@ public class CantineService {
      * @throws MealDoesntExistException if the meal does not exist
      */
     public void editMeal(MealsRecord meal) throws SQLException, MealDoesntExistException {
-        mealsRepository.editMeal(meal);
+        try {
+            mealsRepository.editMeal(meal);
+        } finally {
+            mealCatalogueCache.invalidate();
+        }
     }
 
     /**
@@ -131,7 +187,20 @@ public class CantineService {
      * @throws SQLException if a database error occurs
      */
     public List<MealsRecord> getAllMeals() throws SQLException {
-        return mealsRepository.getAllMeals();
+        return mealCatalogueCache.getAllMeals();
+    }
+
+    /**
+     * Returns one page of all meals ordered by their ID.
+     *
+     * @param afterId the meal ID to start after, or null for the first page
+     * @param limit   the maximum number of meals of the page
+     * @param sort    the order of the meal IDs
+     * @return the page of meals
+     * @throws SQLException if a database error occurs
+     */
+    public Page<MealsRecord> getMealsPage(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        return mealsRepository.page(afterId, limit, sort);
     }
 
     /**
@@ -152,7 +221,11 @@ public class CantineService {
      * @throws MealAlreadyExistsException if the meal already exists
      */
     public void addMeal(MealsRecord meal) throws SQLException, MealAlreadyExistsException {
-        mealsRepository.addMeal(meal);
+        try {
+            mealsRepository.addMeal(meal);
+        } finally {
+            mealCatalogueCache.invalidate();
+        }
     }
 
     /**
@@ -163,7 +236,11 @@ public class CantineService {
      * @throws MealiDNotFoundException if the meal does not exist
      */
     public void deleteMeal(int mealId) throws SQLException, MealiDNotFoundException {
-        mealsRepository.deleteMealById(mealId);
+        try {
+            mealsRepository.deleteMealById(mealId);
+        } finally {
+            mealCatalogueCache.invalidate();
+        }
     }
 
     /**
@@ -175,7 +252,7 @@ public class CantineService {
      * @throws MealiDNotFoundException if the meal ID is invalid
      */
     public MealsRecord getMealById(int mealId) throws SQLException, MealiDNotFoundException {
-        List<MealsRecord> meals = mealsRepository.searchMealById(mealId);
+        List<MealsRecord> meals = mealCatalogueCache.searchMealById(mealId);
         return meals.isEmpty() ? null : meals.get(0);
     }
 
@@ -188,7 +265,7 @@ public class CantineService {
      * @throws MealDoesntExistException if the meal name is invalid
      */
     public MealsRecord getMealByName(String name) throws SQLException, MealDoesntExistException {
-        List<MealsRecord> meals = mealsRepository.searchMealByName(name);
+        List<MealsRecord> meals = mealCatalogueCache.searchMealByName(name);
         return meals.isEmpty() ? null : meals.get(0);
     }
 
@@ -200,7 +277,7 @@ public class CantineService {
      * @throws SQLException if a database error occurs
      */
     public List<MealsRecord> sortMealsByPrice() throws SQLException {
-        return mealsRepository.sortMealsByPrice();
+        return mealCatalogueCache.sortMealsByPrice();
     }
 
     /**
@@ -213,6 +290,18 @@ public class CantineService {
         return mealsRepository.sortMealsByRating();
     }
 
+    /**
+     * Returns the top rated meals, sorted by rating in descending order.
+     * Ties are broken by review count and then by name.
+     *
+     * @param limit the maximum number of meals to return
+     * @return a list of at most {@code limit} meals sorted by rating
+     * @throws SQLException if a database error occurs
+     */
+    public List<MealsRecord> getTopRatedMeals(int limit) throws SQLException {
+        return mealsRepository.sortMealsByRating(limit);
+    }
+
     /**
      * Sorts meals by name in alphabetical order.
      *
@@ -220,7 +309,7 @@ public class CantineService {
      * @throws SQLException if a database error occurs
      */
     public List<MealsRecord> sortMealsByName() throws SQLException {
-        return mealsRepository.sortMealsByName();
+        return mealCatalogueCache.sortMealsByName();
     }
 
     /**
@@ -230,24 +319,47 @@ public class CantineService {
      * @throws SQLException if a database error occurs
      */
     public List<MealsRecord> sortMealsByCalories() throws SQLException {
-        return mealsRepository.sortMealsByCalories();
+        return mealCatalogueCache.sortMealsByCalories();
     }
 
     /**
-     * Sorts meals by excluding those that contain the user's allergies.
+     * Returns the meals that contain none of the given allergens.
+     * <p>
+     * The allergens of the user are cached in the session as a mask, so this is a single query filtering on
+     * the allergen mask of the meals.
+     * </p>
      *
-     * @param currentUserId the ID of the current user
-     * @return a list of meals excluding those with the user's allergies
+     * @param allergyMask the allergens to exclude, see {@link AllergenMapper#getAllergenMask(String)}
+     * @return a list of meals excluding those with one of the allergens
      * @throws SQLException if a database error occurs
      */
-    public List<MealsRecord> sortMealsByAllergy(int currentUserId) throws SQLException {
-        return mealsRepository.sortMealsByAllergy(currentUserId);
+    public List<MealsRecord> getMealsWithoutAllergens(int allergyMask) throws SQLException {
+        return mealsRepository.getMealsWithoutAllergens(allergyMask);
+    }
+
+    /**
+     * Returns the meal catalogue cache, e.g. to read its hit and miss counters.
+     *
+     * @return the meal catalogue cache
+     */
+    public MealCatalogueCache getMealCatalogueCache() {
+        return mealCatalogueCache;
     }
 
     ////////////////////////////////////////////////////////////////////////////////
     // Review Operations
     ////////////////////////////////////////////////////////////////////////////////
 
+    /**
+     * Rebuilds the rating summary of all meals from the stored reviews.
+     *
+     * @return the number of meals with a rating summary
+     * @throws SQLException if a database error occurs
+     */
+    public int rebuildMealRatingSummary() throws SQLException {
+        return mealRatingSummaryRepository.rebuild();
+    }
+
     /**
      * Returns all reviews.
      *
@@ -258,6 +370,19 @@ public class CantineService {
         return reviewRepository.getAllReviews();
     }
 
+    /**
+     * Returns one page of all reviews ordered by their ID.
+     *
+     * @param afterId the review ID to start after, or null for the first page
+     * @param limit   the maximum number of reviews of the page
+     * @param sort    the order of the review IDs
+     * @return the page of reviews
+     * @throws SQLException if a database error occurs
+     */
+    public Page<ReviewRecord> getReviewsPage(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        return reviewRepository.page(afterId, limit, sort);
+    }
+
     /**
      * Returns the user ID from a review ID.
      *
@@ -292,6 +417,22 @@ public class CantineService {
         return reviewRepository.reviewsByMealName(mealName);
     }
 
+    /**
+     * Searches meal names and review comments for the given words, best matches first.
+     * <p>
+     * Every word matches as a prefix and diacritics are ignored. If no meal or review contains all words,
+     * those containing any of them are returned.
+     * </p>
+     *
+     * @param query the words to search for
+     * @param limit the maximum number of hits
+     * @return the ranked hits, empty if nothing matches
+     * @throws SQLException if a database error occurs
+     */
+    public List<SearchHit> search(String query, int limit) throws SQLException {
+        return searchRepository.search(query, limit);
+    }
+
     /**
      * Returns all reviews by a specific user.
      *
@@ -303,6 +444,21 @@ public class CantineService {
         return reviewRepository.getAllReviewsByUser(currentUserId);
     }
 
+    /**
+     * Returns one page of the reviews by a specific user ordered by their ID.
+     *
+     * @param currentUserId user ID
+     * @param afterId       the review ID to start after, or null for the first page
+     * @param limit         the maximum number of reviews of the page
+     * @param sort          the order of the review IDs
+     * @return the page of relevant reviews
+     * @throws SQLException if a database error occurs
+     */
+    public Page<ReviewRecord> getReviewsPageByUser(int currentUserId, Integer afterId, int limit, SortOrder sort)
+            throws SQLException {
+        return reviewRepository.pageByUser(currentUserId, afterId, limit, sort);
+    }
+
     /**
      * Deletes a review by review ID.
      *
@@ -314,6 +470,32 @@ public class CantineService {
         reviewRepository.deleteReview(reviewId);
     }
 
+    /**
+     * Deletes a review on behalf of a user.
+     * <p>
+     * Users may only delete their own reviews, users allowed to delete any review may delete every review.
+     * The permission is passed in from the session of the user, so only the ownership check and the deletion
+     * run in the database, in one transaction.
+     * </p>
+     *
+     * @param reviewId        review ID
+     * @param currentUserId   ID of the user deleting the review
+     * @param mayDeleteAny    true if the user may delete the reviews of other users
+     * @return true if the review was deleted, false if the user is not allowed to delete it
+     * @throws SQLException                 if a database error occurs
+     * @throws ReviewiDDoesntExistException if the review does not exist
+     */
+    public boolean deleteReview(int reviewId, int currentUserId, boolean mayDeleteAny)
+            throws SQLException, ReviewiDDoesntExistException {
+        return AbstractRepository.inTransaction(dsl -> {
+            if (!mayDeleteAny && reviewRepository.getUserIdFromReviewId(reviewId) != currentUserId) {
+                return false;
+            }
+            reviewRepository.deleteReview(reviewId);
+            return true;
+        });
+    }
+
     /**
      * Calculates the median rating for a given meal.
      *
@@ -325,6 +507,27 @@ public class CantineService {
         return mealsRepository.calculateMedianRatingForMeal(mealId);
     }
 
+    /**
+     * Returns the rating statistics (median, mean and review count) of all reviewed meals.
+     *
+     * @return map of meal IDs to their rating statistics; meals without reviews are absent
+     * @throws SQLException if a database error occurs
+     */
+    public Map<Integer, MealRatingStats> getAllMealRatingStats() throws SQLException {
+        return mealsRepository.getAllMealRatingStats();
+    }
+
+    /**
+     * Returns the rating statistics (median, mean and review count) of the given meals.
+     *
+     * @param mealIds the IDs of the meals
+     * @return map of meal IDs to their rating statistics; meals without reviews are absent
+     * @throws SQLException if a database error occurs
+     */
+    public Map<Integer, MealRatingStats> getMealRatingStats(Collection<Integer> mealIds) throws SQLException {
+        return mealsRepository.getMealRatingStats(mealIds);
+    }
+
 
     ////////////////////////////////////////////////////////////////////////////////
     // Allergene Settings
@@ -384,7 +587,11 @@ public class CantineService {
      * @throws MealDoesntExistException if the meal does not exist
      */
     public void editWeeklyPlan(String mealName, String day) throws SQLException, MealDoesntExistException {
-        weeklyRepository.editWeeklyPlan(mealName, day);
+        try {
+            weeklyRepository.editWeeklyPlan(mealName, day);
+        } finally {
+            mealCatalogueCache.invalidate();
+        }
     }
 
     /**
@@ -393,7 +600,11 @@ public class CantineService {
      * @throws SQLException if a database error occurs
      */
     public void resetWeeklyPlan() throws SQLException {
-        weeklyRepository.resetWeeklyPlan();
+        try {
+            weeklyRepository.resetWeeklyPlan();
+        } finally {
+            mealCatalogueCache.invalidate();
+        }
     }
 
     ////////////////////////////////////////////////////////////////////////////////
@@ -424,6 +635,19 @@ public class CantineService {
         return userRepository.getAllUser();
     }
 
+    /**
+     * Retrieves one page of all users ordered by their ID.
+     *
+     * @param afterId the user ID to start after, or null for the first page
+     * @param limit   the maximum number of users of the page
+     * @param sort    the order of the user IDs
+     * @return the page of user records
+     * @throws SQLException if a database error occurs
+     */
+    public Page<UsersRecord> getUsersPage(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        return userRepository.page(afterId, limit, sort);
+    }
+
     /**
      * Deletes a user by user ID.
      *
@@ -474,4 +698,16 @@ public class CantineService {
     public UsersRecord getUser(String username) throws SQLException, UserDoesntExistException {
         return userRepository.getUser(username);
     }
+
+    /**
+     * Retrieves a user by ID.
+     *
+     * @param userId user ID
+     * @return the user record
+     * @throws SQLException             if a database error occurs
+     * @throws UserDoesntExistException if the user does not exist
+     */
+    public UsersRecord getUserById(int userId) throws SQLException, UserDoesntExistException {
+        return userRepository.getUserById(userId);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+package de.htwsaar.cantineplanner.businessLogic.service;
+
+import de.htwsaar.cantineplanner.codegen.tables.records.UsersRecord;
+import de.htwsaar.cantineplanner.data.security.PasswordUtil;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the credential operations of the CantineService, which hash passwords with Argon2, on a bounded
+ * executor so they do not block the UI thread.
+ * <p>
+ * Every hash computation needs {@link PasswordUtil#getHashMemoryBytes()} of memory, so the number of hashing
+ * threads is limited by the available processors and by half of the maximum heap. At most
+ * {@link #QUEUE_CAPACITY_PER_THREAD} operations per thread wait in the queue; further operations are
+ * rejected and their future fails with a {@link RejectedExecutionException}.
+ * </p>
+ */
+public class CredentialService {
+
+    /**
+     * The number of operations per hashing thread that may wait in the queue.
+     */
+    public static final int QUEUE_CAPACITY_PER_THREAD = 4;
+
+    private final CantineService cantineService;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Constructs a new CredentialService sized to the processors and the heap of this JVM.
+     *
+     * @param cantineService the service performing the credential operations
+     */
+    public CredentialService(CantineService cantineService) {
+        this(cantineService, defaultThreadCount());
+    }
+
+    /**
+     * Constructs a new CredentialService with the given number of hashing threads.
+     *
+     * @param cantineService the service performing the credential operations
+     * @param threads        the number of hashing threads
+     */
+    public CredentialService(CantineService cantineService, int threads) {
+        this.cantineService = cantineService;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_CAPACITY_PER_THREAD), new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Returns the number of hashing threads that fit the processors and half of the maximum heap.
+     *
+     * @return the default number of hashing threads, at least 1
+     */
+    static int defaultThreadCount() {
+        return threadCount(Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory(),
+                PasswordUtil.getHashMemoryBytes());
+    }
+
+    /**
+     * Returns the number of hashing threads that fit the given processors and half of the given heap.
+     *
+     * @param processors      the number of available processors
+     * @param maxMemoryBytes  the maximum heap size in bytes
+     * @param hashMemoryBytes the memory one hash computation needs in bytes
+     * @return the number of hashing threads, at least 1
+     */
+    public static int threadCount(int processors, long maxMemoryBytes, long hashMemoryBytes) {
+        long byMemory = maxMemoryBytes / 2 / hashMemoryBytes;
+        return (int) Math.max(1, Math.min(processors, byMemory));
+    }
+
+    /**
+     * Authenticates a user by username and password in the background.
+     *
+     * @param username user name
+     * @param password user password
+     * @return a future completed with the result of {@link CantineService#authenticate(String, String)}
+     */
+    public CompletableFuture<UsersRecord> authenticate(String username, String password) {
+        return submit(() -> cantineService.authenticate(username, password));
+    }
+
+    /**
+     * Validates a user by username and password in the background.
+     *
+     * @param username user name
+     * @param password user password
+     * @return a future completed with the result of {@link CantineService#validateUser(String, String)}
+     */
+    public CompletableFuture<Boolean> validateUser(String username, String password) {
+        return submit(() -> cantineService.validateUser(username, password));
+    }
+
+    /**
+     * Validates a user by user ID and password in the background.
+     *
+     * @param userId   user ID
+     * @param password user password
+     * @return a future completed with the result of {@link CantineService#validateUser(int, String)}
+     */
+    public CompletableFuture<Boolean> validateUser(int userId, String password) {
+        return submit(() -> cantineService.validateUser(userId, password));
+    }
+
+    /**
+     * Registers a new user in the background.
+     *
+     * @param username user's name
+     * @param password user's password
+     * @param email    user's email
+     * @return a future completed with the result of {@link CantineService#registerUser(String, String, String)}
+     */
+    public CompletableFuture<Boolean> registerUser(String username, String password, String email) {
+        return submit(() -> cantineService.registerUser(username, password, email));
+    }
+
+    /**
+     * Edits the password and email of a user in the background.
+     *
+     * @param userId      user ID
+     * @param newPassword new password
+     * @param newEmail    new email
+     * @return a future completed once {@link CantineService#editUserData(int, String, String)} returned
+     */
+    public CompletableFuture<Void> editUserData(int userId, String newPassword, String newEmail) {
+        return submit(() -> {
+            cantineService.editUserData(userId, newPassword, newEmail);
+            return null;
+        });
+    }
+
+    /**
+     * Returns the number of operations waiting for a hashing thread.
+     *
+     * @return the current queue depth
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops the hashing threads once the accepted operations are done.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Submits an operation to the executor.
+     *
+     * @param operation the operation to run
+     * @param <T>       the type of the result
+     * @return a future completed with the result or the exception of the operation, or with a
+     * RejectedExecutionException if the queue is full
+     */
+    private <T> CompletableFuture<T> submit(Callable<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(operation.call());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Creates named daemon threads, so pending hashes never keep the application alive.
+     */
+    private static class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "credential-hashing-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
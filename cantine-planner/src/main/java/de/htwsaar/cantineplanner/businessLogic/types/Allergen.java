@@ -0,0 +1,101 @@
+package de.htwsaar.cantineplanner.businessLogic.types;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Enum representing the allergens with their codes stored in the database and their display names.
+ * <p>
+ * The constants are declared in the order of their bits in an allergen mask, see
+ * {@code AllergenMapper.MASK_ORDER}; the bit of an allergen is its ordinal, so allergens may only be appended.
+ * </p>
+ */
+public enum Allergen {
+    FISH('F', "Fish"),
+    NUTS('N', "Nuts"),
+    GLUTEN('G', "Gluten"),
+    MILK('M', "Milk"),
+    EGGS('E', "Eggs"),
+    SOY('S', "Soy"),
+    CELERY('C', "Celery"),
+    MUSTARD('U', "Mustard"),
+    SESAME('T', "Sesame"),
+    LUPIN('L', "Lupin"),
+    PEANUTS('P', "Peanuts"),
+    SULFITES('I', "Sulfites"),
+    CRUSTACEANS('K', "Crustaceans"),
+    MOLLUSCS('W', "Molluscs"),
+    TREE_NUTS('H', "Tree Nuts");
+
+    // Allergens indexed by their code, the codes are ASCII letters
+    private static final Allergen[] BY_CODE = new Allergen[128];
+    private static final Map<String, Allergen> BY_DISPLAY_NAME = new HashMap<>();
+
+    static {
+        for (Allergen allergen : values()) {
+            BY_CODE[allergen.code] = allergen;
+            BY_DISPLAY_NAME.put(allergen.displayName, allergen);
+        }
+    }
+
+    private final char code;
+    private final String displayName;
+
+    /**
+     * Constructor for the Allergen enum.
+     *
+     * @param code        the code of the allergen in the database
+     * @param displayName the display name of the allergen
+     */
+    Allergen(char code, String displayName) {
+        this.code = code;
+        this.displayName = displayName;
+    }
+
+    /**
+     * Gets the code of the allergen in the database.
+     *
+     * @return the code of the allergen
+     */
+    public char getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the display name of the allergen.
+     *
+     * @return the display name of the allergen
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Gets the bit of the allergen in an allergen mask.
+     *
+     * @return the bit of the allergen
+     */
+    public int getBit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Finds an allergen by its code.
+     *
+     * @param code the code of the allergen
+     * @return the allergen with the given code, or null if there is none
+     */
+    public static Allergen fromCode(char code) {
+        return code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    /**
+     * Finds an allergen by its display name.
+     *
+     * @param displayName the display name of the allergen
+     * @return the allergen with the given display name, or null if there is none
+     */
+    public static Allergen fromDisplayName(String displayName) {
+        return BY_DISPLAY_NAME.get(displayName);
+    }
+}
@@ -0,0 +1,240 @@
+package de.htwsaar.cantineplanner.businessLogic.types;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * An immutable set of allergens, backed by an {@link EnumSet}.
+ * <p>
+ * Allergens are stored as comma separated codes, e.g. {@code "G,M,E"}, and filtered as masks with one bit per
+ * allergen. Tables render the allergens of every row, so {@link #toDisplayString(int)} computes the display
+ * string of each distinct combination once and {@link #maskOf(String)} parses the stored codes without
+ * allocating.
+ * </p>
+ */
+public final class AllergenSet implements Iterable<Allergen> {
+    /**
+     * The display string of a set without allergens.
+     */
+    public static final String NO_ALLERGENS = "No Allergies";
+
+    private static final AllergenSet EMPTY = new AllergenSet(EnumSet.noneOf(Allergen.class));
+
+    // Display strings indexed by mask, filled on first use. Strings are immutable, so threads racing on an
+    // entry at worst both compute it.
+    private static final String[] DISPLAY_STRINGS = new String[1 << Allergen.values().length];
+
+    private final EnumSet<Allergen> allergens;
+
+    private AllergenSet(EnumSet<Allergen> allergens) {
+        this.allergens = allergens;
+    }
+
+    /**
+     * Returns the set of the given allergens.
+     *
+     * @param allergens the allergens
+     * @return the set of the allergens
+     */
+    public static AllergenSet of(Allergen... allergens) {
+        if (allergens.length == 0) {
+            return EMPTY;
+        }
+        EnumSet<Allergen> set = EnumSet.noneOf(Allergen.class);
+        Collections.addAll(set, allergens);
+        return new AllergenSet(set);
+    }
+
+    /**
+     * Returns the set of the allergens of a mask.
+     *
+     * @param mask the allergen mask
+     * @return the set of the allergens whose bits are set
+     */
+    public static AllergenSet fromMask(int mask) {
+        if (mask == 0) {
+            return EMPTY;
+        }
+        EnumSet<Allergen> set = EnumSet.noneOf(Allergen.class);
+        for (Allergen allergen : Allergen.values()) {
+            if ((mask & allergen.getBit()) != 0) {
+                set.add(allergen);
+            }
+        }
+        return new AllergenSet(set);
+    }
+
+    /**
+     * Parses comma separated allergen codes, e.g. {@code "G,M,E"}; unknown codes are ignored.
+     *
+     * @param codes the comma separated allergen codes, may be null
+     * @return the set of the allergens
+     */
+    public static AllergenSet parse(String codes) {
+        return fromMask(maskOf(codes));
+    }
+
+    /**
+     * Computes the allergen mask of comma separated allergen codes without allocating.
+     * <p>
+     * Unknown codes are ignored, so values like {@code "None"} have no allergens.
+     * </p>
+     *
+     * @param codes the comma separated allergen codes, may be null
+     * @return the allergen mask, 0 if there are no allergens
+     */
+    public static int maskOf(String codes) {
+        if (codes == null) {
+            return 0;
+        }
+        int mask = 0;
+        int start = 0;
+        while (start <= codes.length()) {
+            int end = codes.indexOf(',', start);
+            if (end < 0) {
+                end = codes.length();
+            }
+            mask |= bitOf(codes, start, end);
+            start = end + 1;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the display string of the allergens of a mask, e.g. {@code "Gluten, Milk, Eggs"}.
+     * <p>
+     * The string of each mask is built once and then served from a table.
+     * </p>
+     *
+     * @param mask the allergen mask
+     * @return the display names of the allergens, or {@link #NO_ALLERGENS} if there are none
+     */
+    public static String toDisplayString(int mask) {
+        String displayString = DISPLAY_STRINGS[mask];
+        if (displayString == null) {
+            displayString = fromMask(mask).buildDisplayString();
+            DISPLAY_STRINGS[mask] = displayString;
+        }
+        return displayString;
+    }
+
+    /**
+     * Returns the allergen mask of this set.
+     *
+     * @return the allergen mask
+     */
+    public int toMask() {
+        int mask = 0;
+        for (Allergen allergen : allergens) {
+            mask |= allergen.getBit();
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the allergens of this set as comma separated codes, the way they are stored.
+     *
+     * @return the comma separated allergen codes, empty if there are no allergens
+     */
+    public String toCodes() {
+        StringJoiner codes = new StringJoiner(",");
+        for (Allergen allergen : allergens) {
+            codes.add(String.valueOf(allergen.getCode()));
+        }
+        return codes.toString();
+    }
+
+    /**
+     * Returns the display string of this set.
+     *
+     * @return the display names of the allergens, or {@link #NO_ALLERGENS} if there are none
+     * @see #toDisplayString(int)
+     */
+    public String toDisplayString() {
+        return toDisplayString(toMask());
+    }
+
+    public boolean contains(Allergen allergen) {
+        return allergens.contains(allergen);
+    }
+
+    /**
+     * Checks if this set and the given set have an allergen in common.
+     *
+     * @param other the other set
+     * @return true if an allergen is in both sets
+     */
+    public boolean containsAny(AllergenSet other) {
+        return (toMask() & other.toMask()) != 0;
+    }
+
+    public boolean isEmpty() {
+        return allergens.isEmpty();
+    }
+
+    public int size() {
+        return allergens.size();
+    }
+
+    /**
+     * Returns the allergens of this set.
+     *
+     * @return an unmodifiable view of the allergens
+     */
+    public Set<Allergen> asSet() {
+        return Collections.unmodifiableSet(allergens);
+    }
+
+    @Override
+    public Iterator<Allergen> iterator() {
+        return asSet().iterator();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof AllergenSet set && allergens.equals(set.allergens);
+    }
+
+    @Override
+    public int hashCode() {
+        return allergens.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return allergens.toString();
+    }
+
+    private String buildDisplayString() {
+        if (allergens.isEmpty()) {
+            return NO_ALLERGENS;
+        }
+        StringJoiner displayNames = new StringJoiner(", ");
+        for (Allergen allergen : allergens) {
+            displayNames.add(allergen.getDisplayName());
+        }
+        return displayNames.toString();
+    }
+
+    /**
+     * Returns the bit of the allergen code in the given range of a string.
+     *
+     * @return the bit of the allergen, or 0 if the range holds no known code
+     */
+    private static int bitOf(String codes, int start, int end) {
+        while (start < end && Character.isWhitespace(codes.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(codes.charAt(end - 1))) {
+            end--;
+        }
+        if (end - start != 1) {
+            return 0;
+        }
+        Allergen allergen = Allergen.fromCode(codes.charAt(start));
+        return allergen == null ? 0 : allergen.getBit();
+    }
+}
@@ -0,0 +1,12 @@
+package de.htwsaar.cantineplanner.businessLogic.types;
+
+/**
+ * Enum representing the actions that are restricted to some roles.
+ */
+public enum Permission {
+    MANAGE_MEALS,
+    MANAGE_USERS,
+    EDIT_WEEKLY_PLAN,
+    DELETE_ANY_REVIEW,
+    VIEW_DIAGNOSTICS
+}
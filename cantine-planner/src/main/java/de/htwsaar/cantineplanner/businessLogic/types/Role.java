@@ -0,0 +1,60 @@
+package de.htwsaar.cantineplanner.businessLogic.types;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Enum representing the roles stored for a user, with the permissions they grant.
+ */
+public enum Role {
+    USER(0, EnumSet.noneOf(Permission.class)),
+    ADMIN(1, EnumSet.allOf(Permission.class));
+
+    private final int id;
+    private final Set<Permission> permissions;
+
+    /**
+     * Constructor for the Role enum.
+     *
+     * @param id          the ID of the role in the database
+     * @param permissions the permissions granted by the role
+     */
+    Role(int id, EnumSet<Permission> permissions) {
+        this.id = id;
+        this.permissions = Collections.unmodifiableSet(permissions);
+    }
+
+    /**
+     * Gets the ID of the role in the database.
+     *
+     * @return the ID of the role
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the permissions granted by the role.
+     *
+     * @return an unmodifiable set of permissions
+     */
+    public Set<Permission> getPermissions() {
+        return permissions;
+    }
+
+    /**
+     * Finds a role by its ID in the database.
+     *
+     * @param id the stored role ID, may be null
+     * @return the role with the given ID, or USER for unknown IDs
+     */
+    public static Role fromId(Integer id) {
+        for (Role role : values()) {
+            if (id != null && role.id == id) {
+                return role;
+            }
+        }
+        return USER;
+    }
+}
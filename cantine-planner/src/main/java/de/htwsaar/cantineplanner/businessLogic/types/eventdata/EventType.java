@@ -18,6 +18,8 @@ public enum EventType {
     SHOW_MEAL_BY_ID(StringArrayData.class),
     SHOW_SEARCH_MEAL_BY_NAME(),
     SHOW_MEAL_BY_NAME(StringArrayData.class),
+    SHOW_SEARCH(),
+    SEARCH(StringArrayData.class),
     SHOW_EDIT_MEAL(),
     EDIT_MEAL(StringArrayData.class),
     SHOW_SORT_MEALS(),
@@ -47,6 +49,8 @@ public enum EventType {
     DELETE_USER(StringArrayData.class),
     SHOW_UPDATE_USER_ROLE(),
     UPDATE_USER_ROLE(StringArrayData.class),
+    USER_ROLE_CHANGED(IntData.class),
+    SHOW_DIAGNOSTICS(),
 
     SHOW_WEEKLY_PLAN(),
     EDIT_WEEKLY_PLAN(),
@@ -86,10 +90,21 @@ public enum EventType {
         return eventDataClass;
     }
 
+    /**
+     * Checks if the given data fits this event type.
+     * <p>
+     * The data of an event is usually exactly of the declared class, which is checked first with a
+     * plain reference comparison; only subclasses fall back to {@link Class#isInstance}.
+     * </p>
+     *
+     * @param eventData the data to check
+     * @return true if the event type has no data class or the data is an instance of it
+     */
     public boolean verifyEventData(EventData eventData) {
-        if(eventDataClass == null) {
+        if (eventDataClass == null) {
             return true;
         }
-        return eventDataClass.isInstance(eventData);
+        return eventData != null
+                && (eventData.getClass() == eventDataClass || eventDataClass.isInstance(eventData));
     }
 }
@@ -0,0 +1,229 @@
+package de.htwsaar.cantineplanner.data.cache;
+
+import de.htwsaar.cantineplanner.codegen.tables.records.MealsRecord;
+import de.htwsaar.cantineplanner.data.exceptions.MealDoesntExistException;
+import de.htwsaar.cantineplanner.data.exceptions.MealiDNotFoundException;
+import de.htwsaar.cantineplanner.data.repository.MealsRepository;
+
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of the meal catalogue in front of the MealsRepository.
+ * <p>
+ * All meals are loaded with one query into an immutable snapshot that holds an ID index, a name index
+ * and the listings sorted by price, name and calories, in the order the database would return them.
+ * Every write to the meals table has to call {@link #invalidate()} once it is committed; the next read
+ * then loads a new snapshot. A snapshot loaded while a write was running is never served afterwards,
+ * because it belongs to an older generation.
+ * </p>
+ * <p>
+ * The returned records are shared between callers and must not be modified.
+ * </p>
+ */
+public class MealCatalogueCache {
+
+    /**
+     * Setting in application.properties that enables the cache.
+     */
+    public static final String ENABLED_PROPERTY = "cache.meals.enabled";
+
+    private final MealsRepository mealsRepository;
+    private final boolean enabled;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs a new MealCatalogueCache.
+     *
+     * @param mealsRepository the repository to load the meals from
+     * @param enabled         false to pass every call through to the repository
+     */
+    public MealCatalogueCache(MealsRepository mealsRepository, boolean enabled) {
+        this.mealsRepository = mealsRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns all meals.
+     *
+     * @return an unmodifiable list of all meals
+     * @throws SQLException if a database access error occurs
+     */
+    public List<MealsRecord> getAllMeals() throws SQLException {
+        return enabled ? getSnapshot().all() : mealsRepository.getAllMeals();
+    }
+
+    /**
+     * Searches for a meal by its ID.
+     *
+     * @param mealId the ID of the meal
+     * @return a list containing the meal with the given ID
+     * @throws SQLException            if a database access error occurs
+     * @throws MealiDNotFoundException if there is no meal with the given ID
+     */
+    public List<MealsRecord> searchMealById(int mealId) throws SQLException, MealiDNotFoundException {
+        if (!enabled) {
+            return mealsRepository.searchMealById(mealId);
+        }
+        MealsRecord meal = getSnapshot().byId().get(mealId);
+        if (meal == null) {
+            throw new MealiDNotFoundException("Meal with the given ID " + mealId + " doesn't exist!");
+        }
+        return List.of(meal);
+    }
+
+    /**
+     * Searches for meals by their name.
+     *
+     * @param name the name of the meal
+     * @return an unmodifiable list of the meals with the given name
+     * @throws SQLException             if a database access error occurs
+     * @throws MealDoesntExistException if there is no meal with the given name
+     */
+    public List<MealsRecord> searchMealByName(String name) throws SQLException, MealDoesntExistException {
+        if (!enabled) {
+            return mealsRepository.searchMealByName(name);
+        }
+        List<MealsRecord> meals = getSnapshot().byName().get(name);
+        if (meals == null) {
+            throw new MealDoesntExistException("Meal with name " + name + " doesn't exist!");
+        }
+        return meals;
+    }
+
+    /**
+     * Returns all meals sorted by price in ascending order.
+     *
+     * @return an unmodifiable list of meals sorted by price
+     * @throws SQLException if a database access error occurs
+     */
+    public List<MealsRecord> sortMealsByPrice() throws SQLException {
+        return enabled ? getSnapshot().sortedByPrice() : mealsRepository.sortMealsByPrice();
+    }
+
+    /**
+     * Returns all meals sorted by name in alphabetical order.
+     *
+     * @return an unmodifiable list of meals sorted by name
+     * @throws SQLException if a database access error occurs
+     */
+    public List<MealsRecord> sortMealsByName() throws SQLException {
+        return enabled ? getSnapshot().sortedByName() : mealsRepository.sortMealsByName();
+    }
+
+    /**
+     * Returns all meals sorted by calories in ascending order.
+     *
+     * @return an unmodifiable list of meals sorted by calories
+     * @throws SQLException if a database access error occurs
+     */
+    public List<MealsRecord> sortMealsByCalories() throws SQLException {
+        return enabled ? getSnapshot().sortedByCalories() : mealsRepository.sortMealsByCalories();
+    }
+
+    /**
+     * Drops the current snapshot, so the next read loads the meals again.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot.set(null);
+    }
+
+    /**
+     * Returns whether the cache is enabled.
+     *
+     * @return true if reads are served from the snapshot
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the number of reads served from the current snapshot.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of reads that had to load a new snapshot.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the snapshot of the current generation, loading it if there is none.
+     *
+     * @return the current snapshot
+     * @throws SQLException if a database access error occurs
+     */
+    private Snapshot getSnapshot() throws SQLException {
+        Snapshot current = snapshot.get();
+        if (current != null && current.generation() == generation.get()) {
+            hits.increment();
+            return current;
+        }
+        misses.increment();
+        long loadedGeneration = generation.get();
+        Snapshot loaded = Snapshot.of(loadedGeneration, mealsRepository.getAllMeals());
+        if (loadedGeneration == generation.get()) {
+            snapshot.set(loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * An immutable view of all meals with its indexes and sorted listings.
+     *
+     * @param generation       the generation the snapshot was loaded in
+     * @param all              all meals in database order
+     * @param byId             the meals by their ID
+     * @param byName           the meals by their name
+     * @param sortedByPrice    the meals sorted by price
+     * @param sortedByName     the meals sorted by name
+     * @param sortedByCalories the meals sorted by calories
+     */
+    private record Snapshot(long generation, List<MealsRecord> all, Map<Integer, MealsRecord> byId,
+                            Map<String, List<MealsRecord>> byName, List<MealsRecord> sortedByPrice,
+                            List<MealsRecord> sortedByName, List<MealsRecord> sortedByCalories) {
+
+        private static Snapshot of(long generation, List<MealsRecord> meals) {
+            Map<Integer, MealsRecord> byId = meals.stream()
+                    .collect(Collectors.toUnmodifiableMap(MealsRecord::getMealId, Function.identity()));
+            Map<String, List<MealsRecord>> byName = meals.stream()
+                    .filter(meal -> meal.getName() != null)
+                    .collect(Collectors.groupingBy(MealsRecord::getName, LinkedHashMap::new,
+                            Collectors.toUnmodifiableList()));
+
+            return new Snapshot(generation, List.copyOf(meals), byId, Map.copyOf(byName),
+                    sorted(meals, MealsRecord::getPrice),
+                    sorted(meals, MealsRecord::getName),
+                    sorted(meals, MealsRecord::getCalories));
+        }
+
+        // SQLite sorts NULL first in ascending order; the sort is stable like the database order
+        private static <U extends Comparable<? super U>> List<MealsRecord> sorted(List<MealsRecord> meals,
+                                                                                Function<MealsRecord, U> key) {
+            return meals.stream()
+                    .sorted(Comparator.comparing(key, Comparator.nullsFirst(Comparator.naturalOrder())))
+                    .toList();
+        }
+    }
+}
@@ -3,64 +3,190 @@ package de.htwsaar.cantineplanner.data.dataAccess;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.StringJoiner;
 
 public class HikariCPDataSource {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(HikariCPDataSource.class);
+
+    /**
+     * Property enabling the dual-pool mode, see {@link #HikariCPDataSource(String)}.
+     */
+    public static final String SPLIT_POOLS_PROPERTY = "pool.split";
+
+    private static final String SQLITE_URL_PREFIX = "jdbc:sqlite:";
+
     private final HikariDataSource dataSource;
+    private final HikariDataSource readDataSource;
 
     /**
      * Load the HikariCP configuration from hikari.properties and create the data source pool
      */
     public HikariCPDataSource( ) {
-        String PATH_TO_PROPERTIES = "hikari.properties";
-        try (InputStream input = getClass().getClassLoader().getResourceAsStream(PATH_TO_PROPERTIES)) {
+        this("hikari.properties");
+    }
+
+
+    /**
+     * Constructs a HikariCPDataSource with the specified properties file path.
+     * <p>
+     * The {@code sqlite.*} properties select the {@link SQLiteProfile} whose pragmas are applied to every
+     * connection of the pool. The effective pragmas are logged once the pool is started.
+     * </p>
+     * <p>
+     * With {@code pool.split=true} two pools are created: a write pool with a single connection, so writers
+     * queue up in the pool instead of contending on the SQLite database lock, and a read pool of
+     * {@code maximumPoolSize} connections opened with {@code query_only}. Readers are not blocked by the
+     * writer when the profile uses WAL. Without the property both kinds of connections come from one pool.
+     * </p>
+     *
+     * @param pathToProperties the path to the properties file
+     * @throws RuntimeException if the properties file cannot be found or an error occurs while loading the properties
+     */
+    public HikariCPDataSource(String pathToProperties) {
+        Properties properties = loadProperties(pathToProperties);
+
+        boolean splitPools = Boolean.parseBoolean((String) properties.remove(SPLIT_POOLS_PROPERTY));
+        SQLiteProfile.Resolved profile = SQLiteProfile.extract(properties);
+
+        HikariConfig config = new HikariConfig(properties);
+        SQLiteDataSource sqLiteDataSource = createSQLiteDataSource(config, profile);
+        config.setDataSource(sqLiteDataSource);
+        if (splitPools) {
+            config.setMaximumPoolSize(1);
+            config.setMinimumIdle(1);
+        }
+        this.dataSource = new HikariDataSource(config);
+
+        if (splitPools) {
+            HikariConfig readConfig = new HikariConfig(properties);
+            readConfig.setDataSource(createSQLiteDataSource(readConfig, profile));
+            readConfig.setConnectionInitSql("PRAGMA query_only = 1");
+            this.readDataSource = new HikariDataSource(readConfig);
+        } else {
+            this.readDataSource = dataSource;
+        }
+
+        logEffectivePragmas(profile.profile(), sqLiteDataSource.getUrl());
+    }
+
+    /**
+     * Returns the database file a properties file configures, without opening a connection.
+     *
+     * @param pathToProperties the path to the properties file in the classpath
+     * @return the absolute path of the SQLite database file
+     * @throws RuntimeException if the properties file cannot be loaded or configures no SQLite database file
+     */
+    public static Path getDatabaseFile(String pathToProperties) {
+        String url = loadProperties(pathToProperties).getProperty("dataSource.url", "");
+        if (!url.startsWith(SQLITE_URL_PREFIX)) {
+            throw new RuntimeException(pathToProperties + " configures no SQLite database file: " + url);
+        }
+        String file = url.substring(SQLITE_URL_PREFIX.length());
+        int parameters = file.indexOf('?');
+        return Path.of(parameters < 0 ? file : file.substring(0, parameters)).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Loads a properties file from the classpath.
+     *
+     * @param pathToProperties the path to the properties file
+     * @return the loaded properties
+     * @throws RuntimeException if the properties file cannot be found or loaded
+     */
+    private static Properties loadProperties(String pathToProperties) {
+        try (InputStream input = HikariCPDataSource.class.getClassLoader().getResourceAsStream(pathToProperties)) {
             if (input == null) {
-                throw new RuntimeException("Unable to find " + PATH_TO_PROPERTIES + " in classpath.");
+                throw new RuntimeException("Unable to find " + pathToProperties + " in classpath.");
             }
-
             Properties properties = new Properties();
             properties.load(input);
-
-            HikariConfig config = new HikariConfig(properties);
-            this.dataSource = new HikariDataSource(config);
-
+            return properties;
         } catch (IOException e) {
             throw new RuntimeException("Error loading HikariCP configuration", e);
         }
     }
 
+    /**
+     * Creates the SQLite data source of the pool, applying the pragmas of the profile to every new connection.
+     * <p>
+     * The URL is taken from the {@code dataSource.url} property, which is removed from the HikariCP
+     * configuration together with the data source class name, so HikariCP uses this data source instead.
+     * </p>
+     *
+     * @param config  the HikariCP configuration
+     * @param profile the resolved SQLite profile
+     * @return the configured SQLite data source
+     */
+    private static SQLiteDataSource createSQLiteDataSource(HikariConfig config, SQLiteProfile.Resolved profile) {
+        Properties pragmas = new Properties();
+        pragmas.putAll(profile.pragmas());
+
+        SQLiteDataSource sqLiteDataSource = new SQLiteDataSource(new SQLiteConfig(pragmas));
+        sqLiteDataSource.setUrl(config.getDataSourceProperties().getProperty("url"));
+        config.getDataSourceProperties().remove("url");
+        config.setDataSourceClassName(null);
+        return sqLiteDataSource;
+    }
 
-/**
- * Constructs a HikariCPDataSource with the specified properties file path.
- *
- * @param pathToProperties the path to the properties file
- * @throws RuntimeException if the properties file cannot be found or an error occurs while loading the properties
- */
-public HikariCPDataSource(String pathToProperties) {
-
-    try (InputStream input = getClass().getClassLoader().getResourceAsStream(pathToProperties)) {
-        if (input == null) {
-            throw new RuntimeException("Unable to find " + pathToProperties + " in classpath.");
+    /**
+     * Reads the pragmas back from a pooled connection and logs them.
+     *
+     * @param profile the selected SQLite profile
+     * @param url     the URL of the database
+     */
+    private void logEffectivePragmas(SQLiteProfile profile, String url) {
+        StringJoiner effective = new StringJoiner(", ");
+        for (Map.Entry<String, String> pragma : getEffectivePragmas().entrySet()) {
+            effective.add(pragma.getKey() + "=" + pragma.getValue());
         }
+        LOGGER.info("SQLite profile {} on {}: {}", profile, url, effective);
+        if (isSplit()) {
+            LOGGER.info("Split pools on {}: 1 write connection, {} read connections", url,
+                    readDataSource.getMaximumPoolSize());
+        }
+    }
 
-        Properties properties = new Properties();
-        properties.load(input);
-
-        HikariConfig config = new HikariConfig(properties);
-        this.dataSource = new HikariDataSource(config);
-
-    } catch (IOException e) {
-        throw new RuntimeException("Error loading HikariCP configuration", e);
+    /**
+     * Reads the current values of the profile pragmas from a pooled connection.
+     *
+     * @return a map of pragma names to their effective values
+     * @throws RuntimeException if the pragmas cannot be read
+     */
+    public Map<String, String> getEffectivePragmas() {
+        Map<String, String> effective = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (String pragma : SQLiteProfile.PRAGMAS) {
+                try (ResultSet resultSet = statement.executeQuery("PRAGMA " + pragma)) {
+                    effective.put(pragma, resultSet.next() ? resultSet.getString(1) : null);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading the SQLite pragmas", e);
+        }
+        return effective;
     }
-}
 
     /**
      * Get a connection from the data source
+     * <p>
+     * In dual-pool mode this is the single connection of the write pool.
+     * </p>
      *
      * @return Connection from the data source
      * @throws SQLException If a database access error occurs
@@ -69,10 +195,35 @@ public HikariCPDataSource(String pathToProperties) {
         return dataSource.getConnection();
     }
 
+    /**
+     * Get a connection for statements that only read
+     * <p>
+     * In dual-pool mode this is a query_only connection of the read pool, otherwise a connection of the only pool.
+     * </p>
+     *
+     * @return Connection from the read pool
+     * @throws SQLException If a database access error occurs
+     */
+    public Connection getReadConnection() throws SQLException {
+        return readDataSource.getConnection();
+    }
+
+    /**
+     * Returns whether reads and writes use separate pools.
+     *
+     * @return true in dual-pool mode
+     */
+    public boolean isSplit() {
+        return readDataSource != dataSource;
+    }
+
     /**
      * Close the data source
      */
     public void closeDataSource() {
+        if (readDataSource != null && readDataSource != dataSource) {
+            readDataSource.close();
+        }
         if (dataSource != null) {
             dataSource.close();
         }
@@ -0,0 +1,108 @@
+package de.htwsaar.cantineplanner.data.dataAccess;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Presets of the SQLite pragmas applied to every pooled connection.
+ * <p>
+ * A profile is selected with the {@code sqlite.profile} property, single pragmas can be overridden with
+ * {@code sqlite.<pragma>} properties, e.g. {@code sqlite.cache_size=-32000}.
+ * </p>
+ * <ul>
+ *   <li>DURABLE: rollback journal and synchronous=FULL, every commit survives a power loss.</li>
+ *   <li>BALANCED: WAL with synchronous=NORMAL, readers are not blocked by the writer and a commit is only
+ *   lost on power loss, never corrupted.</li>
+ *   <li>READ_HEAVY: like BALANCED with a larger page cache and memory mapping for read mostly workloads.</li>
+ * </ul>
+ */
+public enum SQLiteProfile {
+    DURABLE("DELETE", "FULL", -2_000, 0, "DEFAULT", 5_000),
+    BALANCED("WAL", "NORMAL", -16_000, 64L * 1024 * 1024, "MEMORY", 5_000),
+    READ_HEAVY("WAL", "NORMAL", -64_000, 256L * 1024 * 1024, "MEMORY", 10_000);
+
+    /**
+     * Prefix of the properties configuring the SQLite pragmas.
+     */
+    public static final String PROPERTY_PREFIX = "sqlite.";
+
+    /**
+     * The pragmas a profile sets, in the order they are applied and logged.
+     */
+    public static final List<String> PRAGMAS = List.of(
+            "journal_mode", "synchronous", "cache_size", "mmap_size", "temp_store", "busy_timeout");
+
+    private final Map<String, String> pragmas = new LinkedHashMap<>();
+
+    SQLiteProfile(String journalMode, String synchronous, int cacheSize, long mmapSize, String tempStore,
+                  int busyTimeout) {
+        pragmas.put("journal_mode", journalMode);
+        pragmas.put("synchronous", synchronous);
+        pragmas.put("cache_size", String.valueOf(cacheSize));
+        pragmas.put("mmap_size", String.valueOf(mmapSize));
+        pragmas.put("temp_store", tempStore);
+        pragmas.put("busy_timeout", String.valueOf(busyTimeout));
+    }
+
+    /**
+     * Returns the pragmas of this profile.
+     *
+     * @return a new map of pragma names to values
+     */
+    public Map<String, String> getPragmas() {
+        return new LinkedHashMap<>(pragmas);
+    }
+
+    /**
+     * Looks up a profile by its name, ignoring case and accepting dashes, e.g. {@code read-heavy}.
+     *
+     * @param name the name of the profile
+     * @return the profile
+     * @throws IllegalArgumentException if there is no profile with the given name
+     */
+    public static SQLiteProfile fromName(String name) {
+        return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Removes the {@code sqlite.*} properties from the given properties and resolves them to pragmas.
+     * <p>
+     * The properties are removed so the remaining ones can be passed to HikariCP, which rejects unknown keys.
+     * Without a {@code sqlite.profile} property the BALANCED profile is used.
+     * </p>
+     *
+     * @param properties the connection pool properties
+     * @return the selected profile and the resolved pragmas
+     * @throws IllegalArgumentException if the profile or a pragma is unknown
+     */
+    public static Resolved extract(Properties properties) {
+        String profileName = (String) properties.remove(PROPERTY_PREFIX + "profile");
+        SQLiteProfile profile = profileName == null ? BALANCED : fromName(profileName);
+        Map<String, String> pragmas = profile.getPragmas();
+
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.startsWith(PROPERTY_PREFIX)) {
+                continue;
+            }
+            String pragma = key.substring(PROPERTY_PREFIX.length());
+            if (!PRAGMAS.contains(pragma)) {
+                throw new IllegalArgumentException("Unknown SQLite pragma " + key);
+            }
+            pragmas.put(pragma, properties.getProperty(key).trim());
+            properties.remove(key);
+        }
+        return new Resolved(profile, pragmas);
+    }
+
+    /**
+     * A profile together with the pragmas resolved from it and its overrides.
+     *
+     * @param profile the selected profile
+     * @param pragmas the pragma names and values to apply
+     */
+    public record Resolved(SQLiteProfile profile, Map<String, String> pragmas) {
+    }
+}
@@ -0,0 +1,7 @@
+package de.htwsaar.cantineplanner.data.exceptions;
+
+public class SessionExpiredException extends RuntimeException {
+    public SessionExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package de.htwsaar.cantineplanner.data.exceptions;
+
+public class SessionLimitExceededException extends RuntimeException {
+    public SessionLimitExceededException(String message) {
+        super(message);
+    }
+}
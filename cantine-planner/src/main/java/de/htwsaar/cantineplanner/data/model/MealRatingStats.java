@@ -0,0 +1,83 @@
+package de.htwsaar.cantineplanner.data.model;
+
+/**
+ * Aggregated rating statistics of a single meal.
+ * <p>
+ * Ratings are constrained to the range 0 to 5, so the statistics can be derived from a histogram holding
+ * one counter per rating value. The median follows the usual definition: the middle rating for an odd number
+ * of reviews and the mean of the two middle ratings for an even number of reviews.
+ * </p>
+ *
+ * @param mealId      the ID of the meal
+ * @param reviewCount the number of reviews for the meal
+ * @param mean        the arithmetic mean of all ratings, or 0 if there are no reviews
+ * @param median      the median of all ratings, or 0 if there are no reviews
+ */
+public record MealRatingStats(int mealId, int reviewCount, double mean, double median) {
+
+    /**
+     * The highest rating a review can have.
+     */
+    public static final int MAX_RATING = 5;
+
+    /**
+     * Creates the statistics of a meal without any reviews.
+     *
+     * @param mealId the ID of the meal
+     * @return statistics with a review count of zero
+     */
+    public static MealRatingStats empty(int mealId) {
+        return new MealRatingStats(mealId, 0, 0.0, 0.0);
+    }
+
+    /**
+     * Creates the statistics of a meal from its rating histogram.
+     *
+     * @param mealId    the ID of the meal
+     * @param histogram the number of reviews per rating, indexed by the rating value (0 to 5)
+     * @return the statistics derived from the histogram
+     */
+    public static MealRatingStats fromHistogram(int mealId, long[] histogram) {
+        long count = 0;
+        long sum = 0;
+        for (int rating = 0; rating < histogram.length; rating++) {
+            count += histogram[rating];
+            sum += rating * histogram[rating];
+        }
+        if (count == 0) {
+            return empty(mealId);
+        }
+
+        // 1-based positions of the two middle ratings; both are equal for an odd count
+        int lower = ratingAtPosition(histogram, (count + 1) / 2);
+        int upper = ratingAtPosition(histogram, count / 2 + 1);
+        return new MealRatingStats(mealId, (int) count, (double) sum / count, (lower + upper) / 2.0);
+    }
+
+    /**
+     * Checks if the meal has at least one review.
+     *
+     * @return true if the meal has been reviewed, false otherwise
+     */
+    public boolean hasReviews() {
+        return reviewCount > 0;
+    }
+
+    /**
+     * Finds the rating at the given 1-based position of the sorted ratings.
+     *
+     * @param histogram the number of reviews per rating
+     * @param position  the 1-based position within the sorted ratings
+     * @return the rating at the given position
+     */
+    private static int ratingAtPosition(long[] histogram, long position) {
+        long seen = 0;
+        for (int rating = 0; rating < histogram.length; rating++) {
+            seen += histogram[rating];
+            if (seen >= position) {
+                return rating;
+            }
+        }
+        return histogram.length - 1;
+    }
+}
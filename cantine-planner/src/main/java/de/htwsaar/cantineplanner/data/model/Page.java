@@ -0,0 +1,89 @@
+package de.htwsaar.cantineplanner.data.model;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * One page of a listing read with keyset pagination.
+ * <p>
+ * The next page starts after the ID of the last item of this page instead of at an offset, so reading a page
+ * seeks the primary key index and costs the same no matter how far into the table it is.
+ * </p>
+ *
+ * @param items      the items of the page in the order of the listing
+ * @param nextCursor the ID to read the next page after, or null if this is the last page
+ * @param <T>        the type of the items
+ */
+public record Page<T>(List<T> items, Integer nextCursor) {
+
+    /**
+     * Reads the pages of a listing, e.g. a repository method with a fixed sort order.
+     *
+     * @param <T> the type of the items
+     */
+    @FunctionalInterface
+    public interface Source<T> {
+        /**
+         * Reads one page of the listing.
+         *
+         * @param afterId the ID to start after, taken from {@link Page#nextCursor()}, or null for the first page
+         * @param limit   the maximum number of items of the page
+         * @return the page
+         * @throws SQLException if a database access error occurs
+         */
+        Page<T> load(Integer afterId, int limit) throws SQLException;
+    }
+
+    /**
+     * Creates the page of a listing that fits on one page.
+     *
+     * @param items the items of the listing
+     * @param <T>   the type of the items
+     * @return a page without a next page
+     */
+    public static <T> Page<T> of(List<T> items) {
+        return new Page<>(List.copyOf(items), null);
+    }
+
+    /**
+     * Creates a page from items read with a limit of one more than the page size.
+     * <p>
+     * The extra item only tells that there is a next page and is dropped, so no separate count is needed.
+     * </p>
+     *
+     * @param fetched the items read, at most limit + 1
+     * @param limit   the page size
+     * @param idOf    returns the ID of an item the listing is ordered by
+     * @param <T>     the type of the items
+     * @return the page of at most limit items
+     */
+    public static <T> Page<T> of(List<T> fetched, int limit, ToIntFunction<? super T> idOf) {
+        if (fetched.size() <= limit) {
+            return new Page<>(List.copyOf(fetched), null);
+        }
+        List<T> items = List.copyOf(fetched.subList(0, limit));
+        return new Page<>(items, idOf.applyAsInt(items.get(limit - 1)));
+    }
+
+    /**
+     * Checks if there is a page after this one.
+     *
+     * @return true if the next page can be read with the next cursor
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Converts the items of this page and keeps its next cursor.
+     *
+     * @param mapper converts an item
+     * @param <U>    the type of the converted items
+     * @return the page of the converted items
+     */
+    public <U> Page<U> map(Function<? super T, ? extends U> mapper) {
+        return new Page<>(items.stream().<U>map(mapper).toList(), nextCursor);
+    }
+}
@@ -0,0 +1,25 @@
+package de.htwsaar.cantineplanner.data.model;
+
+/**
+ * A meal or review found by the full-text search.
+ * <p>
+ * Hits are ranked by their BM25 score, where lower scores are better matches.
+ * </p>
+ *
+ * @param type     whether the hit is a meal name or a review comment
+ * @param id       the ID of the meal or of the review
+ * @param mealId   the ID of the meal, for reviews the ID of the reviewed meal
+ * @param mealName the name of the meal, null for a review of a deleted meal
+ * @param text     the matched text, for long review comments an excerpt around the match
+ * @param score    the BM25 score of the hit
+ */
+public record SearchHit(Type type, int id, int mealId, String mealName, String text, double score) {
+
+    /**
+     * The kinds of rows the search covers.
+     */
+    public enum Type {
+        MEAL,
+        REVIEW
+    }
+}
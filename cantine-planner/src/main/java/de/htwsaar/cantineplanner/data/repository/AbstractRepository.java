@@ -2,11 +2,24 @@
 package de.htwsaar.cantineplanner.data.repository;
 
 import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
+import de.htwsaar.cantineplanner.data.model.Page;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Query;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.ResultQuery;
 import org.jooq.SQLDialect;
+import org.jooq.SortOrder;
+import org.jooq.Table;
 import org.jooq.impl.DSL;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
 
 /**
  * The AbstractRepository class is an abstract class that provides common functionality for all repository classes.
@@ -14,6 +27,28 @@ import java.sql.Connection;
 public abstract class AbstractRepository {
     protected static HikariCPDataSource dataSource;
 
+    // The connection of the unit of work running on the current thread, if any
+    private static final ThreadLocal<Connection> currentTransaction = new ThreadLocal<>();
+
+    /**
+     * A unit of work running in one database transaction.
+     *
+     * @param <T> the type of the result
+     * @param <E> the type of the checked exception the work may throw besides SQLException
+     */
+    @FunctionalInterface
+    public interface UnitOfWork<T, E extends Exception> {
+        /**
+         * Runs the work.
+         *
+         * @param dsl the DSLContext bound to the connection of the transaction
+         * @return the result of the work
+         * @throws E            if the work fails
+         * @throws SQLException if a database access error occurs
+         */
+        T run(DSLContext dsl) throws E, SQLException;
+    }
+
     /**
      * Constructs a new AbstractRepository object.
      * @param dataSource an instance of HikariCPDataSource, offering a connection pool
@@ -23,6 +58,106 @@ public abstract class AbstractRepository {
         AbstractRepository.dataSource = dataSource;
     }
 
+    /**
+     * Runs the given work in one transaction on one connection of the write pool.
+     * <p>
+     * Every repository method called by the work, on any repository, uses the same connection and
+     * takes part in the transaction, so a composed user action costs one connection checkout and one
+     * commit, and no other writer can slip in between a check and the following write. The transaction
+     * is rolled back if the work throws. Nested calls join the transaction that is already running.
+     * </p>
+     *
+     * @param work the work to run
+     * @param <T>  the type of the result
+     * @param <E>  the type of the checked exception the work may throw besides SQLException
+     * @return the result of the work
+     * @throws E            if the work fails
+     * @throws SQLException if a database access error occurs
+     */
+    public static <T, E extends Exception> T inTransaction(UnitOfWork<T, E> work) throws E, SQLException {
+        Connection current = currentTransaction.get();
+        if (current != null) {
+            return work.run(DSL.using(current, SQLDialect.SQLITE));
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            currentTransaction.set(connection);
+            try {
+                T result = work.run(DSL.using(connection, SQLDialect.SQLITE));
+                connection.commit();
+                return result;
+            } catch (Throwable throwable) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackException) {
+                    throwable.addSuppressed(rollbackException);
+                }
+                throw throwable;
+            } finally {
+                // Hikari resets autoCommit when the connection goes back to the pool, resetting it here could only
+                // replace the exception of the work
+                currentTransaction.remove();
+            }
+        }
+    }
+
+    /**
+     * Retrieves a connection for a repository method that writes.
+     * <p>
+     * Inside a unit of work this is the connection of the running transaction, which stays open
+     * when the caller closes it. Otherwise a new connection is taken from the write pool.
+     * </p>
+     *
+     * @return a connection to the database
+     * @throws SQLException if a database access error occurs
+     */
+    protected static Connection getConnection() throws SQLException {
+        Connection current = currentTransaction.get();
+        if (current == null) {
+            return dataSource.getConnection();
+        }
+        return joinTransaction(current);
+    }
+
+    /**
+     * Retrieves a connection for a repository method that only reads.
+     * <p>
+     * Inside a unit of work this is the connection of the running transaction, so the read sees the
+     * uncommitted writes of the work. Otherwise a connection is taken from the read pool.
+     * </p>
+     *
+     * @return a connection to the database
+     * @throws SQLException if a database access error occurs
+     */
+    protected static Connection getReadConnection() throws SQLException {
+        Connection current = currentTransaction.get();
+        if (current == null) {
+            return dataSource.getReadConnection();
+        }
+        return joinTransaction(current);
+    }
+
+    /**
+     * Wraps the connection of the running transaction so closing it leaves the connection open.
+     *
+     * @param current the connection of the running transaction
+     * @return the wrapped connection
+     */
+    private static Connection joinTransaction(Connection current) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(current, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
     /**
      * Retrieves a DSLContext object for the given connection.
      *
@@ -32,4 +167,96 @@ public abstract class AbstractRepository {
     public DSLContext getDSLContext(Connection connection) {
         return DSL.using(connection, SQLDialect.SQLITE);
     }
-}
\ No newline at end of file
+
+    /**
+     * Fetches the single record of a query or throws the given exception if there is none.
+     * <p>
+     * This replaces checking for existence first and fetching afterwards, so a lookup costs one statement.
+     * </p>
+     *
+     * @param query    the query to fetch at most one record from
+     * @param notFound supplies the exception to throw if the query returns no record
+     * @param <R>      the type of the fetched record
+     * @param <E>      the type of the thrown exception
+     * @return the fetched record
+     * @throws E if the query returns no record
+     */
+    protected static <R extends Record, E extends Exception> R fetchOneOrThrow(ResultQuery<R> query,
+                                                                             Supplier<E> notFound) throws E {
+        R record = query.fetchOne();
+        if (record == null) {
+            throw notFound.get();
+        }
+        return record;
+    }
+
+    /**
+     * Fetches all records of a query or throws the given exception if there are none.
+     *
+     * @param query    the query to fetch the records from
+     * @param notFound supplies the exception to throw if the query returns no records
+     * @param <R>      the type of the fetched records
+     * @param <E>      the type of the thrown exception
+     * @return the fetched records, never empty
+     * @throws E if the query returns no records
+     */
+    protected static <R extends Record, E extends Exception> Result<R> fetchOrThrow(ResultQuery<R> query,
+                                                                                  Supplier<E> notFound) throws E {
+        Result<R> result = query.fetch();
+        if (result.isEmpty()) {
+            throw notFound.get();
+        }
+        return result;
+    }
+
+    /**
+     * Fetches one page of a table ordered by its integer primary key with keyset pagination.
+     * <p>
+     * The page starts after the given ID instead of at an offset, so the query seeks the index of the key and
+     * reads no more than limit + 1 rows however far into the table the page is.
+     * </p>
+     *
+     * @param dsl       the DSLContext to fetch the page with
+     * @param table     the table to page through
+     * @param id        the integer primary key, or the column of an index ending in the primary key
+     * @param condition the condition the rows have to meet, {@link DSL#noCondition()} for all rows
+     * @param afterId   the ID to start after, taken from {@link Page#nextCursor()}, or null for the first page
+     * @param limit     the maximum number of rows of the page
+     * @param sort      the order of the IDs
+     * @param <R>       the type of the records
+     * @return the page of records
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    protected static <R extends Record> Page<R> fetchPage(DSLContext dsl, Table<R> table, Field<Integer> id,
+                                                          Condition condition, Integer afterId, int limit,
+                                                          SortOrder sort) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The page size must be positive");
+        }
+        Condition seek = afterId == null ? DSL.noCondition()
+                : sort == SortOrder.DESC ? id.lt(afterId) : id.gt(afterId);
+        Result<R> fetched = dsl.selectFrom(table)
+                .where(condition, seek)
+                .orderBy(sort == SortOrder.DESC ? id.desc() : id.asc())
+                .limit(limit + 1)
+                .fetch();
+        return Page.of(fetched, limit, record -> record.get(id));
+    }
+
+    /**
+     * Executes an update or delete statement or throws the given exception if it affected no rows.
+     *
+     * @param query    the statement to execute
+     * @param notFound supplies the exception to throw if no rows were affected
+     * @param <E>      the type of the thrown exception
+     * @return the number of affected rows
+     * @throws E if no rows were affected
+     */
+    protected static <E extends Exception> int executeOrThrow(Query query, Supplier<E> notFound) throws E {
+        int rowsAffected = query.execute();
+        if (rowsAffected == 0) {
+            throw notFound.get();
+        }
+        return rowsAffected;
+    }
+}
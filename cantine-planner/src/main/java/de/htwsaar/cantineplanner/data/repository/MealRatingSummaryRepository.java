@@ -0,0 +1,184 @@
+package de.htwsaar.cantineplanner.data.repository;
+
+import de.htwsaar.cantineplanner.codegen.tables.Review;
+import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
+import de.htwsaar.cantineplanner.data.model.MealRatingStats;
+import org.jooq.CaseConditionStep;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The MealRatingSummaryRepository class maintains the materialized rating statistics of every meal.
+ * <p>
+ * The meal_rating_summary table stores one row per reviewed meal with the review count, the rating sum and
+ * a histogram of the ratings 0 to 5. It is updated by {@link ReviewRepository} in the same transaction as the
+ * review itself, so rating statistics can be read with one row per meal instead of scanning the Review table.
+ * The table is created by the V1 schema migration.
+ * </p>
+ */
+public class MealRatingSummaryRepository extends AbstractRepository {
+
+    static final Table<Record> MEAL_RATING_SUMMARY = DSL.table(DSL.name("meal_rating_summary"));
+    static final Field<Integer> MEAL_ID = DSL.field(DSL.name("meal_rating_summary", "meal_id"), SQLDataType.INTEGER);
+    static final Field<Integer> REVIEW_COUNT = DSL.field(DSL.name("meal_rating_summary", "review_count"), SQLDataType.INTEGER);
+    static final Field<Integer> RATING_SUM = DSL.field(DSL.name("meal_rating_summary", "rating_sum"), SQLDataType.INTEGER);
+    static final List<Field<Integer>> RATING_COUNTS = new ArrayList<>();
+
+    static {
+        for (int rating = 0; rating <= MealRatingStats.MAX_RATING; rating++) {
+            RATING_COUNTS.add(DSL.field(DSL.name("meal_rating_summary", "rating_" + rating), SQLDataType.INTEGER));
+        }
+    }
+
+    /**
+     * Constructs a new MealRatingSummaryRepository object.
+     *
+     * @param dataSource an instance of HikariCPDataSource, offering a connection pool
+     *                   for efficient and reliable database connectivity.
+     */
+    public MealRatingSummaryRepository(HikariCPDataSource dataSource) {
+        super(dataSource);
+    }
+
+    /**
+     * Rebuilds the rating summary of all meals from the Review table.
+     * <p>
+     * This is only needed for databases whose reviews were changed without going through the
+     * {@link ReviewRepository}, since the summary is otherwise kept up to date on every review write.
+     * </p>
+     *
+     * @return the number of meals with a rating summary
+     * @throws SQLException if a database access error occurs
+     */
+    public int rebuild() throws SQLException {
+        return inTransaction(MealRatingSummaryRepository::rebuild);
+    }
+
+    /**
+     * Replaces the content of the meal_rating_summary table with the aggregated reviews.
+     *
+     * @param dsl the DSLContext of the running transaction
+     * @return the number of meals with a rating summary
+     */
+    private static int rebuild(DSLContext dsl) {
+        List<Field<?>> targetFields = new ArrayList<>(List.of(MEAL_ID, REVIEW_COUNT, RATING_SUM));
+        targetFields.addAll(RATING_COUNTS);
+
+        List<Field<?>> aggregates = new ArrayList<>(List.of(Review.REVIEW.MEAL_ID, DSL.count(),
+                DSL.sum(Review.REVIEW.RATING)));
+        for (int rating = 0; rating <= MealRatingStats.MAX_RATING; rating++) {
+            aggregates.add(DSL.count().filterWhere(Review.REVIEW.RATING.eq(rating)));
+        }
+
+        dsl.deleteFrom(MEAL_RATING_SUMMARY).execute();
+        return dsl.insertInto(MEAL_RATING_SUMMARY, targetFields)
+                .select(DSL.select(aggregates)
+                        .from(Review.REVIEW)
+                        .where(Review.REVIEW.RATING.between(0, MealRatingStats.MAX_RATING))
+                        .groupBy(Review.REVIEW.MEAL_ID))
+                .execute();
+    }
+
+    /**
+     * Adds a rating to the summary of a meal.
+     * <p>
+     * Must be called in the same transaction as the insert of the review.
+     * </p>
+     *
+     * @param dsl    the DSLContext of the running transaction
+     * @param mealId the ID of the reviewed meal
+     * @param rating the rating of the review (0 to 5)
+     */
+    static void addRating(DSLContext dsl, int mealId, int rating) {
+        Field<Integer> ratingCount = RATING_COUNTS.get(rating);
+        dsl.insertInto(MEAL_RATING_SUMMARY)
+                .set(MEAL_ID, mealId)
+                .set(REVIEW_COUNT, 1)
+                .set(RATING_SUM, rating)
+                .set(ratingCount, 1)
+                .onConflict(MEAL_ID)
+                .doUpdate()
+                .set(REVIEW_COUNT, REVIEW_COUNT.plus(1))
+                .set(RATING_SUM, RATING_SUM.plus(rating))
+                .set(ratingCount, ratingCount.plus(1))
+                .execute();
+    }
+
+    /**
+     * Removes a rating from the summary of a meal.
+     * <p>
+     * Must be called in the same transaction as the deletion of the review.
+     * </p>
+     *
+     * @param dsl    the DSLContext of the running transaction
+     * @param mealId the ID of the reviewed meal
+     * @param rating the rating of the deleted review (0 to 5)
+     */
+    static void removeRating(DSLContext dsl, int mealId, int rating) {
+        Field<Integer> ratingCount = RATING_COUNTS.get(rating);
+        dsl.update(MEAL_RATING_SUMMARY)
+                .set(REVIEW_COUNT, REVIEW_COUNT.minus(1))
+                .set(RATING_SUM, RATING_SUM.minus(rating))
+                .set(ratingCount, ratingCount.minus(1))
+                .where(MEAL_ID.eq(mealId))
+                .execute();
+    }
+
+    /**
+     * Builds an SQL expression computing the median rating of a summary row from its histogram.
+     * <p>
+     * The expression averages the ratings at the two middle positions of the sorted ratings,
+     * which are found by accumulating the histogram counters.
+     * </p>
+     *
+     * @return the median expression, yielding 0 for meals without reviews or without a summary row
+     */
+    static Field<Double> median() {
+        Field<Integer> lowerPosition = REVIEW_COUNT.plus(1).div(2);
+        Field<Integer> upperPosition = REVIEW_COUNT.div(2).plus(1);
+        Field<Double> median = ratingAtPosition(lowerPosition).plus(ratingAtPosition(upperPosition))
+                .cast(SQLDataType.DOUBLE)
+                .div(2);
+        // Meals without a summary row have no counters to compare, so they are handled explicitly
+        return DSL.when(REVIEW_COUNT.gt(0), median).otherwise(DSL.inline(0.0));
+    }
+
+    /**
+     * Builds an SQL expression finding the rating at the given 1-based position of the sorted ratings.
+     *
+     * @param position the position expression
+     * @return the rating expression
+     */
+    private static Field<Integer> ratingAtPosition(Field<Integer> position) {
+        Field<Integer> seen = RATING_COUNTS.get(0);
+        CaseConditionStep<Integer> rating = DSL.when(seen.ge(position), DSL.inline(0));
+        for (int value = 1; value < MealRatingStats.MAX_RATING; value++) {
+            seen = seen.plus(RATING_COUNTS.get(value));
+            rating = rating.when(seen.ge(position), DSL.inline(value));
+        }
+        return rating.otherwise(DSL.inline(MealRatingStats.MAX_RATING));
+    }
+
+    /**
+     * Converts a summary row into rating statistics.
+     *
+     * @param record a record containing the meal ID and the histogram fields
+     * @return the rating statistics of the meal
+     */
+    static MealRatingStats toStats(Record record) {
+        int mealId = record.get(MEAL_ID);
+        long[] histogram = new long[RATING_COUNTS.size()];
+        for (int rating = 0; rating < histogram.length; rating++) {
+            histogram[rating] = record.get(RATING_COUNTS.get(rating));
+        }
+        return MealRatingStats.fromHistogram(mealId, histogram);
+    }
+}
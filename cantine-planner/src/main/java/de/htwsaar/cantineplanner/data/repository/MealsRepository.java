@@ -1,7 +1,6 @@
 package de.htwsaar.cantineplanner.data.repository;
 
 import de.htwsaar.cantineplanner.codegen.tables.Meals;
-import de.htwsaar.cantineplanner.codegen.tables.Review;
 import de.htwsaar.cantineplanner.codegen.tables.Users;
 import de.htwsaar.cantineplanner.codegen.tables.records.MealsRecord;
 import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
@@ -9,19 +8,28 @@ import de.htwsaar.cantineplanner.data.exceptions.MealAlreadyExistsException;
 import de.htwsaar.cantineplanner.data.exceptions.MealDoesntExistException;
 import de.htwsaar.cantineplanner.data.exceptions.MealiDNotFoundException;
 import de.htwsaar.cantineplanner.data.exceptions.UserDoesntExistException;
+import de.htwsaar.cantineplanner.data.model.MealRatingStats;
+import de.htwsaar.cantineplanner.data.model.Page;
+import org.jooq.Condition;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.SortOrder;
 import org.jooq.UpdateSetFirstStep;
 import org.jooq.UpdateSetMoreStep;
 import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * The MealsRepository class is responsible for handling meal data in the database.
  */
 public class MealsRepository extends AbstractRepository {
+    // Added by migration V3 and maintained by triggers, so it is not part of the generated Meals table
+    static final Field<Integer> ALLERGY_MASK = DSL.field(DSL.name("meals", "allergy_mask"), SQLDataType.INTEGER);
+
     /**
      * Constructor for MealsRepository
      *
@@ -36,10 +44,9 @@ public class MealsRepository extends AbstractRepository {
      * Updates the specified meal record in the database.
      * <p>
      * This method dynamically updates the meal fields based on the non-null
-     * values provided in the given meal record. It first verifies that a meal
-     * with the specified meal ID exists in the database. If the meal does not
-     * exist, a MealDoesntExistException is thrown. Otherwise, it constructs
-     * the update query using jOOQ and executes it.
+     * values provided in the given meal record. It constructs the update query
+     * using jOOQ and executes it. If no meal with the specified meal ID exists
+     * in the database, a MealDoesntExistException is thrown.
      * </p>
      *
      * @param meal a MealsRecord instance containing the updated meal data;
@@ -48,13 +55,9 @@ public class MealsRepository extends AbstractRepository {
      * @throws MealDoesntExistException if the meal with the specified ID is not found
      */
     public void editMeal(MealsRecord meal) throws SQLException, MealDoesntExistException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getConnection()) {
             var dsl = super.getDSLContext(connection);
 
-            if (!dsl.fetchExists(dsl.selectFrom(Meals.MEALS).where(Meals.MEALS.MEAL_ID.eq(meal.getMealId())))) {
-                throw new MealDoesntExistException("The meal with the given ID doesn't exist!");
-            }
-
             UpdateSetFirstStep<MealsRecord> updateQuery = dsl.update(Meals.MEALS);
             UpdateSetMoreStep<MealsRecord> setSteps = null;
 
@@ -81,10 +84,12 @@ public class MealsRepository extends AbstractRepository {
                         ? updateQuery.set(Meals.MEALS.MEAT, meal.getMeat())
                         : setSteps.set(Meals.MEALS.MEAT, meal.getMeat());
             }
-            if (setSteps != null) {
-                setSteps.where(Meals.MEALS.MEAL_ID.eq(meal.getMealId()))
-                        .execute();
+            if (setSteps == null) {
+                // Nothing to change, but the meal still has to exist
+                setSteps = updateQuery.set(Meals.MEALS.MEAL_ID, Meals.MEALS.MEAL_ID);
             }
+            executeOrThrow(setSteps.where(Meals.MEALS.MEAL_ID.eq(meal.getMealId())),
+                    () -> new MealDoesntExistException("The meal with the given ID doesn't exist!"));
         }
     }
 
@@ -94,6 +99,7 @@ public class MealsRepository extends AbstractRepository {
      * This method first checks if a meal with the same name already exists in the database.
      * If the meal already exists, a MealAlreadyExistsException is thrown. Otherwise, it
      * inserts the new meal record into the Meals table and returns the inserted record.
+     * The check and the insert run in one transaction.
      * </p>
      *
      * @param meal a MealsRecord instance containing the meal data to be added
@@ -102,26 +108,22 @@ public class MealsRepository extends AbstractRepository {
      * @throws MealAlreadyExistsException if a meal with the same name already exists
      */
     public Optional<MealsRecord> addMeal(MealsRecord meal) throws SQLException, MealAlreadyExistsException {
-        try (var connection = dataSource.getConnection()) {
-            var dsl = getDSLContext(connection);
+        return inTransaction(dsl -> {
             if (dsl.fetchExists(dsl.selectFrom(Meals.MEALS).where(Meals.MEALS.NAME.eq(meal.getName())))) {
                 throw new MealAlreadyExistsException("Meal already exists!");
             }
 
-            dsl.insertInto(Meals.MEALS)
+            // Rückgabe als Optional, um den Fall eines fehlenden Datensatzes explizit zu behandeln:
+            return Optional.ofNullable(dsl.insertInto(Meals.MEALS)
                     .set(Meals.MEALS.NAME, meal.getName())
                     .set(Meals.MEALS.PRICE, meal.getPrice())
                     .set(Meals.MEALS.CALORIES, meal.getCalories())
                     .set(Meals.MEALS.ALLERGY, meal.getAllergy())
                     .set(Meals.MEALS.MEAT, meal.getMeat())
                     .set(Meals.MEALS.DAY, meal.getDay())
-                    .execute();
-
-            // Rückgabe als Optional, um den Fall eines fehlenden Datensatzes explizit zu behandeln:
-            return Optional.ofNullable(dsl.selectFrom(Meals.MEALS)
-                    .where(Meals.MEALS.NAME.eq(meal.getName()))
+                    .returning()
                     .fetchOne());
-        }
+        });
     }
 
 
@@ -136,12 +138,32 @@ public class MealsRepository extends AbstractRepository {
      * @throws SQLException if a database access error occurs
      */
     public List<MealsRecord> getAllMeals() throws SQLException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
             return dsl.selectFrom(Meals.MEALS).fetchInto(MealsRecord.class);
         }
     }
 
+    /**
+     * Retrieves one page of all meals ordered by their ID.
+     * <p>
+     * The page is read with keyset pagination, so its cost doesn't grow with the position of the page.
+     * </p>
+     *
+     * @param afterId the ID to start after, taken from {@link Page#nextCursor()}, or null for the first page
+     * @param limit   the maximum number of meals of the page
+     * @param sort    the order of the meal IDs
+     * @return the page of meals
+     * @throws SQLException             if a database access error occurs
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public Page<MealsRecord> page(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        try (Connection connection = getReadConnection()) {
+            return fetchPage(getDSLContext(connection), Meals.MEALS, Meals.MEALS.MEAL_ID, DSL.noCondition(),
+                    afterId, limit, sort);
+        }
+    }
+
     /**
      * Retrieves all meal records with allergy information from the database.
      * <p>
@@ -153,7 +175,7 @@ public class MealsRepository extends AbstractRepository {
      * @throws SQLException if a database access error occurs
      */
     public List<MealsRecord> getAllAllergies() throws SQLException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
             return dsl.selectFrom(Meals.MEALS).fetchInto(MealsRecord.class);
         }
@@ -162,9 +184,8 @@ public class MealsRepository extends AbstractRepository {
     /**
      * Deletes a meal record from the database by meal ID.
      * <p>
-     * This method first checks if a meal with the specified ID exists in the database.
-     * If the meal does not exist, a MealiDNotFoundException is thrown. Otherwise, it
-     * deletes the meal record from the Meals table.
+     * This method deletes the meal record with the specified ID from the Meals table.
+     * If the meal does not exist, a MealiDNotFoundException is thrown.
      * </p>
      *
      * @param mealId the ID of the meal to be deleted
@@ -172,22 +193,18 @@ public class MealsRepository extends AbstractRepository {
      * @throws MealiDNotFoundException if the meal with the specified ID is not found
      */
     public void deleteMealById(int mealId) throws SQLException, MealiDNotFoundException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getConnection()) {
             var dsl = getDSLContext(connection);
-            if (!dsl.fetchExists(dsl.selectFrom(Meals.MEALS).where(Meals.MEALS.MEAL_ID.eq(mealId)))) {
-                throw new MealiDNotFoundException("The meal with the given ID doesn't exist!");
-            }
-
-            dsl.deleteFrom(Meals.MEALS).where(Meals.MEALS.MEAL_ID.eq(mealId)).execute();
+            executeOrThrow(dsl.deleteFrom(Meals.MEALS).where(Meals.MEALS.MEAL_ID.eq(mealId)),
+                    () -> new MealiDNotFoundException("The meal with the given ID doesn't exist!"));
         }
     }
 
     /**
      * Searches for a meal by its name in the database.
      * <p>
-     * This method checks if a meal with the specified name exists in the database.
-     * If the meal does not exist, a MealDoesntExistException is thrown. Otherwise,
-     * it fetches and returns the meal records that match the given name.
+     * This method fetches and returns the meal records that match the given name.
+     * If no meal matches, a MealDoesntExistException is thrown.
      * </p>
      *
      * @param name the name of the meal to be searched
@@ -196,22 +213,18 @@ public class MealsRepository extends AbstractRepository {
      * @throws MealDoesntExistException if a meal with the specified name is not found
      */
     public List<MealsRecord> searchMealByName(String name) throws SQLException, MealDoesntExistException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
-            if (!dsl.fetchExists(dsl.selectFrom(Meals.MEALS).where(Meals.MEALS.NAME.eq(name)))) {
-                throw new MealDoesntExistException("Meal with name " + name + " doesn't exist!");
-            }
-
-            return dsl.selectFrom(Meals.MEALS).where(Meals.MEALS.NAME.eq(name)).fetchInto(MealsRecord.class);
+            return fetchOrThrow(dsl.selectFrom(Meals.MEALS).where(Meals.MEALS.NAME.eq(name)),
+                    () -> new MealDoesntExistException("Meal with name " + name + " doesn't exist!"));
         }
     }
 
     /**
      * Searches for a meal by its ID in the database.
      * <p>
-     * This method checks if a meal with the specified ID exists in the database.
-     * If the meal does not exist, a MealiDNotFoundException is thrown. Otherwise,
-     * it fetches and returns the meal records that match the given ID.
+     * This method fetches and returns the meal records that match the given ID.
+     * If no meal matches, a MealiDNotFoundException is thrown.
      * </p>
      *
      * @param mealId the ID of the meal to be searched
@@ -220,12 +233,10 @@ public class MealsRepository extends AbstractRepository {
      * @throws MealiDNotFoundException if a meal with the specified ID is not found
      */
     public List<MealsRecord> searchMealById(int mealId) throws SQLException, MealiDNotFoundException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
-            if (!dsl.fetchExists(dsl.selectFrom(Meals.MEALS).where(Meals.MEALS.MEAL_ID.eq(mealId)))) {
-                throw new MealiDNotFoundException("Meal with the given ID " + mealId + " doesn't exist!");
-            }
-            return dsl.selectFrom(Meals.MEALS).where(Meals.MEALS.MEAL_ID.eq(mealId)).fetchInto(MealsRecord.class);
+            return fetchOrThrow(dsl.selectFrom(Meals.MEALS).where(Meals.MEALS.MEAL_ID.eq(mealId)),
+                    () -> new MealiDNotFoundException("Meal with the given ID " + mealId + " doesn't exist!"));
         }
     }
 
@@ -239,7 +250,7 @@ public class MealsRepository extends AbstractRepository {
      * @throws SQLException if a database access error occurs
      */
     public List<MealsRecord> sortMealsByPrice() throws SQLException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
             return dsl.selectFrom(Meals.MEALS)
                     .orderBy(Meals.MEALS.PRICE.asc())
@@ -250,33 +261,44 @@ public class MealsRepository extends AbstractRepository {
     /**
      * Sorts meals by their median rating in descending order.
      * <p>
-     * This method fetches all meal records from the database, calculates the median rating for each meal,
-     * and sorts the meals by their median rating in descending order.
+     * This method returns all meals, see {@link #sortMealsByRating(int)} for the ordering.
      * </p>
      *
      * @return a list of MealsRecord objects sorted by their median rating
      * @throws SQLException if a database access error occurs
      */
     public List<MealsRecord> sortMealsByRating() throws SQLException {
-        try (Connection connection = dataSource.getConnection()) {
+        return sortMealsByRating(0);
+    }
+
+    /**
+     * Sorts meals by their median rating in descending order and returns the top meals.
+     * <p>
+     * The median of every meal is derived in SQL from the histogram in the meal rating summary, which is
+     * joined to the Meals table, so one summary row is read per meal. Meals without reviews count as a median of 0. Ties are broken by the review count in
+     * descending order and then by the meal name in ascending order.
+     * </p>
+     *
+     * @param limit the maximum number of meals to return, or 0 to return all meals
+     * @return a list of MealsRecord objects sorted by their median rating
+     * @throws SQLException if a database access error occurs
+     */
+    public List<MealsRecord> sortMealsByRating(int limit) throws SQLException {
+        Field<Double> median = MealRatingSummaryRepository.median();
+        Field<Integer> reviewCount = MealRatingSummaryRepository.REVIEW_COUNT;
+
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
 
-            // Fetch all meals
-            List<MealsRecord> meals = dsl.selectFrom(Meals.MEALS).fetchInto(MealsRecord.class);
-
-            // Calculate median rating for each meal
-            Map<Integer, Double> mealRatings = new HashMap<>();
-            for (MealsRecord record : meals) {
-                Double medianRating = dsl.select(DSL.median(Review.REVIEW.RATING))
-                        .from(Review.REVIEW)
-                        .where(Review.REVIEW.MEAL_ID.eq(record.getMealId()))
-                        .fetchOne(0, double.class);
-                mealRatings.put(record.getMealId(), medianRating != null ? medianRating : 0.0);
-            }
+            var query = dsl.select(Meals.MEALS.fields())
+                    .from(Meals.MEALS)
+                    .leftJoin(MealRatingSummaryRepository.MEAL_RATING_SUMMARY)
+                    .on(MealRatingSummaryRepository.MEAL_ID.eq(Meals.MEALS.MEAL_ID))
+                    .orderBy(median.desc(),
+                            DSL.coalesce(reviewCount, 0).desc(),
+                            Meals.MEALS.NAME.asc());
 
-            // Sort meals by calculated median rating
-            meals.sort((m1, m2) -> Double.compare(mealRatings.get(m2.getMealId()), mealRatings.get(m1.getMealId())));
-            return meals;
+            return (limit > 0 ? query.limit(limit) : query).fetchInto(MealsRecord.class);
         }
     }
 
@@ -290,7 +312,7 @@ public class MealsRepository extends AbstractRepository {
      * @throws SQLException if a database access error occurs
      */
     public List<MealsRecord> sortMealsByName() throws SQLException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
             return dsl.selectFrom(Meals.MEALS)
                     .orderBy(Meals.MEALS.NAME.asc())
@@ -308,7 +330,7 @@ public class MealsRepository extends AbstractRepository {
      * @throws SQLException if a database access error occurs
      */
     public List<MealsRecord> sortMealsByCalories() throws SQLException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
             return dsl.selectFrom(Meals.MEALS)
                     .orderBy(Meals.MEALS.CALORIES.asc())
@@ -317,43 +339,25 @@ public class MealsRepository extends AbstractRepository {
     }
 
     /**
-     * Sorts meals by excluding those that contain the user's allergies.
+     * Retrieves the meals that contain none of the given allergens.
      * <p>
-     * This method retrieves all meal records from the database and filters out
-     * meals that contain any of the user's allergies. The user's allergies are
-     * fetched based on the provided user ID.
+     * The filter runs in SQL on the allergen mask of the meals, which migration V3 derives from the allergy
+     * column on every write, so the meals with the excluded allergens are never loaded.
      * </p>
      *
-     * @param userId the ID of the user
-     * @return a list of MealsRecord objects excluding those with the user's allergies
-     * @throws SQLException             if a database access error occurs
-     * @throws UserDoesntExistException if the user with the given ID doesn't exist
+     * @param allergyMask the allergens to exclude, one bit per code of {@code AllergenMapper.MASK_ORDER}
+     * @return a list of MealsRecord objects without the given allergens
+     * @throws SQLException if a database access error occurs
      */
-    public List<MealsRecord> sortMealsByAllergy(int userId) throws SQLException, UserDoesntExistException {
-        List<String> userAllergies = getUserAllergies(userId);
-
-        try (Connection connection = dataSource.getConnection()) {
+    public List<MealsRecord> getMealsWithoutAllergens(int allergyMask) throws SQLException {
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
-
-            // Fetch all meals
-            List<MealsRecord> meals = dsl.selectFrom(Meals.MEALS).fetchInto(MealsRecord.class);
-
-            // Filter out meals that contain user's allergies
-            return meals.stream()
-                    .filter(meal -> {
-                        String allergy = meal.getAllergy();
-                        if (allergy == null || allergy.isEmpty()) {
-                            return true;
-                        }
-                        String[] mealAllergies = allergy.split(",");
-                        for (String allergyItem : mealAllergies) {
-                            if (userAllergies.contains(allergyItem.trim())) {
-                                return false;
-                            }
-                        }
-                        return true;
-                    })
-                    .collect(Collectors.toList());
+            var query = dsl.selectFrom(Meals.MEALS);
+            if (allergyMask == 0) {
+                return query.fetchInto(MealsRecord.class);
+            }
+            return query.where(ALLERGY_MASK.bitAnd(allergyMask).eq(0))
+                    .fetchInto(MealsRecord.class);
         }
     }
 
@@ -369,16 +373,11 @@ public class MealsRepository extends AbstractRepository {
      * @throws UserDoesntExistException if the user with the given ID doesn't exist
      */
     public List<String> getUserAllergies(int userId) throws SQLException, UserDoesntExistException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
 
-            var user = dsl.selectFrom(Users.USERS)
-                    .where(Users.USERS.USERID.eq(userId))
-                    .fetchOne();
-
-            if (user == null) {
-                throw new UserDoesntExistException("The user with the given UserId doesn't exist!");
-            }
+            var user = fetchOneOrThrow(dsl.selectFrom(Users.USERS).where(Users.USERS.USERID.eq(userId)),
+                    () -> new UserDoesntExistException("The user with the given UserId doesn't exist!"));
 
             String allergies = user.getDontShowMeal();
             return Arrays.asList(allergies.split(","));
@@ -388,20 +387,77 @@ public class MealsRepository extends AbstractRepository {
     /**
      * Calculates the median rating for a meal.
      * <p>
-     * This method calculates the median rating for a meal based on the provided meal ID.
+     * This method derives the median rating of the meal with the provided meal ID from its
+     * rating summary, so only one row is read regardless of the number of reviews.
      * </p>
      *
      * @param mealId the ID of the meal to calculate the median rating for
-     * @return the median rating of the meal
+     * @return the median rating of the meal, or 0 if the meal has no reviews
      * @throws SQLException if a database access error occurs
      */
     public double calculateMedianRatingForMeal(int mealId) throws SQLException {
-        try (Connection connection = dataSource.getConnection()) {
+        MealRatingStats stats = getMealRatingStats(List.of(mealId)).get(mealId);
+        return stats == null ? 0 : stats.median();
+    }
+
+    /**
+     * Retrieves the rating statistics of all reviewed meals.
+     * <p>
+     * This method reads the median, mean and review count of every meal from the meal rating summary.
+     * Meals without reviews are not contained in the returned map.
+     * </p>
+     *
+     * @return a map of meal IDs to their rating statistics
+     * @throws SQLException if a database access error occurs
+     */
+    public Map<Integer, MealRatingStats> getAllMealRatingStats() throws SQLException {
+        return fetchMealRatingStats(DSL.noCondition());
+    }
+
+    /**
+     * Retrieves the rating statistics of the given meals.
+     * <p>
+     * This method reads the median, mean and review count of the given meals from the meal rating summary.
+     * Meals without reviews are not contained in the returned map.
+     * </p>
+     *
+     * @param mealIds the IDs of the meals to compute the statistics for
+     * @return a map of meal IDs to their rating statistics
+     * @throws SQLException if a database access error occurs
+     */
+    public Map<Integer, MealRatingStats> getMealRatingStats(Collection<Integer> mealIds) throws SQLException {
+        if (mealIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return fetchMealRatingStats(MealRatingSummaryRepository.MEAL_ID.in(mealIds));
+    }
+
+    /**
+     * Reads the rating statistics of all meals matching the given condition.
+     * <p>
+     * Every meal has one row in the meal rating summary holding its histogram of ratings. The median
+     * is derived from this histogram, so one statement is executed regardless of the number of meals.
+     * </p>
+     *
+     * @param condition the condition restricting the summary rows to read
+     * @return a map of meal IDs to their rating statistics
+     * @throws SQLException if a database access error occurs
+     */
+    private Map<Integer, MealRatingStats> fetchMealRatingStats(Condition condition) throws SQLException {
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
-            return dsl.select(DSL.median(Review.REVIEW.RATING))
-                    .from(Review.REVIEW)
-                    .where(Review.REVIEW.MEAL_ID.eq(mealId))
-                    .fetchOne(0, double.class);
+
+            Map<Integer, MealRatingStats> stats = new HashMap<>();
+            for (Record record : dsl.select(MealRatingSummaryRepository.MEAL_ID)
+                    .select(MealRatingSummaryRepository.RATING_COUNTS)
+                    .from(MealRatingSummaryRepository.MEAL_RATING_SUMMARY)
+                    .where(condition)
+                    .and(MealRatingSummaryRepository.REVIEW_COUNT.gt(0))
+                    .fetch()) {
+                MealRatingStats mealStats = MealRatingSummaryRepository.toStats(record);
+                stats.put(mealStats.mealId(), mealStats);
+            }
+            return stats;
         }
     }
-}
\ No newline at end of file
+}
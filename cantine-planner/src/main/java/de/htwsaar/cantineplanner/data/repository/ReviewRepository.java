@@ -6,7 +6,11 @@ import de.htwsaar.cantineplanner.codegen.tables.records.ReviewRecord;
 import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
 import de.htwsaar.cantineplanner.data.exceptions.MealDoesntExistException;
 import de.htwsaar.cantineplanner.data.exceptions.ReviewiDDoesntExistException;
+import de.htwsaar.cantineplanner.data.model.MealRatingStats;
+import de.htwsaar.cantineplanner.data.model.Page;
 import org.jooq.DSLContext;
+import org.jooq.SortOrder;
+import org.jooq.impl.DSL;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -36,12 +40,33 @@ public class ReviewRepository extends AbstractRepository {
      * @throws SQLException if a database access error occurs
      */
     public List<ReviewRecord> getAllReviews() throws SQLException {
-        try (var connection = dataSource.getConnection()) {
+        try (var connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
             return dsl.selectFrom(Review.REVIEW).fetchInto(ReviewRecord.class);
         }
     }
 
+    /**
+     * Retrieves one page of all reviews ordered by their ID.
+     * <p>
+     * Unlike {@link #getAllReviews()} the page is read with keyset pagination, so its cost doesn't grow with
+     * the number of reviews or with the position of the page.
+     * </p>
+     *
+     * @param afterId the ID to start after, taken from {@link Page#nextCursor()}, or null for the first page
+     * @param limit   the maximum number of reviews of the page
+     * @param sort    the order of the review IDs
+     * @return the page of reviews
+     * @throws SQLException             if a database access error occurs
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public Page<ReviewRecord> page(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        try (Connection connection = getReadConnection()) {
+            return fetchPage(getDSLContext(connection), Review.REVIEW, Review.REVIEW.RATING_ID, DSL.noCondition(),
+                    afterId, limit, sort);
+        }
+    }
+
     /**
      * Retrieves the user ID associated with a given review ID.
      * <p>
@@ -55,13 +80,11 @@ public class ReviewRepository extends AbstractRepository {
      * @throws ReviewiDDoesntExistException if the review ID does not exist
      */
     public int getUserIdFromReviewId(int reviewId) throws SQLException, ReviewiDDoesntExistException, NullPointerException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getReadConnection()) {
             DSLContext dsl = getDSLContext(connection);
-            if (!dsl.fetchExists(dsl.selectFrom(Review.REVIEW).where(Review.REVIEW.RATING_ID.eq(reviewId)))) {
-                throw new ReviewiDDoesntExistException("Review iD that was provided does not exist!");
-            }
-            return dsl.select(Review.REVIEW.USERID).from(Review.REVIEW).where(
-                    Review.REVIEW.RATING_ID.eq(reviewId)).fetchOne(Review.REVIEW.USERID);
+            return fetchOneOrThrow(dsl.select(Review.REVIEW.USERID).from(Review.REVIEW).where(
+                            Review.REVIEW.RATING_ID.eq(reviewId)),
+                    () -> new ReviewiDDoesntExistException("Review iD that was provided does not exist!")).value1();
         }
     }
 
@@ -76,12 +99,34 @@ public class ReviewRepository extends AbstractRepository {
      * @throws SQLException if a database access error occurs
      */
     public List<ReviewRecord> getAllReviewsByUser(int userId) throws SQLException {
-        try (var connection = dataSource.getConnection()) {
+        try (var connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
             return dsl.selectFrom(Review.REVIEW).where(Review.REVIEW.USERID.eq(userId)).fetchInto(ReviewRecord.class);
         }
     }
 
+    /**
+     * Retrieves one page of the reviews made by a specific user ordered by their ID.
+     * <p>
+     * The index on the user ID also holds the review ID, so the page is read with one index seek.
+     * </p>
+     *
+     * @param userId  the ID of the user whose reviews are to be retrieved
+     * @param afterId the ID to start after, taken from {@link Page#nextCursor()}, or null for the first page
+     * @param limit   the maximum number of reviews of the page
+     * @param sort    the order of the review IDs
+     * @return the page of the reviews made by the user
+     * @throws SQLException             if a database access error occurs
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public Page<ReviewRecord> pageByUser(int userId, Integer afterId, int limit, SortOrder sort)
+            throws SQLException {
+        try (Connection connection = getReadConnection()) {
+            return fetchPage(getDSLContext(connection), Review.REVIEW, Review.REVIEW.RATING_ID,
+                    Review.REVIEW.USERID.eq(userId), afterId, limit, sort);
+        }
+    }
+
     /**
      * Retrieves reviews for a specific meal by its name.
      * <p>
@@ -95,21 +140,24 @@ public class ReviewRepository extends AbstractRepository {
      * @throws MealDoesntExistException if the meal with the given name does not exist
      */
     public List<ReviewRecord> reviewsByMealName(String mealName) throws SQLException, MealDoesntExistException {
-        try (var connection = dataSource.getConnection()) {
+        try (var connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
-            if (!dsl.fetchExists(dsl.selectFrom(Meals.MEALS).where(Meals.MEALS.NAME.eq(mealName)))) {
-                throw new MealDoesntExistException("Meal with name " + mealName + " doesn't exist!");
-            }
-            return dsl.select().from(Review.REVIEW).join(Meals.MEALS).on(
-                    Review.REVIEW.MEAL_ID.eq(Meals.MEALS.MEAL_ID)).where(Meals.MEALS.NAME.eq(mealName)).fetchInto(
-                    ReviewRecord.class);
+            // The meal is left joined, so an existing meal without reviews still yields one row
+            return fetchOrThrow(dsl.select(Review.REVIEW.fields()).from(Meals.MEALS).leftJoin(Review.REVIEW).on(
+                            Review.REVIEW.MEAL_ID.eq(Meals.MEALS.MEAL_ID)).where(Meals.MEALS.NAME.eq(mealName)),
+                    () -> new MealDoesntExistException("Meal with name " + mealName + " doesn't exist!"))
+                    .stream()
+                    .filter(review -> review.get(Review.REVIEW.RATING_ID) != null)
+                    .map(review -> review.into(ReviewRecord.class))
+                    .toList();
         }
     }
 
     /**
      * Deletes a review from the database.
      * <p>
-     * This method deletes a review record from the database based on the provided rating ID.
+     * This method deletes a review record from the database based on the provided rating ID and removes its
+     * rating from the meal rating summary in the same transaction.
      * If the rating ID does not exist, a ReviewiDDoesntExistException is thrown.
      * </p>
      *
@@ -118,41 +166,63 @@ public class ReviewRepository extends AbstractRepository {
      * @throws ReviewiDDoesntExistException if the review ID does not exist
      */
     public void deleteReview(int ratingId) throws SQLException, ReviewiDDoesntExistException {
-        try (var connection = dataSource.getConnection()) {
-            var dsl = getDSLContext(connection);
+        inTransaction(transaction -> {
+            // deletion of the corresponding review ID, returning what the summary needs
+            ReviewRecord deleted = transaction.deleteFrom(Review.REVIEW)
+                    .where(Review.REVIEW.RATING_ID.eq(ratingId))
+                    .returning(Review.REVIEW.MEAL_ID, Review.REVIEW.RATING)
+                    .fetchOne();
             // if the review ID doesn't exist, we throw an exception
-            if (!dsl.fetchExists(dsl.selectFrom(Review.REVIEW).where(Review.REVIEW.RATING_ID.eq(ratingId)))) {
+            if (deleted == null) {
                 throw new ReviewiDDoesntExistException("Review ID that was provided does not exist!");
             }
-            // deletion of the corresponding review ID
-            dsl.deleteFrom(Review.REVIEW).where(Review.REVIEW.RATING_ID.eq(ratingId)).execute();
-        }
+            if (isValidRating(deleted.getRating())) {
+                MealRatingSummaryRepository.removeRating(transaction, deleted.getMealId(), deleted.getRating());
+            }
+            return null;
+        });
     }
 
     /**
      * Adds a review to the database.
      * <p>
-     * This method inserts a new review record into the database based on the provided ReviewRecord object.
+     * This method inserts a new review record into the database based on the provided ReviewRecord object
+     * and adds its rating to the meal rating summary in the same transaction.
      * </p>
      *
      * @param givenReview the ReviewRecord object containing the review details to be added
-     * @return true if the review was successfully added
+     * @return true if the review was successfully added, false if its rating is not between 0 and 5
      * @throws SQLException if a database access error occurs
      */
     public boolean addReview(ReviewRecord givenReview) throws SQLException {
-        try (var connection = dataSource.getConnection()) {
-            var dsl = getDSLContext(connection);
-            dsl.insertInto(Review.REVIEW)
-                    .set(Review.REVIEW.MEAL_ID, givenReview.getMealId())
-                    .set(Review.REVIEW.RATING, givenReview.getRating())
-                    .set(Review.REVIEW.COMMENT, givenReview.getComment())
-                    .set(Review.REVIEW.USERID, givenReview.getUserid())
-                    .execute();
-            return true;
+        if (!isValidRating(givenReview.getRating())) {
+            return false;
+        }
+        try {
+            return inTransaction(transaction -> {
+                transaction.insertInto(Review.REVIEW)
+                        .set(Review.REVIEW.MEAL_ID, givenReview.getMealId())
+                        .set(Review.REVIEW.RATING, givenReview.getRating())
+                        .set(Review.REVIEW.COMMENT, givenReview.getComment())
+                        .set(Review.REVIEW.USERID, givenReview.getUserid())
+                        .execute();
+                MealRatingSummaryRepository.addRating(transaction, givenReview.getMealId(), givenReview.getRating());
+                return true;
+            });
         }
 
         catch (SQLException sqlException){
             return false;
         }
     }
+
+    /**
+     * Checks whether a rating can be counted in the meal rating summary.
+     *
+     * @param rating the rating to check
+     * @return true if the rating is between 0 and 5
+     */
+    private static boolean isValidRating(Integer rating) {
+        return rating != null && rating >= 0 && rating <= MealRatingStats.MAX_RATING;
+    }
 }
@@ -0,0 +1,108 @@
+package de.htwsaar.cantineplanner.data.repository;
+
+import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
+import de.htwsaar.cantineplanner.data.model.SearchHit;
+import org.jooq.DSLContext;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The SearchRepository class searches meal names and review comments with the SQLite FTS5 full-text indexes.
+ * <p>
+ * The indexes meal_search and review_search are created by the V4 schema migration and kept up to date by
+ * triggers on every write of the meals and review tables. Every search term matches as a prefix, so partial
+ * words find their meal, and diacritics are ignored. Hits must contain all terms; if no row does, rows
+ * containing any of the terms are returned instead, so a single misspelled term doesn't empty the result.
+ * </p>
+ */
+public class SearchRepository extends AbstractRepository {
+
+    private static final String SEARCH_QUERY = """
+            SELECT 'MEAL' AS type, meals.meal_id AS id, meals.meal_id, meals.Name AS meal_name,
+                   meals.Name AS text, bm25(meal_search) AS score
+            FROM meal_search JOIN meals ON meals.meal_id = meal_search.rowid
+            WHERE meal_search MATCH ?
+            UNION ALL
+            SELECT 'REVIEW', review.rating_id, review.meal_id, meals.Name,
+                   snippet(review_search, 0, '', '', '...', 16), bm25(review_search)
+            FROM review_search JOIN review ON review.rating_id = review_search.rowid
+                 LEFT JOIN meals ON meals.meal_id = review.meal_id
+            WHERE review_search MATCH ?
+            ORDER BY score
+            LIMIT ?""";
+
+    /**
+     * Constructs a new SearchRepository object.
+     *
+     * @param dataSource an instance of HikariCPDataSource, offering a connection pool
+     *                   for efficient and reliable database connectivity.
+     */
+    public SearchRepository(HikariCPDataSource dataSource) {
+        super(dataSource);
+    }
+
+    /**
+     * Searches meal names and review comments, best matches first.
+     *
+     * @param query the words to search for, any punctuation is ignored
+     * @param limit the maximum number of hits
+     * @return the hits ranked by relevance, empty if the query contains no words
+     * @throws SQLException             if a database access error occurs
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public List<SearchHit> search(String query, int limit) throws SQLException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The result limit must be positive");
+        }
+        List<String> terms = toTerms(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        try (Connection connection = getReadConnection()) {
+            var dsl = getDSLContext(connection);
+            List<SearchHit> hits = fetchHits(dsl, String.join(" AND ", terms), limit);
+            if (hits.isEmpty() && terms.size() > 1) {
+                hits = fetchHits(dsl, String.join(" OR ", terms), limit);
+            }
+            return hits;
+        }
+    }
+
+    private static List<SearchHit> fetchHits(DSLContext dsl, String match, int limit) {
+        return dsl.resultQuery(SEARCH_QUERY, match, match, limit)
+                .fetch(record -> new SearchHit(
+                        SearchHit.Type.valueOf(record.get("type", String.class)),
+                        record.get("id", Integer.class),
+                        record.get("meal_id", Integer.class),
+                        record.get("meal_name", String.class),
+                        record.get("text", String.class),
+                        record.get("score", Double.class)));
+    }
+
+    /**
+     * Splits a query into FTS5 prefix terms, e.g. {@code chick cur} into {@code "chick"*} and {@code "cur"*}.
+     * <p>
+     * The words are quoted, so user input can never form FTS5 operators or column filters.
+     * </p>
+     *
+     * @param query the query as typed by the user, may be null
+     * @return the prefix terms of the words of the query
+     */
+    static List<String> toTerms(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        for (String word : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                terms.add('"' + word + "\"*");
+            }
+        }
+        return terms;
+    }
+}
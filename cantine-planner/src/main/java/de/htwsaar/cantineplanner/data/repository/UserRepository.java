@@ -8,16 +8,29 @@ import de.htwsaar.cantineplanner.data.exceptions.UserAlreadyExistsException;
 import de.htwsaar.cantineplanner.data.exceptions.UserDoesntExistException;
 import de.htwsaar.cantineplanner.data.exceptions.UserNotValidatedException;
 import de.htwsaar.cantineplanner.data.security.PasswordUtil;
+import de.htwsaar.cantineplanner.data.security.VerifiedCredentialCache;
+import de.htwsaar.cantineplanner.data.model.Page;
+import de.htwsaar.cantineplanner.data.util.ApplicationProperties;
+import org.jooq.Condition;
+import org.jooq.SortOrder;
 import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.List;
 
 /**
  * The UserRepository class is responsible for handling user data in the database.
  */
 public class UserRepository extends AbstractRepository {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserRepository.class);
+
+    private final VerifiedCredentialCache verifiedCredentials;
+
     /**
      * Constructs a new UserRepository object.
      * @param dataSource an instance of HikariCPDataSource, offering a connection pool
@@ -25,6 +38,9 @@ public class UserRepository extends AbstractRepository {
      */
     public UserRepository(HikariCPDataSource dataSource) {
         super(dataSource);
+        this.verifiedCredentials = new VerifiedCredentialCache(
+                Duration.ofSeconds(ApplicationProperties.getInt("password.verified-cache.ttl-seconds", 300)),
+                ApplicationProperties.getInt("password.verified-cache.max-entries", 1024));
     }
 
     /**
@@ -40,20 +56,7 @@ public class UserRepository extends AbstractRepository {
      * @throws UserNotValidatedException if the username or password is invalid
      */
     public boolean validateUser(String username, String plainTextPassword) throws UserNotValidatedException {
-        try (Connection connection = dataSource.getConnection()) {
-            var dsl = getDSLContext(connection);
-            String hashedPassword = dsl.select(Users.USERS.PASSWORD).from(Users.USERS).where(
-                    Users.USERS.USERNAME.eq(username)).fetchOne(Users.USERS.PASSWORD);
-
-            if (hashedPassword == null || !PasswordUtil.verifyPassword(plainTextPassword, hashedPassword)) {
-                throw new UserNotValidatedException("Invalid username or password!");
-            }
-            return true;
-        }
-        catch( UserNotValidatedException | SQLException exception){
-            return false;
-        }
-
+        return validateUser(Users.USERS.USERNAME.eq(username), plainTextPassword);
     }
 
     /**
@@ -70,22 +73,112 @@ public class UserRepository extends AbstractRepository {
      * @throws UserNotValidatedException if the password is invalid
      */
     public boolean validateUser(int userID, String plainTextPassword) throws UserNotValidatedException {
-        try (Connection connection = dataSource.getConnection()) {
-            var dsl = getDSLContext(connection);
-            String hashedPassword = dsl.select(Users.USERS.PASSWORD).from(Users.USERS).where(
-                    Users.USERS.USERID.eq(userID)).fetchOne(Users.USERS.PASSWORD);
+        return validateUser(Users.USERS.USERID.eq(userID), plainTextPassword);
+    }
 
-            if (hashedPassword == null || !PasswordUtil.verifyPassword(plainTextPassword, hashedPassword)) {
-                throw new UserNotValidatedException("Invalid password!");
-            }
-            return true;
+    /**
+     * Authenticates a user by username and password.
+     * <p>
+     * The user is fetched with a single query, so a login needs no further lookup of the user record.
+     * </p>
+     *
+     * @param username          the username of the user
+     * @param plainTextPassword the plain text password of the user
+     * @return the record of the authenticated user
+     * @throws UserNotValidatedException if the username or password is invalid
+     * @throws SQLException              if a database access error occurs
+     */
+    public UsersRecord authenticate(String username, String plainTextPassword) throws SQLException, UserNotValidatedException {
+        UsersRecord user = fetchVerifiedUser(Users.USERS.USERNAME.eq(username), plainTextPassword);
+        if (user == null) {
+            throw new UserNotValidatedException("Invalid username or password!");
         }
+        return user;
+    }
 
-        catch(UserNotValidatedException | SQLException exception){
+    /**
+     * Validates the user matching the given condition against a plain text password.
+     *
+     * @param condition         the condition selecting the user
+     * @param plainTextPassword the plain text password of the user to be validated
+     * @return true if the user exists and the password matches, false otherwise
+     */
+    private boolean validateUser(Condition condition, String plainTextPassword) {
+        try {
+            return fetchVerifiedUser(condition, plainTextPassword) != null;
+        } catch (SQLException exception) {
             return false;
         }
     }
 
+    /**
+     * Fetches the user matching the given condition and verifies the plain text password.
+     * <p>
+     * The connection is returned to the pool before the password is hashed. A password verified against
+     * the same stored hash shortly before is accepted from the {@link VerifiedCredentialCache} without
+     * hashing it again. If the stored hash was computed with other parameters than the current
+     * {@link de.htwsaar.cantineplanner.data.security.PasswordPolicy}, it is replaced with a hash of the
+     * current policy after a successful verification.
+     * </p>
+     *
+     * @param condition         the condition selecting the user
+     * @param plainTextPassword the plain text password to verify
+     * @return the record of the user, or null if there is no such user or the password does not match
+     * @throws SQLException if a database access error occurs
+     */
+    private UsersRecord fetchVerifiedUser(Condition condition, String plainTextPassword) throws SQLException {
+        UsersRecord user;
+        try (Connection connection = getReadConnection()) {
+            var dsl = getDSLContext(connection);
+            user = dsl.selectFrom(Users.USERS).where(condition).fetchOne();
+        }
+
+        if (user == null || user.getPassword() == null) {
+            return null;
+        }
+        String storedHash = user.getPassword();
+        if (verifiedCredentials.matches(user.getUserid(), plainTextPassword, storedHash)) {
+            return user;
+        }
+        if (!PasswordUtil.verifyPassword(plainTextPassword, storedHash)) {
+            return null;
+        }
+        if (PasswordUtil.needsRehash(storedHash)) {
+            storedHash = upgradePasswordHash(user.getUserid(), storedHash, plainTextPassword);
+            user.setPassword(storedHash);
+            user.changed(false);
+        }
+        verifiedCredentials.put(user.getUserid(), plainTextPassword, storedHash);
+        return user;
+    }
+
+    /**
+     * Replaces a stored password hash with a hash of the current password policy.
+     * <p>
+     * The hash is only replaced if it was not changed in the meantime. A failed upgrade is logged and
+     * otherwise ignored, the old hash keeps working.
+     * </p>
+     *
+     * @param userId            the ID of the user
+     * @param storedHash        the hash the password was validated against
+     * @param plainTextPassword the validated plain text password
+     * @return the stored hash after the upgrade, which is the old one if it was not replaced
+     */
+    private String upgradePasswordHash(int userId, String storedHash, String plainTextPassword) {
+        String upgradedHash = PasswordUtil.hashPassword(plainTextPassword);
+        try (Connection connection = getConnection()) {
+            var dsl = getDSLContext(connection);
+            int rowsAffected = dsl.update(Users.USERS)
+                    .set(Users.USERS.PASSWORD, upgradedHash)
+                    .where(Users.USERS.USERID.eq(userId).and(Users.USERS.PASSWORD.eq(storedHash)))
+                    .execute();
+            return rowsAffected == 1 ? upgradedHash : storedHash;
+        } catch (SQLException exception) {
+            LOGGER.warn("Could not upgrade the password hash of user {}", userId, exception);
+            return storedHash;
+        }
+    }
+
     /**
      * Retrieves the user ID for a given username.
      * <p>
@@ -99,15 +192,12 @@ public class UserRepository extends AbstractRepository {
      * @throws UserDoesntExistException if the user with the given username does not exist
      */
     public int getUserId(String username) throws SQLException, UserDoesntExistException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
 
-            if (!dsl.fetchExists(dsl.selectFrom(Users.USERS).where(Users.USERS.USERNAME.eq(username)))) {
-                throw new UserDoesntExistException("The user with the given username doesn't exist!");
-            }
-
-            return dsl.select(Users.USERS.USERID).from(Users.USERS).where(Users.USERS.USERNAME.eq(username)).fetchOne(
-                    Users.USERS.USERID);
+            return fetchOneOrThrow(
+                    dsl.select(Users.USERS.USERID).from(Users.USERS).where(Users.USERS.USERNAME.eq(username)),
+                    () -> new UserDoesntExistException("The user with the given username doesn't exist!")).value1();
         }
     }
 
@@ -124,14 +214,11 @@ public class UserRepository extends AbstractRepository {
      * @throws UserDoesntExistException if the user with the given username does not exist
      */
     public UsersRecord getUser(String username) throws SQLException, UserDoesntExistException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
 
-            if (!dsl.fetchExists(dsl.selectFrom(Users.USERS).where(Users.USERS.USERNAME.eq(username)))) {
-                throw new UserDoesntExistException("The user with the given username doesn't exist!");
-            }
-
-            return dsl.selectFrom(Users.USERS).where(Users.USERS.USERNAME.eq(username)).fetchOne();
+            return fetchOneOrThrow(dsl.selectFrom(Users.USERS).where(Users.USERS.USERNAME.eq(username)),
+                    () -> new UserDoesntExistException("The user with the given username doesn't exist!"));
         }
     }
 
@@ -145,12 +232,32 @@ public class UserRepository extends AbstractRepository {
      * @throws SQLException if a database access error occurs
      */
     public List<UsersRecord> getAllUser() throws SQLException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
             return dsl.selectFrom(Users.USERS).fetchInto(UsersRecord.class);
         }
     }
 
+    /**
+     * Retrieves one page of all users ordered by their ID.
+     * <p>
+     * The page is read with keyset pagination, so its cost doesn't grow with the position of the page.
+     * </p>
+     *
+     * @param afterId the ID to start after, taken from {@link Page#nextCursor()}, or null for the first page
+     * @param limit   the maximum number of users of the page
+     * @param sort    the order of the user IDs
+     * @return the page of users
+     * @throws SQLException             if a database access error occurs
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public Page<UsersRecord> page(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        try (Connection connection = getReadConnection()) {
+            return fetchPage(getDSLContext(connection), Users.USERS, Users.USERS.USERID, DSL.noCondition(),
+                    afterId, limit, sort);
+        }
+    }
+
     /**
      * Retrieves a user record by user ID from the database.
      * <p>
@@ -164,14 +271,11 @@ public class UserRepository extends AbstractRepository {
      * @throws UserDoesntExistException if the user with the given ID does not exist
      */
     public UsersRecord getUserById(int userId) throws SQLException, UserDoesntExistException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
 
-            if (!dsl.fetchExists(dsl.selectFrom(Users.USERS).where(Users.USERS.USERID.eq(userId)))) {
-                throw new UserDoesntExistException("The user with the given UserId doesn't exist!");
-            }
-
-            return dsl.selectFrom(Users.USERS).where(Users.USERS.USERID.eq(userId)).fetchOne();
+            return fetchOneOrThrow(dsl.selectFrom(Users.USERS).where(Users.USERS.USERID.eq(userId)),
+                    () -> new UserDoesntExistException("The user with the given UserId doesn't exist!"));
         }
     }
 
@@ -188,14 +292,11 @@ public class UserRepository extends AbstractRepository {
      * @throws UserDoesntExistException if the user with the given ID does not exist
      */
     public void updateUserRole(int userId, int role) throws SQLException, UserDoesntExistException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getConnection()) {
             var dsl = getDSLContext(connection);
 
-            if (!dsl.fetchExists(dsl.selectFrom(Users.USERS).where(Users.USERS.USERID.eq(userId)))) {
-                throw new UserDoesntExistException("The user with the given UserId doesn't exist!");
-            }
-
-            dsl.update(Users.USERS).set(Users.USERS.ROLE, role).where(Users.USERS.USERID.eq(userId)).execute();
+            executeOrThrow(dsl.update(Users.USERS).set(Users.USERS.ROLE, role).where(Users.USERS.USERID.eq(userId)),
+                    () -> new UserDoesntExistException("The user with the given UserId doesn't exist!"));
         }
     }
 
@@ -212,14 +313,12 @@ public class UserRepository extends AbstractRepository {
      * @throws UserDoesntExistException if the user with the given ID does not exist
      */
     public boolean isAdmin(int userID) throws SQLException, UserDoesntExistException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getReadConnection()) {
             var dsl = getDSLContext(connection);
 
-            if (!dsl.fetchExists(dsl.selectFrom(Users.USERS).where(Users.USERS.USERID.eq(userID)))) {
-                throw new UserDoesntExistException("The user with the given ID doesn't exist!");
-            }
-            return dsl.select(Users.USERS.ROLE).from(Users.USERS).where(Users.USERS.USERID.eq(userID)).fetchOne(
-                    Users.USERS.ROLE) == 1;
+            return fetchOneOrThrow(
+                    dsl.select(Users.USERS.ROLE).from(Users.USERS).where(Users.USERS.USERID.eq(userID)),
+                    () -> new UserDoesntExistException("The user with the given ID doesn't exist!")).value1() == 1;
         }
     }
 
@@ -240,22 +339,20 @@ public class UserRepository extends AbstractRepository {
      * @throws InvalidEmailTypeException  if the email is invalid
      */
     public UsersRecord registerUser(String username, String plainTextPassword, String email) throws SQLException, UserAlreadyExistsException, InvalidEmailTypeException {
-        try (Connection connection = dataSource.getConnection()) {
-            var dsl = getDSLContext(connection);
+        if (email != null && !isValidEmail(email)) {
+            throw new InvalidEmailTypeException("Invalid email type!");
+        }
+        // Hashing is slow on purpose, so it is done before the transaction instead of holding it open
+        String hashedPassword = PasswordUtil.hashPassword(plainTextPassword);
 
+        return inTransaction(dsl -> {
             if (dsl.fetchExists(dsl.selectFrom(Users.USERS).where(Users.USERS.USERNAME.eq(username)))) {
                 throw new UserAlreadyExistsException("Username already exists, please choose another one!");
             }
 
-            if (email != null && !isValidEmail(email)) {
-                throw new InvalidEmailTypeException("Invalid email type!");
-            }
-            String hashedPassword = PasswordUtil.hashPassword(plainTextPassword);
-            dsl.insertInto(Users.USERS).set(Users.USERS.USERNAME, username).set(Users.USERS.PASSWORD,
-                    hashedPassword).set(Users.USERS.EMAIL, email).set(Users.USERS.ROLE, 0).execute();
-
-            return dsl.selectFrom(Users.USERS).where(Users.USERS.USERNAME.eq(username)).fetchOne();
-        }
+            return dsl.insertInto(Users.USERS).set(Users.USERS.USERNAME, username).set(Users.USERS.PASSWORD,
+                    hashedPassword).set(Users.USERS.EMAIL, email).set(Users.USERS.ROLE, 0).returning().fetchOne();
+        });
     }
 
     /**
@@ -283,14 +380,12 @@ public class UserRepository extends AbstractRepository {
      * @throws UserDoesntExistException if the user with the given ID does not exist
      */
     public void deleteUserById(int userId) throws SQLException, UserDoesntExistException {
-        try (Connection connection = dataSource.getConnection()) {
+        verifiedCredentials.invalidate(userId);
+        try (Connection connection = getConnection()) {
             var dsl = getDSLContext(connection);
 
-            if (!dsl.fetchExists(dsl.selectFrom(Users.USERS).where(Users.USERS.USERID.eq(userId)))) {
-                throw new UserDoesntExistException("The user with the given ID doesn't exist!");
-            }
-
-            dsl.deleteFrom(Users.USERS).where(Users.USERS.USERID.eq(userId)).execute();
+            executeOrThrow(dsl.deleteFrom(Users.USERS).where(Users.USERS.USERID.eq(userId)),
+                    () -> new UserDoesntExistException("The user with the given ID doesn't exist!"));
         }
     }
 
@@ -306,22 +401,19 @@ public class UserRepository extends AbstractRepository {
      * @throws UserDoesntExistException if the user with the given username does not exist
      */
     public void deleteUserByName(String UserName) throws SQLException, UserDoesntExistException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getConnection()) {
             var dsl = getDSLContext(connection);
 
-            if (!dsl.fetchExists(dsl.selectFrom(Users.USERS).where(Users.USERS.USERNAME.eq(UserName)))) {
-                throw new UserDoesntExistException("The user with the given username doesn't exist!");
-            }
-
-            dsl.deleteFrom(Users.USERS).where(Users.USERS.USERNAME.eq(UserName)).execute();
+            executeOrThrow(dsl.deleteFrom(Users.USERS).where(Users.USERS.USERNAME.eq(UserName)),
+                    () -> new UserDoesntExistException("The user with the given username doesn't exist!"));
         }
     }
 
     /**
      * Edits the user data in the database.
      * <p>
-     * This method updates the user's password and/or email in the database based on the provided user ID.
-     * If the new email is invalid, an InvalidEmailTypeException is thrown.
+     * This method updates the user's password and/or email in the database based on the provided user ID
+     * in one transaction. If the new email is invalid, an InvalidEmailTypeException is thrown.
      * </p>
      *
      * @param currentUserId the ID of the user whose data is to be edited
@@ -331,16 +423,18 @@ public class UserRepository extends AbstractRepository {
      * @throws InvalidEmailTypeException if the new email is invalid
      */
     public void editUserData(int currentUserId, String newPassword, String newEmail) throws SQLException, InvalidEmailTypeException {
-        try (Connection connection = dataSource.getConnection()) {
-            var dsl = getDSLContext(connection);
-
-            if (newEmail != null && !isValidEmail(newEmail)) {
-                throw new InvalidEmailTypeException("Invalid email type!");
-            }
+        if (newEmail != null && !isValidEmail(newEmail)) {
+            throw new InvalidEmailTypeException("Invalid email type!");
+        }
+        // Hashing is slow on purpose, so it is done before the transaction instead of holding it open
+        String hashedPassword = newPassword != null && !newPassword.isEmpty()
+                ? PasswordUtil.hashPassword(newPassword)
+                : null;
 
+        inTransaction(dsl -> {
             // Update the user's password if provided
-            if (newPassword != null && !newPassword.isEmpty()) {
-                String hashedPassword = PasswordUtil.hashPassword(newPassword);
+            if (hashedPassword != null) {
+                verifiedCredentials.invalidate(currentUserId);
                 dsl.update(DSL.table("users")).set(DSL.field("password"), hashedPassword).where(
                         DSL.field("userid").eq(currentUserId)).execute();
             }
@@ -350,7 +444,8 @@ public class UserRepository extends AbstractRepository {
                 dsl.update(DSL.table("users")).set(DSL.field("email"), newEmail).where(
                         DSL.field("userid").eq(currentUserId)).execute();
             }
-        }
+            return null;
+        });
     }
 
     /**
@@ -364,7 +459,7 @@ public class UserRepository extends AbstractRepository {
      * @throws SQLException if a database access error occurs
      */
     public void setAllergeneSettings(int userId, String allergies) throws SQLException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getConnection()) {
             var dsl = getDSLContext(connection);
             dsl.update(Users.USERS)
                     .set(Users.USERS.DONT_SHOW_MEAL, allergies)
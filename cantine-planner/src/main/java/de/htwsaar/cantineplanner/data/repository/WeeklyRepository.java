@@ -36,7 +36,7 @@ public class WeeklyRepository extends AbstractRepository {
      * @throws SQLException if a database access error occurs
      */
     public List<MealsRecord> getWeeklyPlan() throws SQLException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getReadConnection()) {
             DSLContext dsl = getDSLContext(connection);
             return dsl.selectFrom(Meals.MEALS).where(Meals.MEALS.DAY.isNotNull()).fetchInto(MealsRecord.class);
         }
@@ -55,7 +55,7 @@ public class WeeklyRepository extends AbstractRepository {
      * @throws MealDoesntExistException if the meal with the given name does not exist
      */
     public void editWeeklyPlan(String mealName, String day) throws SQLException, MealDoesntExistException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getConnection()) {
             DSLContext create = DSL.using(connection, SQLDialect.SQLITE);
             int rowsAffected = create.update(DSL.table("meals")).set(DSL.field("day"), day).where(
                     DSL.field("Name").eq(mealName)).execute();
@@ -76,7 +76,7 @@ public class WeeklyRepository extends AbstractRepository {
      * @throws SQLException if a database access error occurs
      */
     public void resetWeeklyPlan() throws SQLException {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getConnection()) {
             DSLContext dsl = getDSLContext(connection);
             dsl.update(DSL.table("meals")).set(DSL.field("day"), (String) null).execute();
         }
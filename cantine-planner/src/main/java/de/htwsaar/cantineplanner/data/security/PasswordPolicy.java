@@ -0,0 +1,117 @@
+package de.htwsaar.cantineplanner.data.security;
+
+import de.htwsaar.cantineplanner.data.exceptions.DataBaseLoadException;
+import de.htwsaar.cantineplanner.data.util.ApplicationProperties;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * The Argon2id cost parameters used to hash passwords.
+ * <p>
+ * The parameters are stored with every hash, so they can be changed per deployment without
+ * invalidating the stored passwords; hashes with other parameters are upgraded on the next login.
+ * </p>
+ *
+ * @param memoryKb    the memory cost in KiB
+ * @param iterations  the number of passes over the memory
+ * @param parallelism the number of lanes
+ */
+public record PasswordPolicy(int memoryKb, int iterations, int parallelism) {
+
+    /**
+     * The parameters of the hashes stored before the parameters were part of the hash.
+     */
+    public static final PasswordPolicy LEGACY = new PasswordPolicy(65536, 3, 1);
+
+    /**
+     * Prefix of the settings in application.properties overriding the parameters.
+     */
+    public static final String PROPERTY_PREFIX = "password.argon2.";
+
+    /**
+     * Validates the parameters.
+     *
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public PasswordPolicy {
+        if (parallelism < 1 || iterations < 1 || memoryKb < 8 * parallelism) {
+            throw new IllegalArgumentException("Invalid Argon2 parameters m=" + memoryKb + ",t=" + iterations
+                    + ",p=" + parallelism);
+        }
+    }
+
+    /**
+     * Returns the policy configured in application.properties, using the legacy parameters for
+     * every setting that is missing.
+     *
+     * @return the configured policy
+     */
+    public static PasswordPolicy fromApplicationProperties() {
+        return new PasswordPolicy(
+                ApplicationProperties.getInt(PROPERTY_PREFIX + "memory", LEGACY.memoryKb()),
+                ApplicationProperties.getInt(PROPERTY_PREFIX + "iterations", LEGACY.iterations()),
+                ApplicationProperties.getInt(PROPERTY_PREFIX + "parallelism", LEGACY.parallelism()));
+    }
+
+    /**
+     * Returns the policy persisted in the given file, or the one configured in application.properties
+     * if the file does not exist.
+     *
+     * @param path the file a calibrated policy was stored in
+     * @return the persisted or configured policy
+     * @throws DataBaseLoadException if the file cannot be read
+     */
+    public static PasswordPolicy load(Path path) {
+        if (!Files.exists(path)) {
+            return fromApplicationProperties();
+        }
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(path)) {
+            properties.load(input);
+        } catch (IOException e) {
+            throw new DataBaseLoadException("Error loading the password policy " + path, e);
+        }
+        return new PasswordPolicy(
+                Integer.parseInt(properties.getProperty(PROPERTY_PREFIX + "memory").trim()),
+                Integer.parseInt(properties.getProperty(PROPERTY_PREFIX + "iterations").trim()),
+                Integer.parseInt(properties.getProperty(PROPERTY_PREFIX + "parallelism").trim()));
+    }
+
+    /**
+     * Persists this policy, so {@link #load(Path)} returns it on the next start.
+     *
+     * @param path    the file to store the policy in
+     * @param comment a comment written to the top of the file
+     * @throws DataBaseLoadException if the file cannot be written
+     */
+    public void store(Path path, String comment) {
+        Properties properties = new Properties();
+        properties.setProperty(PROPERTY_PREFIX + "memory", String.valueOf(memoryKb));
+        properties.setProperty(PROPERTY_PREFIX + "iterations", String.valueOf(iterations));
+        properties.setProperty(PROPERTY_PREFIX + "parallelism", String.valueOf(parallelism));
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (OutputStream output = Files.newOutputStream(path)) {
+                properties.store(output, comment);
+            }
+        } catch (IOException e) {
+            throw new DataBaseLoadException("Error storing the password policy " + path, e);
+        }
+    }
+
+    /**
+     * Returns the memory a single hash computation needs.
+     *
+     * @return the memory cost in bytes
+     */
+    public long memoryBytes() {
+        return memoryKb * 1024L;
+    }
+}
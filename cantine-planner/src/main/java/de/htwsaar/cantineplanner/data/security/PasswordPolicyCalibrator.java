@@ -0,0 +1,127 @@
+package de.htwsaar.cantineplanner.data.security;
+
+import java.util.Arrays;
+
+/**
+ * Chooses the Argon2id parameters for this host by measuring the hash time.
+ * <p>
+ * The memory cost starts at the largest power of two that still lets the configured number of concurrent
+ * logins hash at the same time within the memory budget, and is halved while a single pass takes longer
+ * than the target latency. The iterations then fill the rest of the target latency. The parallelism stays
+ * at 1: Bouncy Castle computes the Argon2 lanes one after another, so more lanes add memory traffic
+ * without lowering the latency, and concurrent logins already use the other cores.
+ * </p>
+ */
+public class PasswordPolicyCalibrator {
+
+    /**
+     * The smallest memory cost the calibration chooses unless the budget is even smaller, in KiB.
+     */
+    public static final int MIN_MEMORY_KB = 8 * 1024;
+
+    /**
+     * The largest memory cost the calibration chooses, in KiB.
+     */
+    public static final int MAX_MEMORY_KB = 256 * 1024;
+
+    private static final int SAMPLES = 3;
+    private static final String PASSWORD = "calibration password";
+
+    private final long targetMillis;
+    private final int concurrentLogins;
+    private final long memoryBudgetBytes;
+    private final int maxMemoryKb;
+
+    /**
+     * Constructs a calibrator that may use half of the maximum heap for concurrent hashes.
+     *
+     * @param targetMillis     the verify latency to aim for, in milliseconds
+     * @param concurrentLogins the number of logins that must be able to hash at the same time
+     */
+    public PasswordPolicyCalibrator(long targetMillis, int concurrentLogins) {
+        this(targetMillis, concurrentLogins, Runtime.getRuntime().maxMemory() / 2, MAX_MEMORY_KB);
+    }
+
+    /**
+     * Constructs a calibrator.
+     *
+     * @param targetMillis      the verify latency to aim for, in milliseconds
+     * @param concurrentLogins  the number of logins that must be able to hash at the same time
+     * @param memoryBudgetBytes the memory all concurrent hashes together may use
+     * @param maxMemoryKb       the largest memory cost to choose, in KiB
+     * @throws IllegalArgumentException if a parameter is not positive
+     */
+    public PasswordPolicyCalibrator(long targetMillis, int concurrentLogins, long memoryBudgetBytes, int maxMemoryKb) {
+        if (targetMillis <= 0 || concurrentLogins <= 0 || memoryBudgetBytes <= 0 || maxMemoryKb <= 0) {
+            throw new IllegalArgumentException("Calibration parameters must be positive");
+        }
+        this.targetMillis = targetMillis;
+        this.concurrentLogins = concurrentLogins;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.maxMemoryKb = maxMemoryKb;
+    }
+
+    /**
+     * Measures Argon2id on this host and chooses the parameters.
+     *
+     * @return the chosen policy with its measured latency and throughput
+     */
+    public Calibration calibrate() {
+        long budgetKb = memoryBudgetBytes / 1024 / concurrentLogins;
+        int capKb = (int) Math.max(8, Math.min(maxMemoryKb, budgetKb));
+        int minMemoryKb = Math.min(MIN_MEMORY_KB, capKb);
+        int memoryKb = Integer.highestOneBit(capKb);
+
+        double passMillis = measure(new PasswordPolicy(memoryKb, 1, 1));
+        while (passMillis > targetMillis && memoryKb / 2 >= minMemoryKb) {
+            memoryKb /= 2;
+            passMillis = measure(new PasswordPolicy(memoryKb, 1, 1));
+        }
+
+        int iterations = (int) Math.max(1, Math.floor(targetMillis / passMillis));
+        PasswordPolicy policy = new PasswordPolicy(memoryKb, iterations, 1);
+        double verifyMillis = iterations == 1 ? passMillis : measure(policy);
+
+        int parallelLogins = Math.min(concurrentLogins, Runtime.getRuntime().availableProcessors());
+        return new Calibration(policy, verifyMillis, parallelLogins * 1000.0 / verifyMillis);
+    }
+
+    /**
+     * Returns the median time of verifying a password hashed with the given policy, after one warm-up run.
+     *
+     * @param policy the parameters to measure
+     * @return the median verify time in milliseconds
+     */
+    private static double measure(PasswordPolicy policy) {
+        String storedHash = PasswordUtil.hashPassword(PASSWORD, policy);
+        double[] samples = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            PasswordUtil.verifyPassword(PASSWORD, storedHash);
+            samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+
+    /**
+     * The result of a calibration.
+     *
+     * @param policy          the chosen parameters
+     * @param verifyMillis    the measured time of one verification with the chosen parameters
+     * @param loginsPerSecond the logins per second this host achieves with the configured concurrent logins
+     */
+    public record Calibration(PasswordPolicy policy, double verifyMillis, double loginsPerSecond) {
+
+        /**
+         * Describes the calibration for the console and the persisted policy file.
+         *
+         * @return a one-line summary
+         */
+        @Override
+        public String toString() {
+            return String.format("Argon2id m=%d KiB, t=%d, p=%d: %.0f ms per verification, %.1f logins/s",
+                    policy.memoryKb(), policy.iterations(), policy.parallelism(), verifyMillis, loginsPerSecond);
+        }
+    }
+}
@@ -3,48 +3,132 @@ package de.htwsaar.cantineplanner.data.security;
         import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
         import org.bouncycastle.crypto.params.Argon2Parameters;
 
+        import java.security.MessageDigest;
         import java.security.SecureRandom;
+        import java.util.Arrays;
         import java.util.Base64;
 
         /**
          * Utility class for password hashing and verification using Argon2 algorithm.
+         * <p>
+         * Hashes are stored in the PHC string format {@code $argon2id$v=19$m=<memory>,t=<iterations>,p=<parallelism>$<salt>$<hash>},
+         * so each hash carries the parameters it was computed with. Hashes in the older {@code <salt>$<hash>} format
+         * were computed with {@link PasswordPolicy#LEGACY} and still verify. New hashes use the current policy;
+         * {@link #needsRehash(String)} tells whether a stored hash should be replaced after a successful login.
+         * </p>
+         * <p>
+         * Hashes are compared in constant time, and the password characters and hash bytes are zeroed
+         * as soon as they are no longer needed.
+         * </p>
          */
         public class PasswordUtil {
 
             private static final int SALT_LENGTH = 16;
             private static final int HASH_LENGTH = 32;
-            private static final int ITERATIONS = 3;
-            private static final int MEMORY = 65536;
-            private static final int PARALLELISM = 1;
+            private static final String PHC_PREFIX = "$argon2id$v=19$";
+
+            // SecureRandom is thread-safe; seeding a new instance per salt can block on entropy under load
+            private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+            private static final Base64.Encoder PHC_ENCODER = Base64.getEncoder().withoutPadding();
+            private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+            private static volatile PasswordPolicy policy = PasswordPolicy.fromApplicationProperties();
+
+            /**
+             * Returns the policy new hashes are computed with.
+             *
+             * @return the current password policy
+             */
+            public static PasswordPolicy getPolicy() {
+                return policy;
+            }
+
+            /**
+             * Sets the policy new hashes are computed with.
+             *
+             * @param newPolicy the new password policy
+             */
+            public static void setPolicy(PasswordPolicy newPolicy) {
+                policy = newPolicy;
+            }
 
             /**
-             * Hashes a password using Argon2 algorithm.
+             * Returns the memory a single hash computation with the current policy needs.
+             *
+             * @return the Argon2 memory cost in bytes
+             */
+            public static long getHashMemoryBytes() {
+                return policy.memoryBytes();
+            }
+
+            /**
+             * Hashes a password using Argon2 algorithm with the current policy.
              *
              * @param password the password to hash
-             * @return the hashed password in Base64 format, with the salt and hash separated by a '$'
+             * @return the hashed password in the PHC string format
              */
             public static String hashPassword(String password) {
-                byte[] salt = generateSalt();
-                byte[] hash = hashPassword(password.toCharArray(), salt);
+                return hashPassword(password, policy);
+            }
 
-                return Base64.getEncoder().encodeToString(salt) + "$" + Base64.getEncoder().encodeToString(hash);
+            /**
+             * Hashes a password using Argon2 algorithm with the given parameters.
+             *
+             * @param password the password to hash
+             * @param parameters the Argon2 parameters to use
+             * @return the hashed password in the PHC string format
+             */
+            public static String hashPassword(String password, PasswordPolicy parameters) {
+                char[] passwordChars = password.toCharArray();
+                byte[] salt = generateSalt();
+                byte[] hash = hashPassword(passwordChars, salt, parameters);
+                try {
+                    return PHC_PREFIX + "m=" + parameters.memoryKb() + ",t=" + parameters.iterations()
+                            + ",p=" + parameters.parallelism() + "$" + PHC_ENCODER.encodeToString(salt)
+                            + "$" + PHC_ENCODER.encodeToString(hash);
+                } finally {
+                    Arrays.fill(passwordChars, '\0');
+                    Arrays.fill(hash, (byte) 0);
+                }
             }
 
             /**
              * Verifies a password against a stored hash.
+             * <p>
+             * The raw hash bytes are compared with {@link MessageDigest#isEqual(byte[], byte[])}, which takes
+             * the same time no matter where the hashes differ.
+             * </p>
              *
              * @param password the password to verify
-             * @param storedHash the stored hash in Base64 format, with the salt and hash separated by a '$'
+             * @param storedHash the stored hash in the PHC string format or the legacy {@code <salt>$<hash>} format
              * @return true if the password matches the stored hash, false otherwise
              */
             public static boolean verifyPassword(String password, String storedHash) {
-                String[] parts = storedHash.split("\\$");
-                byte[] salt = Base64.getDecoder().decode(parts[0]);
-                byte[] hash = Base64.getDecoder().decode(parts[1]);
+                EncodedHash encoded = EncodedHash.decode(storedHash);
+                if (encoded == null) {
+                    return false;
+                }
 
-                byte[] calculatedHash = hashPassword(password.toCharArray(), salt);
+                char[] passwordChars = password.toCharArray();
+                byte[] calculatedHash = hashPassword(passwordChars, encoded.salt(), encoded.parameters());
+                try {
+                    return MessageDigest.isEqual(calculatedHash, encoded.hash());
+                } finally {
+                    Arrays.fill(passwordChars, '\0');
+                    Arrays.fill(calculatedHash, (byte) 0);
+                    Arrays.fill(encoded.hash(), (byte) 0);
+                }
+            }
 
-                return Base64.getEncoder().encodeToString(calculatedHash).equals(Base64.getEncoder().encodeToString(hash));
+            /**
+             * Checks whether a stored hash was computed with other parameters than the current policy.
+             *
+             * @param storedHash the stored hash
+             * @return true if the hash should be recomputed with the current policy
+             */
+            public static boolean needsRehash(String storedHash) {
+                EncodedHash encoded = EncodedHash.decode(storedHash);
+                return encoded == null || !storedHash.startsWith(PHC_PREFIX) || !encoded.parameters().equals(policy);
             }
 
             /**
@@ -54,7 +138,7 @@ package de.htwsaar.cantineplanner.data.security;
              */
             private static byte[] generateSalt() {
                 byte[] salt = new byte[SALT_LENGTH];
-                new SecureRandom().nextBytes(salt);
+                SECURE_RANDOM.nextBytes(salt);
                 return salt;
             }
 
@@ -63,14 +147,16 @@ package de.htwsaar.cantineplanner.data.security;
              *
              * @param password the password to hash
              * @param salt the salt to use in the hashing process
+             * @param parameters the Argon2 parameters to use
              * @return a byte array containing the hashed password
              */
-            private static byte[] hashPassword(char[] password, byte[] salt) {
+            private static byte[] hashPassword(char[] password, byte[] salt, PasswordPolicy parameters) {
                 Argon2Parameters.Builder builder = new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
+                        .withVersion(Argon2Parameters.ARGON2_VERSION_13)
                         .withSalt(salt)
-                        .withParallelism(PARALLELISM)
-                        .withMemoryAsKB(MEMORY)
-                        .withIterations(ITERATIONS);
+                        .withParallelism(parameters.parallelism())
+                        .withMemoryAsKB(parameters.memoryKb())
+                        .withIterations(parameters.iterations());
 
                 Argon2BytesGenerator generator = new Argon2BytesGenerator();
                 generator.init(builder.build());
@@ -80,4 +166,68 @@ package de.htwsaar.cantineplanner.data.security;
 
                 return hash;
             }
-        }
\ No newline at end of file
+
+            /**
+             * A stored hash split into its parts.
+             *
+             * @param parameters the parameters the hash was computed with
+             * @param salt the salt
+             * @param hash the raw hash
+             */
+            private record EncodedHash(PasswordPolicy parameters, byte[] salt, byte[] hash) {
+
+                /**
+                 * Decodes a hash in the PHC string format or the legacy format.
+                 *
+                 * @param storedHash the stored hash
+                 * @return the decoded hash, or null if the hash is malformed
+                 */
+                static EncodedHash decode(String storedHash) {
+                    try {
+                        if (!storedHash.startsWith(PHC_PREFIX)) {
+                            int separator = storedHash.indexOf('$');
+                            if (separator < 0) {
+                                return null;
+                            }
+                            return new EncodedHash(PasswordPolicy.LEGACY,
+                                    DECODER.decode(storedHash.substring(0, separator)),
+                                    DECODER.decode(storedHash.substring(separator + 1)));
+                        }
+
+                        int parametersEnd = storedHash.indexOf('$', PHC_PREFIX.length());
+                        int saltEnd = storedHash.indexOf('$', parametersEnd + 1);
+                        if (parametersEnd < 0 || saltEnd < 0) {
+                            return null;
+                        }
+                        return new EncodedHash(parseParameters(storedHash.substring(PHC_PREFIX.length(), parametersEnd)),
+                                DECODER.decode(storedHash.substring(parametersEnd + 1, saltEnd)),
+                                DECODER.decode(storedHash.substring(saltEnd + 1)));
+                    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                        return null;
+                    }
+                }
+
+                /**
+                 * Parses the {@code m=<memory>,t=<iterations>,p=<parallelism>} part of a PHC string.
+                 *
+                 * @param parameters the parameter part
+                 * @return the parsed parameters
+                 * @throws IllegalArgumentException if the parameters are malformed
+                 */
+                private static PasswordPolicy parseParameters(String parameters) {
+                    int memory = -1;
+                    int iterations = -1;
+                    int parallelism = -1;
+                    for (String parameter : parameters.split(",")) {
+                        int value = Integer.parseInt(parameter.substring(2));
+                        switch (parameter.substring(0, 2)) {
+                            case "m=" -> memory = value;
+                            case "t=" -> iterations = value;
+                            case "p=" -> parallelism = value;
+                            default -> throw new IllegalArgumentException("Unknown Argon2 parameter " + parameter);
+                        }
+                    }
+                    return new PasswordPolicy(memory, iterations, parallelism);
+                }
+            }
+        }
@@ -0,0 +1,164 @@
+package de.htwsaar.cantineplanner.data.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Short-lived cache of recent successful password verifications, so re-authenticating a user who
+ * just logged in does not run Argon2 again.
+ * <p>
+ * For every user ID the cache keeps an HMAC-SHA256 of the verified password and the stored hash it was
+ * verified against, never the password itself. The HMAC key is random per process. An entry only matches
+ * the same password against the same stored hash, so a changed password never matches an old entry;
+ * {@link #invalidate(int)} drops the entry right away. Entries expire after the TTL and the least
+ * recently used entries are evicted once the cache is full.
+ * </p>
+ */
+public class VerifiedCredentialCache {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Clock clock;
+    private final Map<Integer, Entry> entries;
+
+    /**
+     * Constructs a new VerifiedCredentialCache.
+     *
+     * @param ttl        how long a verification is remembered
+     * @param maxEntries the maximum number of remembered users
+     */
+    public VerifiedCredentialCache(Duration ttl, int maxEntries) {
+        this(ttl, maxEntries, Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a new VerifiedCredentialCache with the given clock.
+     *
+     * @param ttl        how long a verification is remembered
+     * @param maxEntries the maximum number of remembered users
+     * @param clock      the clock to measure the TTL with
+     */
+    public VerifiedCredentialCache(Duration ttl, int maxEntries, Clock clock) {
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > VerifiedCredentialCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Remembers a successful verification.
+     *
+     * @param userId     the ID of the verified user
+     * @param password   the verified password
+     * @param storedHash the stored hash the password was verified against
+     */
+    public void put(int userId, String password, String storedHash) {
+        if (maxEntries <= 0 || ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+        Entry entry = new Entry(mac(userId, password, storedHash), clock.millis() + ttl.toMillis());
+        synchronized (entries) {
+            entries.put(userId, entry);
+        }
+    }
+
+    /**
+     * Checks whether the password was verified against the stored hash within the TTL.
+     *
+     * @param userId     the ID of the user
+     * @param password   the password to check
+     * @param storedHash the current stored hash of the user
+     * @return true if the same password was verified against the same hash recently
+     */
+    public boolean matches(int userId, String password, String storedHash) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(userId);
+            if (entry != null && entry.expiresAt() <= clock.millis()) {
+                entries.remove(userId);
+                entry = null;
+            }
+        }
+        return entry != null && MessageDigest.isEqual(entry.mac(), mac(userId, password, storedHash));
+    }
+
+    /**
+     * Forgets the verification of a user, e.g. after the password was changed.
+     *
+     * @param userId the ID of the user
+     */
+    public void invalidate(int userId) {
+        synchronized (entries) {
+            entries.remove(userId);
+        }
+    }
+
+    /**
+     * Returns the number of remembered users, including expired entries not evicted yet.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Computes the HMAC of a user ID, a password and a stored hash.
+     *
+     * @param userId     the ID of the user
+     * @param password   the password
+     * @param storedHash the stored hash
+     * @return the HMAC
+     */
+    private byte[] mac(int userId, String password, String storedHash) {
+        ByteBuffer passwordBytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            mac.update(ByteBuffer.allocate(Integer.BYTES).putInt(userId).array());
+            mac.update(ByteBuffer.allocate(Integer.BYTES).putInt(passwordBytes.remaining()).array());
+            mac.update(passwordBytes.duplicate());
+            mac.update(storedHash.getBytes(StandardCharsets.UTF_8));
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            if (passwordBytes.hasArray()) {
+                Arrays.fill(passwordBytes.array(), (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * A remembered verification.
+     *
+     * @param mac       the HMAC of the user ID, password and stored hash
+     * @param expiresAt the time the entry expires, in epoch milliseconds
+     */
+    private record Entry(byte[] mac, long expiresAt) {
+    }
+}
@@ -0,0 +1,74 @@
+package de.htwsaar.cantineplanner.data.util;
+
+import de.htwsaar.cantineplanner.data.exceptions.DataBaseLoadException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Utility class for reading the application settings from application.properties on the classpath.
+ */
+public class ApplicationProperties {
+
+    private static final String PROPERTIES_NAME = "application.properties";
+
+    private static Properties properties;
+
+    /**
+     * Returns a boolean setting.
+     *
+     * @param key          the key of the setting
+     * @param defaultValue the value to use if the setting is missing
+     * @return the value of the setting
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getProperties().getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    /**
+     * Returns an integer setting.
+     *
+     * @param key          the key of the setting
+     * @param defaultValue the value to use if the setting is missing
+     * @return the value of the setting
+     * @throws NumberFormatException if the setting is not an integer
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = getProperties().getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Returns a text setting.
+     *
+     * @param key          the key of the setting
+     * @param defaultValue the value to use if the setting is missing or empty
+     * @return the trimmed value of the setting
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = getProperties().getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Loads the settings once; a missing file leaves every setting at its default.
+     *
+     * @return the loaded settings
+     */
+    private static synchronized Properties getProperties() {
+        if (properties == null) {
+            Properties loaded = new Properties();
+            try (InputStream input = ApplicationProperties.class.getClassLoader().getResourceAsStream(PROPERTIES_NAME)) {
+                if (input != null) {
+                    loaded.load(input);
+                }
+            } catch (IOException e) {
+                throw new DataBaseLoadException("Error loading " + PROPERTIES_NAME, e);
+            }
+            properties = loaded;
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,134 @@
+package de.htwsaar.cantineplanner.data.util;
+
+import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
+import de.htwsaar.cantineplanner.data.exceptions.DataBaseLoadException;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for migrating the database schema.
+ * <p>
+ * Migrations are SQL scripts on the classpath named {@code db/migration/V1.sql}, {@code V2.sql} and so on.
+ * Every script is applied once in its own transaction and recorded in the schema_version table,
+ * so running the migrations again only applies the scripts that are new.
+ * </p>
+ */
+public class SchemaMigrator {
+
+    private static final String MIGRATION_PATH = "db/migration/V%d.sql";
+
+    private static final Table<Record> SCHEMA_VERSION = DSL.table(DSL.name("schema_version"));
+    private static final Field<Integer> VERSION = DSL.field(DSL.name("version"), SQLDataType.INTEGER);
+    private static final Field<String> SCRIPT = DSL.field(DSL.name("script"), SQLDataType.VARCHAR);
+
+    /**
+     * Applies all migrations that have not been applied to the database yet.
+     *
+     * @param dataSource the data source of the database to migrate
+     * @return the number of applied migrations
+     * @throws SQLException if a database access error occurs
+     */
+    public static int migrate(HikariCPDataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            DSLContext dsl = DSL.using(connection, SQLDialect.SQLITE);
+
+            dsl.createTableIfNotExists(SCHEMA_VERSION)
+                    .column(VERSION, SQLDataType.INTEGER.nullable(false))
+                    .column(SCRIPT, SQLDataType.VARCHAR.nullable(false))
+                    .column("applied_at", SQLDataType.TIMESTAMP.nullable(false).defaultValue(DSL.currentTimestamp()))
+                    .constraint(DSL.primaryKey(VERSION))
+                    .execute();
+            Integer current = dsl.select(DSL.max(VERSION)).from(SCHEMA_VERSION).fetchOne(0, Integer.class);
+
+            int applied = 0;
+            for (int version = current == null ? 1 : current + 1; ; version++) {
+                String script = String.format(MIGRATION_PATH, version);
+                String sql = readScript(script);
+                if (sql == null) {
+                    return applied;
+                }
+
+                int appliedVersion = version;
+                dsl.transaction(configuration -> {
+                    var transaction = DSL.using(configuration);
+                    for (String statement : splitStatements(sql)) {
+                        transaction.execute(statement);
+                    }
+                    transaction.insertInto(SCHEMA_VERSION)
+                            .set(VERSION, appliedVersion)
+                            .set(SCRIPT, script)
+                            .execute();
+                });
+                applied++;
+            }
+        }
+    }
+
+    /**
+     * Reads a migration script from the classpath.
+     *
+     * @param script the classpath location of the script
+     * @return the content of the script, or null if there is no such script
+     */
+    private static String readScript(String script) {
+        try (InputStream inputStream = SchemaMigrator.class.getClassLoader().getResourceAsStream(script)) {
+            if (inputStream == null) {
+                return null;
+            }
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new DataBaseLoadException("Error reading the migration " + script, e);
+        }
+    }
+
+    /**
+     * Splits a migration script into its statements.
+     * <p>
+     * Statements end with a semicolon at the end of a line. Trigger bodies contain semicolons themselves,
+     * so a CREATE TRIGGER statement only ends with the line {@code END;}. Lines starting with {@code --}
+     * are comments and skipped.
+     * </p>
+     *
+     * @param sql the content of the script
+     * @return the statements of the script
+     */
+    private static List<String> splitStatements(String sql) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        boolean inTrigger = false;
+
+        for (String line : sql.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            if (statement.isEmpty()) {
+                inTrigger = trimmed.toUpperCase().matches("CREATE\\s+(TEMP\\s+|TEMPORARY\\s+)?TRIGGER\\b.*");
+            }
+            statement.append(line).append('\n');
+
+            boolean end = inTrigger ? trimmed.equalsIgnoreCase("END;") : trimmed.endsWith(";");
+            if (end) {
+                statements.add(statement.toString().trim());
+                statement.setLength(0);
+            }
+        }
+        if (!statement.toString().isBlank()) {
+            statements.add(statement.toString().trim());
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,56 @@
+package de.htwsaar.cantineplanner.presentation;
+
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.gui2.MultiWindowTextGUI;
+import com.googlecode.lanterna.gui2.Window;
+import com.googlecode.lanterna.gui2.WindowBasedTextGUI;
+import com.googlecode.lanterna.screen.TerminalScreen;
+import com.googlecode.lanterna.terminal.virtual.DefaultVirtualTerminal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A GUI drawing to a virtual terminal in memory, used to replay recorded events without a user.
+ * <p>
+ * Windows that would wait for the user are drawn once and removed again, so every screen costs what it
+ * costs to build and render it, but no screen blocks.
+ * </p>
+ */
+public class HeadlessTextGUI extends MultiWindowTextGUI {
+    private static final TerminalSize TERMINAL_SIZE = new TerminalSize(120, 40);
+
+    /**
+     * Constructs a HeadlessTextGUI on a new virtual terminal.
+     *
+     * @throws IOException if the virtual screen cannot be started
+     */
+    public HeadlessTextGUI() throws IOException {
+        super(startScreen());
+    }
+
+    private static TerminalScreen startScreen() throws IOException {
+        TerminalScreen screen = new TerminalScreen(new DefaultVirtualTerminal(TERMINAL_SIZE));
+        screen.startScreen();
+        return screen;
+    }
+
+    /**
+     * Draws the window and removes it right away instead of waiting for it to be closed.
+     *
+     * @param window the window to draw
+     * @return this GUI
+     */
+    @Override
+    public WindowBasedTextGUI addWindowAndWait(Window window) {
+        addWindow(window);
+        try {
+            updateScreen();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            removeWindow(window);
+        }
+        return this;
+    }
+}
@@ -6,19 +6,30 @@ import com.googlecode.lanterna.terminal.DefaultTerminalFactory;
 import de.htwsaar.cantineplanner.businessLogic.mapper.AllergenMapper;
 import de.htwsaar.cantineplanner.businessLogic.service.CantineService;
 import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
+import de.htwsaar.cantineplanner.businessLogic.manager.EventStatistics;
 import de.htwsaar.cantineplanner.businessLogic.mapper.MealTypeMapper;
+import de.htwsaar.cantineplanner.businessLogic.types.Allergen;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.IntData;
 import de.htwsaar.cantineplanner.businessLogic.types.eventdata.StringData;
 import de.htwsaar.cantineplanner.codegen.tables.records.MealsRecord;
 import de.htwsaar.cantineplanner.codegen.tables.records.ReviewRecord;
 import de.htwsaar.cantineplanner.codegen.tables.records.UsersRecord;
+import de.htwsaar.cantineplanner.data.model.MealRatingStats;
+import de.htwsaar.cantineplanner.data.model.Page;
+import de.htwsaar.cantineplanner.data.model.SearchHit;
 import de.htwsaar.cantineplanner.presentation.pages.*;
 
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * Manager for application screens.
@@ -30,6 +41,8 @@ public class ScreenManager {
     private MultiWindowTextGUI gui;
     private final EventManager eventManager;
     private final CantineService cantineService;
+    // Operations shown with showProgressUntilDone whose continuation didn't run yet
+    private final AtomicInteger pendingOperations = new AtomicInteger();
 
     ////////////////////////////////////////////////////////////////////////////////
     // Constructor and Initialization
@@ -53,6 +66,19 @@ public class ScreenManager {
         }
     }
 
+    /**
+     * Constructor that uses the given GUI, e.g. a {@link HeadlessTextGUI} to replay events without a terminal.
+     *
+     * @param eventManager   the event manager for notifications and events.
+     * @param cantineService the service to load the data of the screens with.
+     * @param gui            the GUI to show the screens on.
+     */
+    public ScreenManager(EventManager eventManager, CantineService cantineService, MultiWindowTextGUI gui) {
+        this.eventManager = eventManager;
+        this.cantineService = cantineService;
+        this.gui = gui;
+    }
+
     ////////////////////////////////////////////////////////////////////////////////
     // Menus
     ////////////////////////////////////////////////////////////////////////////////
@@ -66,6 +92,7 @@ public class ScreenManager {
                 new MenuBuilder.MenuButton("Meal Menu", EventType.SWITCH_MENU, new IntData(2)),
                 new MenuBuilder.MenuButton("Review Menu", EventType.SWITCH_MENU, new IntData(3)),
                 new MenuBuilder.MenuButton("Weekly Menu", EventType.SWITCH_MENU, new IntData(5)),
+                new MenuBuilder.MenuButton("Search", EventType.SHOW_SEARCH),
                 new MenuBuilder.MenuButton("Logout", EventType.LOGOUT),
                 new MenuBuilder.MenuButton("Exit", EventType.EXIT)
         );
@@ -118,6 +145,7 @@ public class ScreenManager {
             userMenuButtons.add(new MenuBuilder.MenuButton("Add User", EventType.SHOW_REGISTER_SCREEN));
             userMenuButtons.add(new MenuBuilder.MenuButton("Delete User", EventType.SHOW_DELETE_USER));
             userMenuButtons.add(new MenuBuilder.MenuButton("Update User Roles", EventType.SHOW_UPDATE_USER_ROLE));
+            userMenuButtons.add(new MenuBuilder.MenuButton("Diagnostics", EventType.SHOW_DIAGNOSTICS));
         }
         userMenuButtons.add(new MenuBuilder.MenuButton("Main Menu", EventType.SWITCH_MENU, new IntData(1)));
         MenuBuilder userMenu = new MenuBuilder(gui, eventManager)
@@ -287,13 +315,23 @@ public class ScreenManager {
         inputScreenBuilder.display(labels, EventType.SEARCH_REVIEWS_BY_MEAL_NAME);
     }
 
+    /**
+     * Displays the input screen of the full-text search over meals and reviews.
+     */
+    public void showSearchScreen() {
+        InputScreenBuilder inputScreenBuilder = new InputScreenBuilder(gui, eventManager,
+                "Search Meals and Reviews");
+        List<String> labels = List.of("Search");
+        inputScreenBuilder.display(labels, EventType.SEARCH);
+    }
+
     /**
      * Displays the allergene settings input screen.
      */
     public void showAllergeneSettings() {
-        List<String> allergene = Arrays.asList("Gluten", "Crustaceans", "Eggs", "Fish", "Peanuts",
-                "Soy", "Milk", "Nuts", "Celery", "Mustard", "Sesame", "Sulfites", "Lupins",
-                "Molluscs");
+        List<String> allergene = Arrays.stream(Allergen.values())
+                .map(Allergen::getDisplayName)
+                .toList();
         CheckboxScreenBuilder builder = new CheckboxScreenBuilder(gui, eventManager, "Select Allergens");
         builder.display(allergene, EventType.ALLERGENE_SETTINGS);
     }
@@ -317,58 +355,124 @@ public class ScreenManager {
      * @param reviews the list of review records.
      */
     public void showAllReviews(List<ReviewRecord> reviews) {
-        var tableBuilder = new TableBuilder(gui, "All Reviews")
+        showAllReviews(Page.of(reviews), null);
+    }
+
+    /**
+     * Displays a table of reviews that reads the next page when the user scrolls past the last row.
+     *
+     * @param firstPage the first page of review records.
+     * @param nextPages reads the pages after the first one, may be null if the first page is the last one.
+     */
+    public void showAllReviews(Page<ReviewRecord> firstPage, Page.Source<ReviewRecord> nextPages) {
+        new TableBuilder(gui, "All Reviews")
                 .addColumn("ID")
                 .addColumn("Rating")
                 .addColumn("Comment")
                 .addColumn("Meal ID")
                 .addColumn("Date")
-                .addColumn("UserID");
-        for (ReviewRecord review : reviews) {
-            tableBuilder.addRow(Arrays.asList(String.valueOf(review.getRatingId()),
-                    String.valueOf(review.getRating()),
-                    review.getComment(),
-                    String.valueOf(review.getMealId()),
-                    review.getCreatedAt().toString(),
-                    String.valueOf(review.getUserid())));
+                .addColumn("UserID")
+                .setPages(firstPage, nextPages, review -> Arrays.asList(String.valueOf(review.getRatingId()),
+                        String.valueOf(review.getRating()),
+                        review.getComment(),
+                        String.valueOf(review.getMealId()),
+                        review.getCreatedAt().toString(),
+                        String.valueOf(review.getUserid())))
+                .display();
+    }
+
+    /**
+     * Displays a table of search results, best matches first.
+     *
+     * @param hits the meals and reviews found by the search.
+     */
+    public void showSearchResults(List<SearchHit> hits) {
+        var tableBuilder = new TableBuilder(gui, "Search Results")
+                .addColumn("Type")
+                .addColumn("Meal ID")
+                .addColumn("Meal")
+                .addColumn("Match");
+        for (SearchHit hit : hits) {
+            tableBuilder.addRow(Arrays.asList(hit.type() == SearchHit.Type.MEAL ? "Meal" : "Review",
+                    String.valueOf(hit.mealId()),
+                    Objects.requireNonNullElse(hit.mealName(), "-"),
+                    Objects.requireNonNullElse(hit.text(), "")));
         }
         tableBuilder.display();
     }
 
     /**
      * Displays a table of all meals.
+     * <p>
+     * The rating statistics of all listed meals are fetched with a single query up front.
+     * </p>
      *
      * @param meals the list of meal records.
+     * @throws SQLException if the rating statistics can't be fetched
      */
     public void showAllMeals(List<MealsRecord> meals) throws SQLException {
-        TableBuilder tableBuilder = new TableBuilder(gui, "All Meals")
+        showAllMeals(meals, cantineService.getMealRatingStats(meals.stream().map(MealsRecord::getMealId).toList()));
+    }
+
+    /**
+     * Displays a table of meals with rating statistics that were already fetched, without querying the database.
+     *
+     * @param meals       the list of meal records.
+     * @param ratingStats the rating statistics of the meals by meal ID; meals without an entry have no reviews.
+     */
+    public void showAllMeals(List<MealsRecord> meals, Map<Integer, MealRatingStats> ratingStats) {
+        TableBuilder tableBuilder = createMealsTable();
+        for (MealsRecord meal : meals) {
+            tableBuilder.addRow(mealRow(meal, ratingStats));
+        }
+        tableBuilder.display();
+    }
+
+    /**
+     * Displays a table of meals that reads the next page when the user scrolls past the last row.
+     * <p>
+     * The rating statistics of the meals of a page are fetched with a single query when the page is read.
+     * </p>
+     *
+     * @param firstPage the first page of meal records.
+     * @param nextPages reads the pages after the first one.
+     * @throws SQLException if the rating statistics of the first page can't be fetched
+     */
+    public void showAllMeals(Page<MealsRecord> firstPage, Page.Source<MealsRecord> nextPages) throws SQLException {
+        createMealsTable()
+                .setPages(mealRows(firstPage), (afterId, limit) -> mealRows(nextPages.load(afterId, limit)),
+                        Function.identity())
+                .display();
+    }
+
+    private TableBuilder createMealsTable() {
+        return new TableBuilder(gui, "All Meals")
                 .addColumn("ID")
                 .addColumn("Name")
                 .addColumn("Price")
                 .addColumn("Calories")
                 .addColumn("Allergens")
                 .addColumn("Meat")
-                .addColumn("Median Rating");
-        for (MealsRecord meal : meals) {
-            String allergenInfo = Optional.ofNullable(meal.getAllergy())
-                    .filter(allergy -> !allergy.isEmpty())
-                    .map(allergy -> Arrays.stream(allergy.split(""))
-                            .map(AllergenMapper::getAllergenFullName)
-                            .collect(Collectors.joining(" ")))
-                    .orElse("No Allergies");
-            String mealType = MealTypeMapper.getMealTypeName(meal.getMeat());
+                .addColumn("Median Rating")
+                .addColumn("Reviews");
+    }
 
-            double medianRating = cantineService.calculateMedianRatingForMeal(meal.getMealId());
+    private Page<List<String>> mealRows(Page<MealsRecord> meals) throws SQLException {
+        Map<Integer, MealRatingStats> ratingStats = cantineService.getMealRatingStats(
+                meals.items().stream().map(MealsRecord::getMealId).toList());
+        return meals.map(meal -> mealRow(meal, ratingStats));
+    }
 
-            tableBuilder.addRow(Arrays.asList(String.valueOf(meal.getMealId()),
-                    meal.getName(),
-                    String.format("%.2f", meal.getPrice()),
-                    String.valueOf(meal.getCalories()),
-                    allergenInfo,
-                    mealType,
-                    medianRating == -1 ? "No Reviews" : String.format("%.2f", medianRating)));
-        }
-        tableBuilder.display();
+    private static List<String> mealRow(MealsRecord meal, Map<Integer, MealRatingStats> ratingStats) {
+        MealRatingStats stats = ratingStats.getOrDefault(meal.getMealId(), MealRatingStats.empty(meal.getMealId()));
+        return Arrays.asList(String.valueOf(meal.getMealId()),
+                meal.getName(),
+                String.format("%.2f", meal.getPrice()),
+                String.valueOf(meal.getCalories()),
+                AllergenMapper.getAllergenDisplayString(meal.getAllergy()),
+                MealTypeMapper.getMealTypeName(meal.getMeat()),
+                stats.hasReviews() ? String.format("%.2f", stats.median()) : "No Reviews",
+                String.valueOf(stats.reviewCount()));
     }
 
     /**
@@ -405,12 +509,7 @@ public class ScreenManager {
                 .addColumn("Calories")
                 .addColumn("Allergens")
                 .addColumn("Meat");
-        String allergens = Optional.ofNullable(meal.getAllergy())
-                .filter(allergy -> !allergy.isEmpty())
-                .map(allergy -> Arrays.stream(allergy.split(""))
-                        .map(AllergenMapper::getAllergenFullName)
-                        .collect(Collectors.joining(" ")))
-                .orElse("No Allergies");
+        String allergens = AllergenMapper.getAllergenDisplayString(meal.getAllergy());
         tableBuilder.addRow(Arrays.asList(String.valueOf(meal.getMealId()),
                 meal.getName(),
                 String.format("%.2f", meal.getPrice()),
@@ -430,37 +529,31 @@ public class ScreenManager {
                 .addColumn("Meal Name")
                 .addColumn("Allergy");
         for (MealsRecord meal : meals) {
-            String allergens = Optional.ofNullable(meal.getAllergy())
-                    .filter(allergy -> !allergy.isEmpty())
-                    .map(allergy -> Arrays.stream(allergy.split(""))
-                            .map(AllergenMapper::getAllergenFullName)
-                            .collect(Collectors.joining(" ")))
-                    .orElse("No Allergies");
+            String allergens = AllergenMapper.getAllergenDisplayString(meal.getAllergy());
             tableBuilder.addRow(Arrays.asList(meal.getName(), allergens));
         }
         tableBuilder.display();
     }
 
     /**
-     * Displays a table of all users.
+     * Displays a table of all users that reads the next page when the user scrolls past the last row.
      *
-     * @param users the list of user records.
+     * @param firstPage the first page of user records.
+     * @param nextPages reads the pages after the first one.
      */
-    public void showAllUser(List<UsersRecord> users) {
-        TableBuilder tableBuilder = new TableBuilder(gui, "All Users")
+    public void showAllUser(Page<UsersRecord> firstPage, Page.Source<UsersRecord> nextPages) {
+        new TableBuilder(gui, "All Users")
                 .addColumn("ID")
                 .addColumn("Username")
                 .addColumn("Email")
                 .addColumn("Role")
-                .addColumn("Allergies");
-        for (UsersRecord user : users) {
-            tableBuilder.addRow(Arrays.asList(String.valueOf(user.getUserid()),
-                    user.getUsername(),
-                    user.getEmail(),
-                    String.valueOf(user.getRole()),
-                    user.getDontShowMeal()));
-        }
-        tableBuilder.display();
+                .addColumn("Allergies")
+                .setPages(firstPage, nextPages, user -> Arrays.asList(String.valueOf(user.getUserid()),
+                        user.getUsername(),
+                        user.getEmail(),
+                        String.valueOf(user.getRole()),
+                        user.getDontShowMeal()))
+                .display();
     }
 
     /**
@@ -477,12 +570,7 @@ public class ScreenManager {
                 .addColumn("Allergens")
                 .addColumn("Meat");
         for (MealsRecord meal : weeklyPlan) {
-            String allergens = Optional.ofNullable(meal.getAllergy())
-                    .filter(allergy -> !allergy.isEmpty())
-                    .map(allergy -> Arrays.stream(allergy.split(""))
-                            .map(AllergenMapper::getAllergenFullName)
-                            .collect(Collectors.joining(" ")))
-                    .orElse("No Allergies");
+            String allergens = AllergenMapper.getAllergenDisplayString(meal.getAllergy());
             tableBuilder.addRow(Arrays.asList(meal.getDay(),
                     meal.getName(),
                     String.format("%.2f", meal.getPrice()),
@@ -493,6 +581,32 @@ public class ScreenManager {
         tableBuilder.display();
     }
 
+    /**
+     * Displays the statistics of the dispatched events, the slowest event types first.
+     *
+     * @param summaries the statistics of the event types.
+     */
+    public void showDiagnosticsScreen(List<EventStatistics.Summary> summaries) {
+        TableBuilder tableBuilder = new TableBuilder(gui, "Diagnostics")
+                .addColumn("Event")
+                .addColumn("Count")
+                .addColumn("Errors")
+                .addColumn("Mean ms")
+                .addColumn("p50 ms")
+                .addColumn("p95 ms")
+                .addColumn("p99 ms");
+        for (EventStatistics.Summary summary : summaries) {
+            tableBuilder.addRow(Arrays.asList(summary.name(),
+                    String.valueOf(summary.count()),
+                    String.valueOf(summary.errors()),
+                    String.format("%.3f", summary.meanNanos() / 1e6),
+                    String.format("%.3f", summary.p50Nanos() / 1e6),
+                    String.format("%.3f", summary.p95Nanos() / 1e6),
+                    String.format("%.3f", summary.p99Nanos() / 1e6)));
+        }
+        tableBuilder.display();
+    }
+
     ////////////////////////////////////////////////////////////////////////////////
     // Weekly Plan Input Screens
     ////////////////////////////////////////////////////////////////////////////////
@@ -552,6 +666,60 @@ public class ScreenManager {
         successScreen.display();
     }
 
+    /**
+     * Shows a progress message until the given operation is done and then runs the continuation on the GUI thread.
+     * <p>
+     * The continuation receives the result of the operation, or the exception it failed with, unwrapped from
+     * the CompletionException.
+     * </p>
+     *
+     * @param message      the message to show while waiting, e.g. "Verifying..."
+     * @param operation    the operation running in the background
+     * @param continuation the code to run with the result or the exception once the operation is done
+     * @param <T>          the type of the result
+     */
+    public <T> void showProgressUntilDone(String message, CompletableFuture<T> operation,
+                                          BiConsumer<T, Throwable> continuation) {
+        ProgressScreenBuilder progressScreen = new ProgressScreenBuilder(gui, message);
+        progressScreen.display();
+        pendingOperations.incrementAndGet();
+        operation.whenComplete((result, throwable) -> gui.getGUIThread().invokeLater(() -> {
+            try {
+                progressScreen.close();
+                continuation.accept(result,
+                        throwable instanceof CompletionException ? throwable.getCause() : throwable);
+            } finally {
+                pendingOperations.decrementAndGet();
+            }
+        }));
+    }
+
+    /**
+     * Processes the tasks of the GUI thread until every operation shown with
+     * {@link #showProgressUntilDone(String, CompletableFuture, BiConsumer)} has run its continuation.
+     * <p>
+     * Must be called on the GUI thread, e.g. by the replay of recorded events after every event.
+     * </p>
+     *
+     * @throws IOException if the screen cannot be updated
+     */
+    public void awaitPendingOperations() throws IOException {
+        gui.getGUIThread().processEventsAndUpdate();
+        while (pendingOperations.get() > 0) {
+            LockSupport.parkNanos(100_000);
+            gui.getGUIThread().processEventsAndUpdate();
+        }
+    }
+
+    /**
+     * Returns an executor running tasks on the GUI thread, e.g. to render results computed in the background.
+     *
+     * @return the executor of the GUI thread
+     */
+    public Executor getRenderExecutor() {
+        return task -> gui.getGUIThread().invokeLater(task);
+    }
+
     /**
      * Closes the currently active window.
      */
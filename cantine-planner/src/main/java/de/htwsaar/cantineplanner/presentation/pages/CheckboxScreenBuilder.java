@@ -72,7 +72,7 @@ package de.htwsaar.cantineplanner.presentation.pages;
                         }
                     }
                     String result = String.join(",", selectedValues);
-                    eventManager.notify(eventType, new StringArrayData(new String[]{result}));
+                    eventManager.notifyUserAction(eventType, new StringArrayData(new String[]{result}));
                 }));
 
                 panel.addComponent(buttonPanel);
@@ -81,6 +81,6 @@ package de.htwsaar.cantineplanner.presentation.pages;
                 window.setComponent(panel);
                 window.setHints(List.of(Window.Hint.CENTERED));
 
-                gui.addWindowAndWait(window);
+                EventManager.excludeFromLatency(() -> gui.addWindowAndWait(window));
             }
         }
\ No newline at end of file
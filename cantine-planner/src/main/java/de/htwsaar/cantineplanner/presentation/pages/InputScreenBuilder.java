@@ -74,7 +74,7 @@ public class InputScreenBuilder {
             for (TextBox textBox : textBoxes) {
                 values.add(textBox.getText());
             }
-            eventManager.notify(eventType, new StringArrayData(values.toArray(new String[0])));
+            eventManager.notifyUserAction(eventType, new StringArrayData(values.toArray(new String[0])));
         }));
 
         panel.addComponent(buttonPanel, GridLayout.createHorizontallyFilledLayoutData(2));
@@ -83,6 +83,6 @@ public class InputScreenBuilder {
         window.setComponent(panel);
         window.setHints(List.of(Window.Hint.CENTERED));
 
-        gui.addWindowAndWait(window);
+        EventManager.excludeFromLatency(() -> gui.addWindowAndWait(window));
     }
 }
\ No newline at end of file
@@ -53,14 +53,14 @@ public class LoginScreen extends AbstractScreen {
         buttonPanel.addComponent(new Button("Login", () -> {
             String user = username.getText();
             String pass = password.getText();
-            eventManager.notify(EventType.LOGIN, new StringArrayData(new String[]{user, pass}));
+            eventManager.notifyUserAction(EventType.LOGIN, new StringArrayData(new String[]{user, pass}));
         }).setPreferredSize(new TerminalSize(20, 3)).setLayoutData(
                 GridLayout.createLayoutData(GridLayout.Alignment.BEGINNING, GridLayout.Alignment.BEGINNING)));
 
-        buttonPanel.addComponent(new Button("Register", () -> eventManager.notify(EventType.SHOW_REGISTER_SCREEN, null)).setPreferredSize(new TerminalSize(20, 3)).setLayoutData(
+        buttonPanel.addComponent(new Button("Register", () -> eventManager.notifyUserAction(EventType.SHOW_REGISTER_SCREEN, null)).setPreferredSize(new TerminalSize(20, 3)).setLayoutData(
                 GridLayout.createLayoutData(GridLayout.Alignment.BEGINNING, GridLayout.Alignment.BEGINNING)));
 
-        buttonPanel.addComponent(new Button("Exit", () -> eventManager.notify(EventType.EXIT, null)).setPreferredSize(new TerminalSize(20, 3)).setLayoutData(
+        buttonPanel.addComponent(new Button("Exit", () -> eventManager.notifyUserAction(EventType.EXIT, null)).setPreferredSize(new TerminalSize(20, 3)).setLayoutData(
                 GridLayout.createLayoutData(GridLayout.Alignment.CENTER, GridLayout.Alignment.CENTER)));
 
         panel.addComponent(buttonPanel,
@@ -71,6 +71,6 @@ public class LoginScreen extends AbstractScreen {
         window.setComponent(panel);
         window.setHints(List.of(Window.Hint.CENTERED));
 
-        gui.addWindowAndWait(window);
+        EventManager.excludeFromLatency(() -> gui.addWindowAndWait(window));
     }
 }
\ No newline at end of file
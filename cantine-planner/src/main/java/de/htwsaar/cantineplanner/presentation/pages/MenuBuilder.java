@@ -75,14 +75,14 @@ package de.htwsaar.cantineplanner.presentation.pages;
                 gridLayout.setVerticalSpacing(2);
 
                 for (MenuButton button : buttons) {
-                    panel.addComponent(new Button(button.getLabel(), () -> eventManager.notify(button.getEvent(), button.getData()))
+                    panel.addComponent(new Button(button.getLabel(), () -> eventManager.notifyUserAction(button.getEvent(), button.getData()))
                             .setPreferredSize(new TerminalSize(35, 3))
                             .setLayoutData(GridLayout.createLayoutData(GridLayout.Alignment.CENTER, GridLayout.Alignment.CENTER)));
                 }
                 BasicWindow window = new BasicWindow(title);
                 window.setComponent(panel);
                 window.setHints(List.of(Window.Hint.CENTERED));
-                gui.addWindowAndWait(window);
+                EventManager.excludeFromLatency(() -> gui.addWindowAndWait(window));
             }
 
             /**
@@ -2,6 +2,7 @@ package de.htwsaar.cantineplanner.presentation.pages;
 
         import com.googlecode.lanterna.gui2.*;
         import com.googlecode.lanterna.TextColor;
+        import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
 
         import java.util.List;
 
@@ -47,6 +48,6 @@ package de.htwsaar.cantineplanner.presentation.pages;
                 window.setComponent(panel);
                 window.setHints(List.of(Window.Hint.CENTERED));
 
-                gui.addWindowAndWait(window);
+                EventManager.excludeFromLatency(() -> gui.addWindowAndWait(window));
             }
         }
\ No newline at end of file
@@ -0,0 +1,152 @@
+package de.htwsaar.cantineplanner.presentation.pages;
+
+import com.googlecode.lanterna.gui2.table.TableModel;
+import de.htwsaar.cantineplanner.data.model.Page;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A table model holding only a window of the pages of a listing.
+ * <p>
+ * The model holds the page of the selected row and one page before and after it as a prefetch margin. When
+ * the selection moves to another page, the pages next to it are read and formatted and the pages further away
+ * are evicted, so opening and scrolling a table of any length formats at most three pages. The Lanterna table
+ * renderer measures every row of its model, which is why the rows outside the window are not in the model.
+ * </p>
+ * <p>
+ * Evicted pages are read again from the cursor they started after, so only one cursor per page is kept. A page
+ * read again shows its rows as they are at that time.
+ * </p>
+ *
+ * @param <T> the type of the items of the listing
+ */
+public final class PagedTableModel<T> extends TableModel<String> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PagedTableModel.class);
+
+    private final Page.Source<T> source;
+    private final Function<? super T, List<String>> rowFormatter;
+    private final int pageSize;
+    // The cursor each page starts after, by page number; the next pages are unknown until a page ends in a cursor
+    private final List<Integer> pageCursors = new ArrayList<>();
+    // The number of rows of the pages in the model, the first one is page firstPage
+    private final Deque<Integer> pageRowCounts = new ArrayDeque<>();
+    private int firstPage;
+
+    /**
+     * Constructs a PagedTableModel showing the first page of a listing.
+     * <p>
+     * The next pages are read with the size of the first page, so the first page should be read with the size
+     * meant for every page.
+     * </p>
+     *
+     * @param columnLabels the labels of the columns
+     * @param firstPage    the first page of the listing
+     * @param source       reads the pages of the listing, may be null if the first page is the last one
+     * @param rowFormatter formats an item as the values of its row
+     */
+    public PagedTableModel(String[] columnLabels, Page<T> firstPage, Page.Source<T> source,
+                           Function<? super T, List<String>> rowFormatter) {
+        super(columnLabels);
+        this.source = source;
+        this.rowFormatter = rowFormatter;
+        this.pageSize = Math.max(firstPage.items().size(), 1);
+        pageCursors.add(null);
+        appendPage(firstPage);
+    }
+
+    /**
+     * Reads and evicts pages so the model holds the page of the given row and the pages next to it.
+     * <p>
+     * Rows are inserted and removed in front of the given row, so its index changes by the returned number.
+     * A page that can't be read is logged and read again on the next call.
+     * </p>
+     *
+     * @param row the index of the selected row in the model
+     * @return the number of rows inserted in front of the row, negative if more rows were removed
+     */
+    public synchronized int scrollTo(int row) {
+        int page = pageOfRow(row);
+        int shift = 0;
+        try {
+            int lastPage = firstPage + pageRowCounts.size() - 1;
+            if (page == lastPage && pageCursors.size() > lastPage + 1) {
+                appendPage(source.load(pageCursors.get(lastPage + 1), pageSize));
+            }
+            if (page == firstPage && firstPage > 0) {
+                shift += prependPage(source.load(pageCursors.get(firstPage - 1), pageSize));
+            }
+        } catch (SQLException e) {
+            LOGGER.warn("Reading a page of the table failed", e);
+        }
+        while (firstPage < page - 1) {
+            shift -= evictFirstPage();
+        }
+        while (firstPage + pageRowCounts.size() - 1 > page + 1) {
+            evictLastPage();
+        }
+        return shift;
+    }
+
+    /**
+     * Finds the page of a row of the model.
+     *
+     * @param row the index of the row in the model
+     * @return the number of the page, the last page in the model if the row is past its end
+     */
+    private int pageOfRow(int row) {
+        int page = firstPage;
+        int end = 0;
+        for (int rowCount : pageRowCounts) {
+            end += rowCount;
+            if (row < end) {
+                return page;
+            }
+            page++;
+        }
+        return page - 1;
+    }
+
+    private void appendPage(Page<T> page) {
+        for (T item : page.items()) {
+            addRow(rowFormatter.apply(item));
+        }
+        int pageNumber = firstPage + pageRowCounts.size();
+        pageRowCounts.addLast(page.items().size());
+        if (page.hasNext() && pageCursors.size() == pageNumber + 1) {
+            pageCursors.add(page.nextCursor());
+        }
+    }
+
+    private int prependPage(Page<T> page) {
+        List<T> items = page.items();
+        for (int i = items.size() - 1; i >= 0; i--) {
+            insertRow(0, rowFormatter.apply(items.get(i)));
+        }
+        firstPage--;
+        pageRowCounts.addFirst(items.size());
+        return items.size();
+    }
+
+    private int evictFirstPage() {
+        int rowCount = pageRowCounts.removeFirst();
+        for (int i = 0; i < rowCount; i++) {
+            removeRow(0);
+        }
+        firstPage++;
+        return rowCount;
+    }
+
+    private void evictLastPage() {
+        int rowCount = pageRowCounts.removeLast();
+        for (int i = 0; i < rowCount; i++) {
+            removeRow(getRowCount() - 1);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package de.htwsaar.cantineplanner.presentation.pages;
+
+import com.googlecode.lanterna.gui2.*;
+
+import java.util.List;
+
+/**
+ * The ProgressScreenBuilder class is responsible for showing a message while a background operation runs.
+ * <p>
+ * Unlike the other screens it does not wait for the window to be closed, so the GUI keeps processing
+ * events until the operation is done and {@link #close()} is called.
+ * </p>
+ */
+public class ProgressScreenBuilder extends AbstractScreen {
+    private final String progressMessage;
+    private BasicWindow window;
+
+    /**
+     * Constructs a ProgressScreenBuilder with the specified GUI and progress message.
+     *
+     * @param gui             the MultiWindowTextGUI instance
+     * @param progressMessage the message to show while waiting
+     */
+    public ProgressScreenBuilder(MultiWindowTextGUI gui, String progressMessage) {
+        super(gui);
+        this.progressMessage = progressMessage;
+    }
+
+    /**
+     * Displays the progress window without waiting for it to be closed.
+     */
+    @Override
+    public void display() {
+        Panel panel = new Panel(new GridLayout(1));
+        GridLayout gridLayout = (GridLayout) panel.getLayoutManager();
+        gridLayout.setTopMarginSize(1);
+        panel.addComponent(new Label(progressMessage));
+
+        window = new BasicWindow("Please wait");
+        window.setComponent(panel);
+        window.setHints(List.of(Window.Hint.CENTERED, Window.Hint.MODAL));
+
+        gui.addWindow(window);
+    }
+
+    /**
+     * Closes the progress window.
+     */
+    public void close() {
+        if (window != null) {
+            window.close();
+        }
+    }
+}
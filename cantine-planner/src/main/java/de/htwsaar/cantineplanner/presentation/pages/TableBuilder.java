@@ -2,18 +2,30 @@ package de.htwsaar.cantineplanner.presentation.pages;
 
         import com.googlecode.lanterna.gui2.*;
         import com.googlecode.lanterna.gui2.table.Table;
+        import com.googlecode.lanterna.input.KeyStroke;
+        import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
+        import de.htwsaar.cantineplanner.data.model.Page;
+
         import java.util.ArrayList;
         import java.util.List;
+        import java.util.function.Function;
 
         /**
          * The TableBuilder class is responsible for building and displaying a table
          * in a terminal-based GUI.
+         * <p>
+         * A table can show a listing read page by page with {@link #setPages(Page, Page.Source, Function)}. Only
+         * the pages around the selected row are read and formatted, see {@link PagedTableModel}, so a table opens
+         * in the same time however many rows the listing has.
+         * </p>
          */
         public class TableBuilder {
             private final MultiWindowTextGUI gui;
             private final String title;
             private final List<String> columns;
             private final List<List<String>> rows;
+            // Creates the model of a table read page by page from its column labels, null for the added rows
+            private Function<String[], PagedTableModel<?>> pagedModel;
 
             /**
              * Constructs a TableBuilder with the specified GUI and title.
@@ -50,17 +62,32 @@ package de.htwsaar.cantineplanner.presentation.pages;
                 return this;
             }
 
+            /**
+             * Shows a listing read page by page instead of the added rows.
+             * <p>
+             * The pages are read on the GUI thread while the user scrolls, with the size of the first page, so
+             * the first page should be read with the size meant for every page.
+             * </p>
+             *
+             * @param firstPage    the first page of the listing
+             * @param nextPages    reads the pages of the listing, may be null if the first page is the last one
+             * @param rowFormatter formats an item as the values of its row
+             * @param <T>          the type of the items
+             * @return the current instance of TableBuilder
+             */
+            public <T> TableBuilder setPages(Page<T> firstPage, Page.Source<T> nextPages,
+                                             Function<? super T, List<String>> rowFormatter) {
+                this.pagedModel = columnLabels -> new PagedTableModel<>(columnLabels, firstPage, nextPages, rowFormatter);
+                return this;
+            }
+
             /**
              * Displays the table in the GUI.
              */
             public void display() {
                 Panel panel = new Panel(new GridLayout(1));
-                Table<String> table = new Table<>(columns.toArray(new String[0]));
+                Table<String> table = pagedModel == null ? createTable() : createPagedTable();
                 table.setVisibleRows(20);
-
-                for (List<String> row : rows) {
-                    table.getTableModel().addRow(row.toArray(new String[0]));
-                }
                 panel.addComponent(table);
 
                 Button closeButton = new Button("Close", () -> {
@@ -74,6 +101,43 @@ package de.htwsaar.cantineplanner.presentation.pages;
                 window.setComponent(panel);
                 window.setHints(List.of(Window.Hint.CENTERED));
 
-                gui.addWindowAndWait(window);
+                EventManager.excludeFromLatency(() -> gui.addWindowAndWait(window));
+            }
+
+            private Table<String> createTable() {
+                Table<String> table = new Table<>(columns.toArray(new String[0]));
+                for (List<String> row : rows) {
+                    table.getTableModel().addRow(row);
+                }
+                return table;
+            }
+
+            private Table<String> createPagedTable() {
+                String[] columnLabels = columns.toArray(new String[0]);
+                PagedTableModel<?> model = pagedModel.apply(columnLabels);
+                Table<String> table = new Table<>(columnLabels) {
+                    @Override
+                    public Result handleKeyStroke(KeyStroke keyStroke) {
+                        Result result = super.handleKeyStroke(keyStroke);
+                        followSelection(this, model);
+                        return result;
+                    }
+                };
+                table.setTableModel(model);
+                followSelection(table, model);
+                return table;
+            }
+
+            /**
+             * Moves the window of pages of the model to the selected row and keeps the row at its place on screen.
+             *
+             * @param table the displayed table
+             * @param model the model of the table
+             */
+            private static void followSelection(Table<String> table, PagedTableModel<?> model) {
+                int shift = model.scrollTo(table.getSelectedRow());
+                if (shift != 0) {
+                    table.getRenderer().setViewTopRow(Math.max(table.getFirstViewedRowIndex() + shift, 0));
+                }
             }
         }
\ No newline at end of file
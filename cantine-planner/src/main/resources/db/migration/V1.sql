@@ -0,0 +1,24 @@
+-- Materialized rating statistics per meal, maintained by ReviewRepository on every review write
+CREATE TABLE IF NOT EXISTS meal_rating_summary (
+    meal_id      INTEGER NOT NULL PRIMARY KEY,
+    review_count INTEGER NOT NULL DEFAULT 0,
+    rating_sum   INTEGER NOT NULL DEFAULT 0,
+    rating_0     INTEGER NOT NULL DEFAULT 0,
+    rating_1     INTEGER NOT NULL DEFAULT 0,
+    rating_2     INTEGER NOT NULL DEFAULT 0,
+    rating_3     INTEGER NOT NULL DEFAULT 0,
+    rating_4     INTEGER NOT NULL DEFAULT 0,
+    rating_5     INTEGER NOT NULL DEFAULT 0
+);
+
+DELETE FROM meal_rating_summary;
+
+INSERT INTO meal_rating_summary (meal_id, review_count, rating_sum,
+                                 rating_0, rating_1, rating_2, rating_3, rating_4, rating_5)
+SELECT meal_id, count(*), sum(rating),
+       count(*) FILTER (WHERE rating = 0), count(*) FILTER (WHERE rating = 1),
+       count(*) FILTER (WHERE rating = 2), count(*) FILTER (WHERE rating = 3),
+       count(*) FILTER (WHERE rating = 4), count(*) FILTER (WHERE rating = 5)
+FROM review
+WHERE rating BETWEEN 0 AND 5
+GROUP BY meal_id;
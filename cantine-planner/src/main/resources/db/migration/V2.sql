@@ -0,0 +1,6 @@
+-- Secondary indexes for the columns the repositories filter on
+CREATE INDEX IF NOT EXISTS idx_review_meal_id ON review (meal_id);
+CREATE INDEX IF NOT EXISTS idx_review_userid ON review (userid);
+CREATE INDEX IF NOT EXISTS idx_users_username ON users (username);
+CREATE INDEX IF NOT EXISTS idx_meals_name ON meals (Name);
+CREATE INDEX IF NOT EXISTS idx_meals_day ON meals (day);
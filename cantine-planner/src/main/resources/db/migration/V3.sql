@@ -0,0 +1,49 @@
+-- Allergens of a meal as a bitmask, so meals can be filtered with (allergy_mask & :userMask) = 0.
+-- Bit i is the allergen code at index i of "FNGMESCUTLPIKWH" (AllergenMapper.MASK_ORDER), codes may only be appended.
+ALTER TABLE meals ADD COLUMN allergy_mask INTEGER NOT NULL DEFAULT 0;
+
+-- The mask is derived from the comma separated codes in the allergy column on every write
+CREATE TRIGGER IF NOT EXISTS meals_allergy_mask_insert AFTER INSERT ON meals
+BEGIN
+    UPDATE meals SET allergy_mask =
+          (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',F,') > 0 THEN 1 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',N,') > 0 THEN 2 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',G,') > 0 THEN 4 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',M,') > 0 THEN 8 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',E,') > 0 THEN 16 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',S,') > 0 THEN 32 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',C,') > 0 THEN 64 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',U,') > 0 THEN 128 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',T,') > 0 THEN 256 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',L,') > 0 THEN 512 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',P,') > 0 THEN 1024 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',I,') > 0 THEN 2048 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',K,') > 0 THEN 4096 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',W,') > 0 THEN 8192 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',H,') > 0 THEN 16384 ELSE 0 END)
+    WHERE meal_id = NEW.meal_id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS meals_allergy_mask_update AFTER UPDATE OF allergy ON meals
+BEGIN
+    UPDATE meals SET allergy_mask =
+          (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',F,') > 0 THEN 1 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',N,') > 0 THEN 2 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',G,') > 0 THEN 4 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',M,') > 0 THEN 8 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',E,') > 0 THEN 16 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',S,') > 0 THEN 32 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',C,') > 0 THEN 64 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',U,') > 0 THEN 128 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',T,') > 0 THEN 256 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',L,') > 0 THEN 512 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',P,') > 0 THEN 1024 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',I,') > 0 THEN 2048 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',K,') > 0 THEN 4096 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',W,') > 0 THEN 8192 ELSE 0 END)
+        | (CASE WHEN instr(',' || replace(coalesce(NEW.allergy, ''), ' ', '') || ',', ',H,') > 0 THEN 16384 ELSE 0 END)
+    WHERE meal_id = NEW.meal_id;
+END;
+
+-- Fires the update trigger for the existing meals
+UPDATE meals SET allergy = allergy;
@@ -0,0 +1,52 @@
+-- Full-text indexes over meal names and review comments for the Search screen. Both index the rows of their
+-- table as external content, so only the index is stored; diacritics are folded, "Hahnchen" finds "Hähnchen".
+CREATE VIRTUAL TABLE IF NOT EXISTS meal_search USING fts5(
+    Name,
+    content = 'meals',
+    content_rowid = 'meal_id',
+    tokenize = 'unicode61 remove_diacritics 2'
+);
+
+CREATE VIRTUAL TABLE IF NOT EXISTS review_search USING fts5(
+    comment,
+    content = 'review',
+    content_rowid = 'rating_id',
+    tokenize = 'unicode61 remove_diacritics 2'
+);
+
+-- The indexes follow every write of the indexed columns
+CREATE TRIGGER IF NOT EXISTS meals_search_insert AFTER INSERT ON meals
+BEGIN
+    INSERT INTO meal_search (rowid, Name) VALUES (NEW.meal_id, NEW.Name);
+END;
+
+CREATE TRIGGER IF NOT EXISTS meals_search_delete AFTER DELETE ON meals
+BEGIN
+    INSERT INTO meal_search (meal_search, rowid, Name) VALUES ('delete', OLD.meal_id, OLD.Name);
+END;
+
+CREATE TRIGGER IF NOT EXISTS meals_search_update AFTER UPDATE OF Name ON meals
+BEGIN
+    INSERT INTO meal_search (meal_search, rowid, Name) VALUES ('delete', OLD.meal_id, OLD.Name);
+    INSERT INTO meal_search (rowid, Name) VALUES (NEW.meal_id, NEW.Name);
+END;
+
+CREATE TRIGGER IF NOT EXISTS review_search_insert AFTER INSERT ON review
+BEGIN
+    INSERT INTO review_search (rowid, comment) VALUES (NEW.rating_id, NEW.comment);
+END;
+
+CREATE TRIGGER IF NOT EXISTS review_search_delete AFTER DELETE ON review
+BEGIN
+    INSERT INTO review_search (review_search, rowid, comment) VALUES ('delete', OLD.rating_id, OLD.comment);
+END;
+
+CREATE TRIGGER IF NOT EXISTS review_search_update AFTER UPDATE OF comment ON review
+BEGIN
+    INSERT INTO review_search (review_search, rowid, comment) VALUES ('delete', OLD.rating_id, OLD.comment);
+    INSERT INTO review_search (rowid, comment) VALUES (NEW.rating_id, NEW.comment);
+END;
+
+-- Index the existing rows
+INSERT INTO meal_search (meal_search) VALUES ('rebuild');
+INSERT INTO review_search (review_search) VALUES ('rebuild');
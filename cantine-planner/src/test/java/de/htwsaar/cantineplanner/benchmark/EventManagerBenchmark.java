@@ -0,0 +1,132 @@
+package de.htwsaar.cantineplanner.benchmark;
+
+import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventData;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.IntData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Compares the cost of notifying an event with many subscribers between the EventManager and the
+ * HashMap based implementation it replaced.
+ * <p>
+ * Run it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=de.htwsaar.cantineplanner.benchmark.EventManagerBenchmark},
+ * add {@code -prof gc} to the JMH options to compare the allocation rate. {@code recordStatistics} measures
+ * the cost of recording the statistics of one dispatch, which every notification pays.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventManagerBenchmark {
+
+    @Param({"64"})
+    public int subscribers;
+
+    private final EventData data = new IntData(1);
+
+    private EventManager eventManager;
+    private HashMapEventManager hashMapEventManager;
+    private long received;
+
+    @Setup
+    public void setUp() {
+        eventManager = new EventManager();
+        hashMapEventManager = new HashMapEventManager();
+        for (EventType eventType : EventType.values()) {
+            eventManager.subscribe(eventType, eventData -> received++);
+            hashMapEventManager.subscribe(eventType, eventData -> received++);
+        }
+        for (int i = 1; i < subscribers; i++) {
+            eventManager.subscribe(EventType.SWITCH_MENU, eventData -> received += ((IntData) eventData).getMessage());
+            hashMapEventManager.subscribe(EventType.SWITCH_MENU,
+                    eventData -> received += ((IntData) eventData).getMessage());
+        }
+    }
+
+    @Benchmark
+    public long notifyEnumMap() {
+        eventManager.notify(EventType.SWITCH_MENU, data);
+        return received;
+    }
+
+    @Benchmark
+    public long notifyHashMap() {
+        hashMapEventManager.notify(EventType.SWITCH_MENU, data);
+        return received;
+    }
+
+    @Benchmark
+    public long notifyMismatchedDataEnumMap() {
+        eventManager.notify(EventType.SHOW_SUCCESS_SCREEN, new IntData(1));
+        return received;
+    }
+
+    @Benchmark
+    public long notifyMismatchedDataHashMap() {
+        hashMapEventManager.notify(EventType.SHOW_SUCCESS_SCREEN, new IntData(1));
+        return received;
+    }
+
+    @Benchmark
+    public void recordStatistics() {
+        eventManager.getStatistics().dispatch(EventType.SWITCH_MENU).record(received & 0xFFFFF);
+    }
+
+    /**
+     * The EventManager as it was before the EnumMap rewrite, kept as the baseline.
+     */
+    static class HashMapEventManager {
+        private final Map<EventType, List<Consumer<EventData>>> listeners = new HashMap<>();
+
+        void subscribe(EventType eventType, Consumer<EventData> eventFunction) {
+            List<Consumer<EventData>> list = new ArrayList<>();
+            if (listeners.containsKey(eventType)) {
+                list = listeners.get(eventType);
+            }
+            list.add(eventFunction);
+            listeners.put(eventType, list);
+        }
+
+        void notify(EventType eventType, EventData data) {
+            if (eventType.getEventDataClass() == null || eventType.getEventDataClass().isInstance(data)) {
+                List<Consumer<EventData>> list = listeners.get(eventType);
+
+                if (list != null) {
+                    for (Consumer<EventData> eventFunction : list) {
+                        eventFunction.accept(data);
+                    }
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EventManagerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
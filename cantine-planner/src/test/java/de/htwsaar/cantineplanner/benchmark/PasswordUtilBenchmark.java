@@ -0,0 +1,63 @@
+package de.htwsaar.cantineplanner.benchmark;
+
+import de.htwsaar.cantineplanner.data.security.PasswordUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of hashing and verifying passwords with PasswordUtil.
+ * <p>
+ * Run it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=de.htwsaar.cantineplanner.benchmark.PasswordUtilBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordUtilBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    private String storedHash;
+
+    @Setup
+    public void setUp() {
+        storedHash = PasswordUtil.hashPassword(PASSWORD);
+    }
+
+    @Benchmark
+    public String hash() {
+        return PasswordUtil.hashPassword(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return PasswordUtil.verifyPassword(PASSWORD, storedHash);
+    }
+
+    @Benchmark
+    public boolean verifyWrongPassword() {
+        return PasswordUtil.verifyPassword("wrong password", storedHash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PasswordUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,146 @@
+package de.htwsaar.cantineplanner.benchmark;
+
+import de.htwsaar.cantineplanner.codegen.tables.records.ReviewRecord;
+import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
+import de.htwsaar.cantineplanner.data.model.Page;
+import de.htwsaar.cantineplanner.data.repository.ReviewRepository;
+import de.htwsaar.cantineplanner.data.util.SchemaMigrator;
+import org.jooq.SortOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of reading one page of reviews at the start, the middle and the end of a review table
+ * with one million rows, with keyset pagination and, for comparison, with LIMIT/OFFSET.
+ * <p>
+ * The keyset page costs the same at every position, while the offset page has to step over all rows before
+ * it. The benchmark database is generated from the test database in target/pagination-benchmark.db on the
+ * first run and reused afterwards. Run it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=de.htwsaar.cantineplanner.benchmark.ReviewPaginationBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewPaginationBenchmark {
+
+    private static final Path TEST_DATABASE = Path.of("database/test-database.db");
+    private static final Path BENCHMARK_DATABASE = Path.of("target/pagination-benchmark.db");
+    private static final int REVIEWS = 1_000_000;
+    private static final int PAGE_SIZE = 100;
+
+    private static final String SEED_REVIEWS = """
+            WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < ?)
+            INSERT INTO review (meal_id, rating, comment, userid)
+            SELECT 1 + i % 100, i % 6, 'Generated review ' || i, 1 + i % 10 FROM n""";
+
+    private static final String OFFSET_PAGE = "SELECT * FROM review ORDER BY rating_id LIMIT ? OFFSET ?";
+
+    /**
+     * The position of the page in the table, in percent.
+     */
+    @Param({"0", "50", "100"})
+    public int position;
+
+    private HikariCPDataSource dataSource;
+    private ReviewRepository reviewRepository;
+    private int afterId;
+    private int offset;
+
+    @Setup
+    public void setUp() throws Exception {
+        boolean seeded = Files.exists(BENCHMARK_DATABASE);
+        if (!seeded) {
+            Files.createDirectories(BENCHMARK_DATABASE.getParent());
+            Files.copy(TEST_DATABASE, BENCHMARK_DATABASE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        dataSource = new HikariCPDataSource("hikari-benchmark.properties");
+        reviewRepository = new ReviewRepository(dataSource);
+        SchemaMigrator.migrate(dataSource);
+
+        try (Connection connection = dataSource.getConnection()) {
+            int count = count(connection);
+            if (count < REVIEWS) {
+                try (PreparedStatement seed = connection.prepareStatement(SEED_REVIEWS)) {
+                    seed.setInt(1, REVIEWS - count);
+                    seed.executeUpdate();
+                }
+                count = REVIEWS;
+            }
+            offset = Math.min((int) ((long) count * position / 100), count - PAGE_SIZE);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT rating_id FROM review ORDER BY rating_id LIMIT 1 OFFSET ?")) {
+                statement.setInt(1, Math.max(offset - 1, 0));
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    afterId = offset == 0 ? 0 : resultSet.getInt(1);
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.closeDataSource();
+    }
+
+    @Benchmark
+    public Page<ReviewRecord> keysetPage() throws SQLException {
+        return reviewRepository.page(afterId, PAGE_SIZE, SortOrder.ASC);
+    }
+
+    @Benchmark
+    public int offsetPage() throws SQLException {
+        try (Connection connection = dataSource.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(OFFSET_PAGE)) {
+            statement.setInt(1, PAGE_SIZE);
+            statement.setInt(2, offset);
+            int rows = 0;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rows++;
+                }
+            }
+            return rows;
+        }
+    }
+
+    private static int count(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM review")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ReviewPaginationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
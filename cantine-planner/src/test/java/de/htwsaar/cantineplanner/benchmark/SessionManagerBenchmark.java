@@ -0,0 +1,83 @@
+package de.htwsaar.cantineplanner.benchmark;
+
+import de.htwsaar.cantineplanner.businessLogic.manager.Session;
+import de.htwsaar.cantineplanner.businessLogic.manager.SessionManager;
+import de.htwsaar.cantineplanner.codegen.tables.records.UsersRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of resolving a session in a SessionManager holding many open sessions,
+ * from one thread and from several threads at once.
+ * <p>
+ * Run it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=de.htwsaar.cantineplanner.benchmark.SessionManagerBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionManagerBenchmark {
+
+    @Param({"10000"})
+    public int sessions;
+
+    private SessionManager sessionManager;
+    private String[] sessionIds;
+
+    @Setup
+    public void setUp() {
+        sessionManager = new SessionManager(sessions, Duration.ofHours(1));
+        sessionIds = new String[sessions];
+        for (int i = 0; i < sessions; i++) {
+            UsersRecord user = new UsersRecord();
+            user.setUserid(i);
+            user.setUsername("user" + i);
+            user.setRole(i % 10 == 0 ? 1 : 0);
+            user.setDontShowMeal("F,N,G");
+            sessionIds[i] = sessionManager.open(user).getSessionId();
+        }
+    }
+
+    @Benchmark
+    public Optional<Session> find() {
+        return sessionManager.find(sessionIds[ThreadLocalRandom.current().nextInt(sessions)]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Optional<Session> findConcurrently() {
+        return sessionManager.find(sessionIds[ThreadLocalRandom.current().nextInt(sessions)]);
+    }
+
+    @Benchmark
+    public Optional<Session> findUnknown() {
+        return sessionManager.find("unknown-session-id");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SessionManagerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,60 @@
+package de.htwsaar.cantineplanner.data;
+
+import de.htwsaar.cantineplanner.businessLogic.mapper.AllergenMapper;
+import de.htwsaar.cantineplanner.businessLogic.types.Allergen;
+import de.htwsaar.cantineplanner.businessLogic.types.AllergenSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AllergenSetTest {
+
+    @Test
+    void bitsFollowTheStoredMaskOrder() {
+        Allergen[] allergens = Allergen.values();
+        assertEquals(AllergenMapper.MASK_ORDER.length(), allergens.length);
+        for (int i = 0; i < allergens.length; i++) {
+            assertEquals(AllergenMapper.MASK_ORDER.charAt(i), allergens[i].getCode());
+            assertEquals(1 << i, allergens[i].getBit());
+        }
+    }
+
+    @Test
+    void looksUpAllergensInBothDirections() {
+        for (Allergen allergen : Allergen.values()) {
+            assertSame(allergen, Allergen.fromCode(allergen.getCode()));
+            assertSame(allergen, Allergen.fromDisplayName(allergen.getDisplayName()));
+            assertEquals(allergen.getDisplayName(), AllergenMapper.getAllergenFullName(String.valueOf(allergen.getCode())));
+            assertEquals(String.valueOf(allergen.getCode()), AllergenMapper.getAllergenCode(allergen.getDisplayName()));
+        }
+        assertNull(Allergen.fromCode('x'));
+        assertNull(Allergen.fromCode('€'));
+        assertNull(AllergenMapper.getAllergenCode("Lupins"));
+        assertEquals("", AllergenMapper.getAllergenFullName("X"));
+    }
+
+    @Test
+    void parsesStoredCodes() {
+        AllergenSet set = AllergenSet.parse(" G,M , E,,Q");
+        assertEquals(EnumSet.of(Allergen.GLUTEN, Allergen.MILK, Allergen.EGGS), set.asSet());
+        assertEquals("G,M,E", set.toCodes());
+        assertEquals(set, AllergenSet.fromMask(set.toMask()));
+        assertEquals(set, AllergenSet.of(Allergen.EGGS, Allergen.GLUTEN, Allergen.MILK));
+        assertTrue(set.containsAny(AllergenSet.of(Allergen.MILK)));
+        assertFalse(set.containsAny(AllergenSet.of(Allergen.FISH)));
+
+        assertTrue(AllergenSet.parse(null).isEmpty());
+        assertTrue(AllergenSet.parse("None").isEmpty());
+    }
+
+    @Test
+    void rendersEachCombinationOnce() {
+        int mask = AllergenSet.maskOf("G,M,E");
+        assertEquals("Gluten, Milk, Eggs", AllergenSet.toDisplayString(mask));
+        assertSame(AllergenSet.toDisplayString(mask), AllergenMapper.getAllergenDisplayString("E, G, M"));
+        assertEquals(AllergenSet.NO_ALLERGENS, AllergenMapper.getAllergenDisplayString(""));
+        assertEquals(AllergenSet.NO_ALLERGENS, AllergenMapper.getAllergenDisplayString(null));
+    }
+}
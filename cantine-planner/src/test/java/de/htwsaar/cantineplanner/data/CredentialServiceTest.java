@@ -0,0 +1,152 @@
+package de.htwsaar.cantineplanner.data;
+
+import de.htwsaar.cantineplanner.businessLogic.controller.MainController;
+import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
+import de.htwsaar.cantineplanner.businessLogic.manager.SessionContext;
+import de.htwsaar.cantineplanner.businessLogic.manager.SessionManager;
+import de.htwsaar.cantineplanner.businessLogic.service.CantineService;
+import de.htwsaar.cantineplanner.businessLogic.service.CredentialService;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.StringArrayData;
+import de.htwsaar.cantineplanner.codegen.tables.records.UsersRecord;
+import de.htwsaar.cantineplanner.presentation.HeadlessTextGUI;
+import de.htwsaar.cantineplanner.presentation.ScreenManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CredentialServiceTest {
+
+    static final String BUSY_MESSAGE = "Too many requests at the moment, please try again!";
+    static final long MB = 1024 * 1024;
+
+    // Holds every credential operation until released, stands in for a slow hash
+    CountDownLatch release;
+    CountDownLatch started;
+    CantineService cantineService;
+    CredentialService credentialService;
+
+    @BeforeAll
+    static void copyTestDatabase() throws IOException {
+        TestDatabase.copy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        release = new CountDownLatch(1);
+        started = new CountDownLatch(1);
+        cantineService = new CantineService("hikari-test.properties") {
+            @Override
+            public UsersRecord authenticate(String username, String password) {
+                hash();
+                return user(1);
+            }
+
+            @Override
+            public boolean validateUser(int userID, String password) {
+                hash();
+                return true;
+            }
+        };
+        credentialService = new CredentialService(cantineService, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        credentialService.shutdown();
+    }
+
+    @Test
+    void rejectsOperationsWhileTheQueueIsFullAndAcceptsThemAgainAfterwards() throws Exception {
+        List<CompletableFuture<UsersRecord>> accepted = fillQueue();
+
+        CompletableFuture<UsersRecord> rejected = credentialService.authenticate("alice", "secret");
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+
+        release.countDown();
+        for (CompletableFuture<UsersRecord> future : accepted) {
+            assertEquals(1, future.get(5, TimeUnit.SECONDS).getUserid());
+        }
+        assertEquals(0, credentialService.getQueueDepth());
+        assertEquals(1, credentialService.authenticate("alice", "secret").get(5, TimeUnit.SECONDS).getUserid());
+    }
+
+    @Test
+    void controllersShowTheBusyMessageWhileTheQueueIsFull() throws Exception {
+        EventManager eventManager = new EventManager();
+        List<String> errors = new ArrayList<>();
+        ScreenManager screenManager = new ScreenManager(eventManager, cantineService, new HeadlessTextGUI()) {
+            @Override
+            public void showErrorScreen(String message) {
+                errors.add(message);
+            }
+        };
+        SessionContext sessionContext = new SessionContext(new SessionManager());
+        new MainController(screenManager, cantineService, eventManager, sessionContext, credentialService);
+        sessionContext.login(user(1));
+        fillQueue();
+
+        eventManager.notify(EventType.LOGIN, new StringArrayData(new String[]{"alice", "secret"}));
+        eventManager.notify(EventType.REGISTER,
+                new StringArrayData(new String[]{"bob", "secret", "bob@example.com"}));
+        eventManager.notify(EventType.EDIT_USER_DATA, new StringArrayData(new String[]{"secret"}));
+        screenManager.awaitPendingOperations();
+
+        assertEquals(List.of(BUSY_MESSAGE, BUSY_MESSAGE, BUSY_MESSAGE), errors);
+    }
+
+    @Test
+    void threadCountFitsTheProcessorsAndHalfTheHeap() {
+        assertEquals(4, CredentialService.threadCount(4, 1024 * MB, 64 * MB));
+        assertEquals(2, CredentialService.threadCount(8, 256 * MB, 64 * MB));
+        assertEquals(1, CredentialService.threadCount(8, 64 * MB, 64 * MB));
+    }
+
+    /**
+     * Occupies the only hashing thread and every place in its queue.
+     *
+     * @return the futures of the accepted operations
+     */
+    private List<CompletableFuture<UsersRecord>> fillQueue() throws InterruptedException {
+        List<CompletableFuture<UsersRecord>> accepted = new ArrayList<>();
+        accepted.add(credentialService.authenticate("alice", "secret"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < CredentialService.QUEUE_CAPACITY_PER_THREAD; i++) {
+            accepted.add(credentialService.authenticate("alice", "secret"));
+        }
+        assertEquals(CredentialService.QUEUE_CAPACITY_PER_THREAD, credentialService.getQueueDepth());
+        return accepted;
+    }
+
+    private void hash() {
+        started.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static UsersRecord user(int userId) {
+        UsersRecord user = new UsersRecord();
+        user.setUserid(userId);
+        user.setUsername("user" + userId);
+        user.setRole(0);
+        return user;
+    }
+}
@@ -0,0 +1,124 @@
+package de.htwsaar.cantineplanner.data;
+
+import de.htwsaar.cantineplanner.app.AppRunner;
+import de.htwsaar.cantineplanner.app.EventReplay;
+import de.htwsaar.cantineplanner.businessLogic.manager.EventJournal;
+import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.IntData;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.StringArrayData;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.StringData;
+import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
+import de.htwsaar.cantineplanner.presentation.HeadlessTextGUI;
+import de.htwsaar.cantineplanner.presentation.ScreenManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void journalsUserActionsWithRedactedPasswords() throws Exception {
+        Path path = directory.resolve("events.journal");
+        EventManager eventManager = new EventManager();
+        List<EventType> notified = new ArrayList<>();
+        eventManager.subscribe(EventType.LOGIN, data -> {
+            notified.add(EventType.LOGIN);
+            // Events notified by listeners are not journaled
+            eventManager.notify(EventType.SWITCH_MENU, new IntData(1));
+        });
+        eventManager.subscribe(EventType.SWITCH_MENU, data -> notified.add(EventType.SWITCH_MENU));
+        eventManager.subscribe(EventType.SHOW_ERROR_SCREEN, data -> notified.add(EventType.SHOW_ERROR_SCREEN));
+
+        try (EventJournal journal = EventJournal.open(path)) {
+            eventManager.setJournal(journal);
+            eventManager.notifyUserAction(EventType.LOGIN, new StringArrayData(new String[]{"alice", "secret"}));
+            eventManager.notifyUserAction(EventType.SHOW_ERROR_SCREEN, new StringData("Ümlaut"));
+            // Events without listeners are not journaled
+            eventManager.notifyUserAction(EventType.SHOW_ALL_MEALS, null);
+        }
+
+        assertEquals(List.of(EventType.LOGIN, EventType.SWITCH_MENU, EventType.SHOW_ERROR_SCREEN), notified);
+        assertFalse(new String(Files.readAllBytes(path), StandardCharsets.ISO_8859_1).contains("secret"));
+
+        List<EventJournal.Entry> entries = EventJournal.read(path, "replay");
+        assertEquals(2, entries.size());
+        assertEquals(EventType.LOGIN, entries.get(0).eventType());
+        assertArrayEquals(new String[]{"alice", "replay"},
+                ((StringArrayData) entries.get(0).data()).getMessage());
+        assertEquals(EventType.SHOW_ERROR_SCREEN, entries.get(1).eventType());
+        assertEquals("Ümlaut", entries.get(1).data().getData());
+        assertTrue(entries.get(1).timestampMicros() >= entries.get(0).timestampMicros());
+    }
+
+    @Test
+    void refusesToReplayAgainstTheApplicationDatabase() {
+        assertThrows(IllegalStateException.class,
+                () -> AppRunner.requireReplayDataSource("", "hikari.properties"));
+        assertThrows(IllegalStateException.class,
+                () -> AppRunner.requireReplayDataSource("hikari.properties", "hikari.properties"));
+        assertEquals("hikari-test.properties",
+                AppRunner.requireReplayDataSource("hikari-test.properties", "hikari.properties"));
+        assertEquals(TestDatabase.DATABASE.toAbsolutePath(),
+                HikariCPDataSource.getDatabaseFile("hikari-test.properties"));
+    }
+
+    @Test
+    void appendsSegmentsAndSkipsIncompleteLastRecord() throws Exception {
+        Path path = directory.resolve("events.journal");
+        try (EventJournal journal = EventJournal.open(path)) {
+            journal.append(EventType.SWITCH_MENU, new IntData(-3));
+        }
+        try (EventJournal journal = EventJournal.open(path)) {
+            journal.append(EventType.SHOW_ALL_MEALS, null);
+            journal.append(EventType.EDIT_NEW_USER_DATA,
+                    new StringArrayData(new String[]{"new secret", null}));
+        }
+        // A crash in the middle of a record leaves only its first bytes
+        Files.write(path, new byte[]{1, 2}, StandardOpenOption.APPEND);
+
+        List<EventJournal.Entry> entries = EventJournal.read(path, null);
+        assertEquals(3, entries.size());
+        assertEquals(0, entries.get(0).segment());
+        assertEquals(-3, entries.get(0).data().getData());
+        assertEquals(1, entries.get(1).segment());
+        assertNull(entries.get(1).data());
+        assertArrayEquals(new String[]{null, null}, ((StringArrayData) entries.get(2).data()).getMessage());
+    }
+
+    @Test
+    void replaysEventsHeadlesslyAndReportsLatencyPerEventType() throws Exception {
+        EventManager eventManager = new EventManager();
+        ScreenManager screenManager = new ScreenManager(eventManager, null, new HeadlessTextGUI());
+        List<String> messages = new ArrayList<>();
+        eventManager.subscribe(EventType.SHOW_SUCCESS_SCREEN, data -> {
+            messages.add((String) data.getData());
+            screenManager.showSuccessScreen((String) data.getData());
+        });
+        eventManager.subscribe(EventType.EXIT, () -> fail("EXIT must not be replayed"));
+
+        List<EventJournal.Entry> entries = List.of(
+                new EventJournal.Entry(0, 1_000, EventType.SHOW_SUCCESS_SCREEN, new StringData("first")),
+                new EventJournal.Entry(0, 2_000, EventType.SHOW_SUCCESS_SCREEN, new StringData("second")),
+                new EventJournal.Entry(0, 3_000, EventType.EXIT, null));
+
+        EventReplay.Report report = new EventReplay(eventManager, screenManager).replay(entries, false);
+
+        assertEquals(List.of("first", "second"), messages);
+        assertEquals(2, report.events());
+        assertEquals(1, report.summaries().size());
+        assertEquals(EventType.SHOW_SUCCESS_SCREEN.name(), report.summaries().get(0).name());
+        assertEquals(2, report.summaries().get(0).count());
+    }
+}
@@ -0,0 +1,211 @@
+package de.htwsaar.cantineplanner.data;
+
+import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
+import de.htwsaar.cantineplanner.businessLogic.manager.EventStatistics;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.EventType;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.IntData;
+import de.htwsaar.cantineplanner.businessLogic.types.eventdata.StringData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventManagerTest {
+
+    EventManager eventManager;
+    // Stands in for the GUI thread
+    ExecutorService guiThread;
+    Thread guiThreadInstance;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        eventManager = new EventManager();
+        guiThread = Executors.newSingleThreadExecutor();
+        guiThreadInstance = guiThread.submit(Thread::currentThread).get();
+    }
+
+    @AfterEach
+    void tearDown() {
+        guiThread.shutdownNow();
+    }
+
+    @Test
+    void notifiesListenersInSubscriptionOrder() {
+        List<String> calls = new ArrayList<>();
+        eventManager.subscribe(EventType.SWITCH_MENU, data -> calls.add("first " + data.getData()));
+        eventManager.subscribe(EventType.SWITCH_MENU, data -> calls.add("second " + data.getData()));
+        eventManager.subscribe(EventType.EXIT, () -> calls.add("exit"));
+
+        eventManager.notify(EventType.SWITCH_MENU, new IntData(2));
+        eventManager.notify(EventType.EXIT, null);
+        // Data of the wrong type is dropped
+        eventManager.notify(EventType.SWITCH_MENU, new StringData("2"));
+
+        assertEquals(List.of("first 2", "second 2", "exit"), calls);
+    }
+
+    @Test
+    void recordsStatisticsPerEventType() {
+        eventManager.subscribe(EventType.SWITCH_MENU, data -> { });
+        eventManager.subscribe(EventType.EXIT, () -> {
+            throw new IllegalStateException("exit failed");
+        });
+
+        eventManager.notify(EventType.SWITCH_MENU, new IntData(1));
+        eventManager.notify(EventType.SWITCH_MENU, new IntData(2));
+        assertThrows(IllegalStateException.class, () -> eventManager.notify(EventType.EXIT, null));
+        // Events without listeners are not counted
+        eventManager.notify(EventType.LOGOUT, null);
+
+        List<EventStatistics.Summary> summaries = eventManager.getStatistics().summarize();
+        assertEquals(2, summaries.size());
+        EventStatistics.Summary switchMenu = summaries.stream()
+                .filter(summary -> summary.name().equals("SWITCH_MENU")).findFirst().orElseThrow();
+        assertEquals(2, switchMenu.count());
+        assertEquals(0, switchMenu.errors());
+        assertTrue(switchMenu.p50Nanos() <= switchMenu.p99Nanos());
+        EventStatistics.Summary exit = summaries.stream()
+                .filter(summary -> summary.name().equals("EXIT")).findFirst().orElseThrow();
+        assertEquals(1, exit.count());
+        assertEquals(1, exit.errors());
+    }
+
+    @Test
+    void recordsSelfTimeWithoutNestedDispatchesAndModalWindows() {
+        long waitMillis = 100;
+        eventManager.subscribe(EventType.SHOW_ALL_MEALS, () -> {
+            // Stands in for a window that stays open until the user closes it
+            EventManager.excludeFromLatency(() -> sleep(waitMillis));
+            eventManager.notify(EventType.SWITCH_MENU, new IntData(1));
+        });
+        eventManager.subscribe(EventType.SWITCH_MENU, () -> sleep(waitMillis));
+
+        eventManager.notify(EventType.SHOW_ALL_MEALS, null);
+
+        List<EventStatistics.Summary> summaries = eventManager.getStatistics().summarize();
+        EventStatistics.Summary outer = summaries.stream()
+                .filter(summary -> summary.name().equals("SHOW_ALL_MEALS")).findFirst().orElseThrow();
+        EventStatistics.Summary nested = summaries.stream()
+                .filter(summary -> summary.name().equals("SWITCH_MENU")).findFirst().orElseThrow();
+        assertEquals(1, outer.count());
+        assertTrue(outer.totalNanos() < TimeUnit.MILLISECONDS.toNanos(waitMillis / 2),
+                "The outer event recorded " + outer.totalNanos() + "ns");
+        assertTrue(nested.totalNanos() >= TimeUnit.MILLISECONDS.toNanos(waitMillis));
+    }
+
+    @Test
+    void eventsNotifiedFromAModalWindowAreExcludedOnce() {
+        long waitMillis = 100;
+        eventManager.subscribe(EventType.SHOW_ALL_MEALS, () -> EventManager.excludeFromLatency(() -> {
+            // Stands in for a menu button pressed while the window is open
+            sleep(waitMillis);
+            eventManager.notify(EventType.SWITCH_MENU, new IntData(1));
+        }));
+        eventManager.subscribe(EventType.SWITCH_MENU, () -> sleep(waitMillis));
+
+        eventManager.notify(EventType.SHOW_ALL_MEALS, null);
+
+        EventStatistics.Summary outer = eventManager.getStatistics().summarize().stream()
+                .filter(summary -> summary.name().equals("SHOW_ALL_MEALS")).findFirst().orElseThrow();
+        assertTrue(outer.totalNanos() >= 0, "The outer event recorded " + outer.totalNanos() + "ns");
+        assertTrue(outer.totalNanos() < TimeUnit.MILLISECONDS.toNanos(waitMillis / 2),
+                "The outer event recorded " + outer.totalNanos() + "ns");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void blockingListenersRunInlineByDefault() {
+        List<Integer> rendered = new ArrayList<>();
+        eventManager.subscribeBlocking(EventType.SWITCH_MENU, data -> (int) data.getData() * 2, rendered::add,
+                "error");
+
+        eventManager.notify(EventType.SWITCH_MENU, new IntData(21));
+
+        assertFalse(eventManager.isAsyncDispatchEnabled());
+        assertEquals(List.of(42), rendered);
+    }
+
+    @Test
+    void asyncDispatchPreservesOrderPerEventType() throws InterruptedException {
+        int events = 50;
+        List<Integer> rendered = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> workThreads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(events);
+        AtomicReference<Thread> renderThread = new AtomicReference<>();
+
+        eventManager.enableAsyncDispatch(guiThread);
+        eventManager.subscribeBlocking(EventType.SWITCH_MENU, data -> {
+            workThreads.add(Thread.currentThread());
+            // Later events finish their work faster, they must still be rendered in order
+            Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            return (int) data.getData();
+        }, menu -> {
+            renderThread.set(Thread.currentThread());
+            rendered.add(menu);
+            done.countDown();
+        }, "error");
+
+        for (int i = 0; i < events; i++) {
+            eventManager.notify(EventType.SWITCH_MENU, new IntData(i));
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < events; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, rendered);
+        assertTrue(workThreads.stream().allMatch(Thread::isVirtual));
+        assertSame(guiThreadInstance, renderThread.get());
+    }
+
+    @Test
+    void asyncErrorsAreShownOnErrorScreen() throws InterruptedException {
+        CountDownLatch shown = new CountDownLatch(2);
+        List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<Thread> errorThread = new AtomicReference<>();
+        eventManager.subscribe(EventType.SHOW_ERROR_SCREEN, data -> {
+            errorThread.set(Thread.currentThread());
+            messages.add((String) data.getData());
+            shown.countDown();
+        });
+
+        eventManager.enableAsyncDispatch(guiThread);
+        eventManager.subscribeBlocking(EventType.SHOW_ALL_REVIEWS, data -> {
+            throw new SQLException("database is locked");
+        }, result -> fail("The failed work must not be rendered"), "Error showing the reviews");
+        eventManager.subscribeBlocking(EventType.SHOW_ALL_MEALS, data -> {
+            throw new IllegalStateException("no meals");
+        }, result -> fail("The failed work must not be rendered"), Exception::getMessage);
+
+        eventManager.notify(EventType.SHOW_ALL_REVIEWS, null);
+        eventManager.notify(EventType.SHOW_ALL_MEALS, null);
+
+        assertTrue(shown.await(10, TimeUnit.SECONDS));
+        assertTrue(messages.containsAll(List.of("Error showing the reviews", "no meals")));
+        assertSame(guiThreadInstance, errorThread.get());
+        EventStatistics statistics = eventManager.getStatistics();
+        assertEquals(1, statistics.summarize().stream()
+                .filter(summary -> summary.name().equals("SHOW_ALL_REVIEWS (background)"))
+                .mapToLong(EventStatistics.Summary::errors).sum());
+    }
+}
@@ -0,0 +1,57 @@
+package de.htwsaar.cantineplanner.data;
+
+import de.htwsaar.cantineplanner.businessLogic.manager.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramHasNoPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    void smallDurationsAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int nanos = 0; nanos < 8; nanos++) {
+            histogram.record(nanos);
+        }
+
+        assertEquals(8, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(0));
+        assertEquals(3, histogram.getPercentile(50));
+        assertEquals(7, histogram.getPercentile(100));
+    }
+
+    @Test
+    void percentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1 to 1000 microseconds, so the p-th percentile is p * 10 microseconds
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        for (double percentile : new double[]{50, 95, 99}) {
+            long expected = (long) (percentile * 10_000);
+            long actual = histogram.getPercentile(percentile);
+            assertTrue(actual >= expected && actual <= expected * 1.125,
+                    "p" + percentile + " was " + actual + " instead of about " + expected);
+        }
+    }
+
+    @Test
+    void hugeAndNegativeDurationsAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+        assertTrue(histogram.getPercentile(100) >= 1L << 40);
+    }
+}
@@ -0,0 +1,115 @@
+package de.htwsaar.cantineplanner.data;
+
+import de.htwsaar.cantineplanner.codegen.tables.records.MealsRecord;
+import de.htwsaar.cantineplanner.data.cache.MealCatalogueCache;
+import de.htwsaar.cantineplanner.data.exceptions.MealDoesntExistException;
+import de.htwsaar.cantineplanner.data.exceptions.MealiDNotFoundException;
+import de.htwsaar.cantineplanner.data.repository.MealsRepository;
+import de.htwsaar.cantineplanner.data.util.SchemaMigrator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MealCatalogueCacheTest {
+
+    StatementCountingDataSource dataSource;
+    MealsRepository mealsRepository;
+    MealCatalogueCache mealCatalogueCache;
+
+    @BeforeAll
+    static void copyTestDatabase() throws IOException {
+        TestDatabase.copy();
+    }
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+
+        String PATH_TO_TEST_PROPERTIES = "hikari-test.properties";
+        dataSource = new StatementCountingDataSource(PATH_TO_TEST_PROPERTIES);
+        mealsRepository = new MealsRepository(dataSource);
+        mealCatalogueCache = new MealCatalogueCache(mealsRepository, true);
+        SchemaMigrator.migrate(dataSource);
+        dataSource.reset();
+
+    }
+
+    @Test
+    void readsAreServedFromOneSnapshot() throws Exception {
+        int mealId = mealsRepository.getAllMeals().get(0).getMealId();
+        dataSource.reset();
+
+        mealCatalogueCache.getAllMeals();
+        mealCatalogueCache.sortMealsByPrice();
+        mealCatalogueCache.sortMealsByName();
+        mealCatalogueCache.sortMealsByCalories();
+        mealCatalogueCache.searchMealById(mealId);
+
+        assertEquals(1, dataSource.getStatementCount());
+        assertEquals(1, mealCatalogueCache.getMissCount());
+        assertEquals(4, mealCatalogueCache.getHitCount());
+    }
+
+    @Test
+    void snapshotMatchesRepository() throws Exception {
+        assertEquals(ids(mealsRepository.getAllMeals()), ids(mealCatalogueCache.getAllMeals()));
+        assertEquals(ids(mealsRepository.sortMealsByName()), ids(mealCatalogueCache.sortMealsByName()));
+
+        List<MealsRecord> byPrice = mealCatalogueCache.sortMealsByPrice();
+        for (int i = 1; i < byPrice.size(); i++) {
+            assertTrue(byPrice.get(i - 1).getPrice() <= byPrice.get(i).getPrice());
+        }
+        List<MealsRecord> byCalories = mealCatalogueCache.sortMealsByCalories();
+        for (int i = 1; i < byCalories.size(); i++) {
+            assertTrue(byCalories.get(i - 1).getCalories() <= byCalories.get(i).getCalories());
+        }
+
+        MealsRecord meal = mealCatalogueCache.getAllMeals().get(0);
+        assertEquals(meal.getMealId(), mealCatalogueCache.searchMealByName(meal.getName()).get(0).getMealId());
+        assertThrows(MealiDNotFoundException.class, () -> mealCatalogueCache.searchMealById(-1));
+        assertThrows(MealDoesntExistException.class, () -> mealCatalogueCache.searchMealByName("Nonexistent Meal"));
+        assertThrows(UnsupportedOperationException.class, () -> mealCatalogueCache.getAllMeals().clear());
+    }
+
+    @Test
+    void invalidateLoadsWrittenMeal() throws Exception {
+        MealsRecord meal = mealCatalogueCache.getAllMeals().get(0);
+        String originalName = meal.getName();
+
+        MealsRecord edit = new MealsRecord();
+        edit.setMealId(meal.getMealId());
+        edit.setName(originalName + " (cached)");
+        mealsRepository.editMeal(edit);
+        try {
+            assertEquals(originalName, mealCatalogueCache.searchMealById(meal.getMealId()).get(0).getName());
+
+            mealCatalogueCache.invalidate();
+            assertEquals(originalName + " (cached)",
+                    mealCatalogueCache.searchMealById(meal.getMealId()).get(0).getName());
+            assertEquals(2, mealCatalogueCache.getMissCount());
+        } finally {
+            edit.setName(originalName);
+            mealsRepository.editMeal(edit);
+        }
+    }
+
+    @Test
+    void disabledCachePassesThrough() throws Exception {
+        MealCatalogueCache disabled = new MealCatalogueCache(mealsRepository, false);
+
+        disabled.getAllMeals();
+        disabled.getAllMeals();
+
+        assertEquals(2, dataSource.getStatementCount());
+        assertEquals(0, disabled.getHitCount() + disabled.getMissCount());
+    }
+
+    private static List<Integer> ids(List<MealsRecord> meals) {
+        return meals.stream().map(MealsRecord::getMealId).toList();
+    }
+}
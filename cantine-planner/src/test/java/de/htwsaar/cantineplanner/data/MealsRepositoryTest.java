@@ -1,15 +1,32 @@
 package de.htwsaar.cantineplanner.data;
 
+import de.htwsaar.cantineplanner.businessLogic.manager.EventManager;
+import de.htwsaar.cantineplanner.businessLogic.mapper.AllergenMapper;
+import de.htwsaar.cantineplanner.businessLogic.service.CantineService;
 import de.htwsaar.cantineplanner.codegen.tables.records.MealsRecord;
+import de.htwsaar.cantineplanner.codegen.tables.records.ReviewRecord;
 import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
 import de.htwsaar.cantineplanner.data.exceptions.MealAlreadyExistsException;
+import de.htwsaar.cantineplanner.data.exceptions.MealDoesntExistException;
 import de.htwsaar.cantineplanner.data.exceptions.MealiDNotFoundException;
+import de.htwsaar.cantineplanner.data.model.MealRatingStats;
+import de.htwsaar.cantineplanner.data.model.Page;
 import de.htwsaar.cantineplanner.data.repository.MealsRepository;
+import de.htwsaar.cantineplanner.data.repository.ReviewRepository;
+import de.htwsaar.cantineplanner.data.util.SchemaMigrator;
+import de.htwsaar.cantineplanner.presentation.HeadlessTextGUI;
+import de.htwsaar.cantineplanner.presentation.ScreenManager;
+import org.jooq.SortOrder;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -17,12 +34,18 @@ class MealsRepositoryTest {
 
     MealsRepository mealsRepository;
 
+    @BeforeAll
+    static void copyTestDatabase() throws IOException {
+        TestDatabase.copy();
+    }
+
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws SQLException {
 
         String PATH_TO_TEST_PROPERTIES = "hikari-test.properties";
         HikariCPDataSource dataSource = new HikariCPDataSource(PATH_TO_TEST_PROPERTIES);
         mealsRepository = new MealsRepository(dataSource);
+        SchemaMigrator.migrate(dataSource);
 
     }
 
@@ -53,6 +76,52 @@ class MealsRepositoryTest {
         });
     }
 
+    @Test
+    void sortMealsByRatingWithTieBreakersAndLimit() throws SQLException {
+        ReviewRepository reviewRepository = new ReviewRepository(new HikariCPDataSource("hikari-test.properties"));
+        int[][] reviews = {{3, 5}, {3, 3}, {4, 4}, {5, 4}, {5, 4}, {5, 1}};
+        List<ReviewRecord> newest = reviewRepository.page(null, 1, SortOrder.DESC).items();
+        int lastIdBefore = newest.isEmpty() ? 0 : newest.get(0).getRatingId();
+        for (int[] review : reviews) {
+            ReviewRecord record = new ReviewRecord();
+            record.setMealId(review[0]);
+            record.setRating(review[1]);
+            record.setUserid(16);
+            reviewRepository.addReview(record);
+        }
+
+        try {
+            assertDoesNotThrow(() -> {
+                List<MealsRecord> meals = mealsRepository.sortMealsByRating();
+                Map<Integer, MealRatingStats> stats = mealsRepository.getAllMealRatingStats();
+                for (int i = 1; i < meals.size(); i++) {
+                    MealRatingStats previous = stats.getOrDefault(meals.get(i - 1).getMealId(),
+                            MealRatingStats.empty(meals.get(i - 1).getMealId()));
+                    MealRatingStats current = stats.getOrDefault(meals.get(i).getMealId(),
+                            MealRatingStats.empty(meals.get(i).getMealId()));
+                    assertTrue(previous.median() >= current.median());
+                    if (previous.median() == current.median()) {
+                        assertTrue(previous.reviewCount() >= current.reviewCount());
+                        if (previous.reviewCount() == current.reviewCount()) {
+                            assertTrue(meals.get(i - 1).getName().compareTo(meals.get(i).getName()) <= 0);
+                        }
+                    }
+                }
+
+                // Meal 5 (4, 4, 1) and meal 3 (5, 3) both have a median of 4, meal 5 has more reviews
+                List<MealsRecord> topMeals = mealsRepository.sortMealsByRating(3);
+                assertEquals(3, topMeals.size());
+                assertEquals(List.of(5, 3, 4), topMeals.stream().map(MealsRecord::getMealId).toList());
+            });
+        } finally {
+            // Delete exactly the reviews inserted above, they got the IDs after the last one before
+            for (ReviewRecord inserted : reviewRepository.page(lastIdBefore, reviews.length, SortOrder.ASC).items()) {
+                reviewRepository.deleteReview(inserted.getRatingId());
+            }
+            assertTrue(reviewRepository.page(lastIdBefore, 1, SortOrder.ASC).items().isEmpty());
+        }
+    }
+
     @Test
     void sortMealsByName() {
         assertDoesNotThrow(() -> {
@@ -78,9 +147,9 @@ class MealsRepositoryTest {
     }
 
     @Test
-    void sortMealsByAllergy() {
+    void getMealsWithoutAllergens() {
         assertDoesNotThrow(() -> {
-            List<MealsRecord> meals = mealsRepository.sortMealsByAllergy(16);
+            List<MealsRecord> meals = mealsRepository.getMealsWithoutAllergens(AllergenMapper.getAllergenMask("G,T"));
             assertNotNull(meals);
             assertFalse(meals.isEmpty());
             for (MealsRecord meal : meals) {
@@ -96,6 +165,38 @@ class MealsRepositoryTest {
     }
 
 
+    @Test
+    void allergyMaskFollowsAllergyOnWrites() throws SQLException {
+        MealsRecord meal = new MealsRecord();
+        meal.setName("Test Meal Mask");
+        meal.setPrice(9.0F);
+        meal.setCalories(400);
+        meal.setAllergy("F, K");
+        meal.setMeat(0);
+        meal.setDay("Wed");
+        assertDoesNotThrow(() -> mealsRepository.addMeal(meal));
+        int mealId = mealsRepository.searchMealByName("Test Meal Mask").get(0).getMealId();
+
+        try {
+            assertFalse(containsMeal(mealsRepository.getMealsWithoutAllergens(AllergenMapper.getAllergenMask("K")), mealId));
+            assertTrue(containsMeal(mealsRepository.getMealsWithoutAllergens(AllergenMapper.getAllergenMask("M")), mealId));
+
+            MealsRecord edit = new MealsRecord();
+            edit.setMealId(mealId);
+            edit.setAllergy("M");
+            assertDoesNotThrow(() -> mealsRepository.editMeal(edit));
+
+            assertTrue(containsMeal(mealsRepository.getMealsWithoutAllergens(AllergenMapper.getAllergenMask("K")), mealId));
+            assertFalse(containsMeal(mealsRepository.getMealsWithoutAllergens(AllergenMapper.getAllergenMask("M")), mealId));
+        } finally {
+            assertDoesNotThrow(() -> mealsRepository.deleteMealById(mealId));
+        }
+    }
+
+    private static boolean containsMeal(List<MealsRecord> meals, int mealId) {
+        return meals.stream().anyMatch(meal -> meal.getMealId() == mealId);
+    }
+
     @Test
     void getAllAllergies() {
         assertDoesNotThrow(() -> {
@@ -242,4 +343,128 @@ class MealsRepositoryTest {
         });
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void getMealRatingStats() {
+        assertDoesNotThrow(() -> {
+            Map<Integer, MealRatingStats> stats = mealsRepository.getMealRatingStats(List.of(1, 2, 3));
+            for (MealRatingStats mealStats : stats.values()) {
+                assertTrue(mealStats.hasReviews());
+                assertEquals(mealsRepository.calculateMedianRatingForMeal(mealStats.mealId()), mealStats.median());
+                assertTrue(mealStats.mean() >= 0 && mealStats.mean() <= 5);
+            }
+            assertEquals(stats.get(1), mealsRepository.getAllMealRatingStats().get(1));
+        });
+    }
+
+    @Test
+    void getMealRatingStatsUsesOneStatement() {
+        StatementCountingDataSource countingDataSource = new StatementCountingDataSource("hikari-test.properties");
+        MealsRepository countingRepository = new MealsRepository(countingDataSource);
+
+        assertDoesNotThrow(() -> {
+            List<Integer> mealIds = countingRepository.getAllMeals().stream().map(MealsRecord::getMealId).toList();
+
+            countingDataSource.reset();
+            countingRepository.getMealRatingStats(mealIds);
+            assertEquals(1, countingDataSource.getStatementCount());
+
+            countingDataSource.reset();
+            countingRepository.getMealRatingStats(mealIds.subList(0, 1));
+            assertEquals(1, countingDataSource.getStatementCount());
+
+            countingDataSource.reset();
+            countingRepository.getAllMealRatingStats();
+            assertEquals(1, countingDataSource.getStatementCount());
+        });
+        countingDataSource.closeDataSource();
+    }
+
+    @Test
+    void showAllMealsUsesTheSameStatementsForAnyNumberOfMeals() throws Exception {
+        StatementCountingDataSource countingDataSource = new StatementCountingDataSource("hikari-test.properties");
+        CantineService cantineService = new CantineService(countingDataSource);
+        ScreenManager screenManager = new ScreenManager(new EventManager(), cantineService, new HeadlessTextGUI());
+        List<MealsRecord> meals = cantineService.getAllMeals();
+        assertTrue(meals.size() > 1);
+
+        countingDataSource.reset();
+        screenManager.showAllMeals(meals.subList(0, 1));
+        int oneMeal = countingDataSource.getStatementCount();
+        countingDataSource.reset();
+        screenManager.showAllMeals(meals);
+        assertEquals(1, oneMeal);
+        assertEquals(oneMeal, countingDataSource.getStatementCount());
+
+        Page.Source<MealsRecord> pages = (afterId, limit) -> cantineService.getMealsPage(afterId, limit, SortOrder.ASC);
+        countingDataSource.reset();
+        screenManager.showAllMeals(pages.load(null, 1), pages);
+        int onePage = countingDataSource.getStatementCount();
+        countingDataSource.reset();
+        // Both tables read their next page ahead, as it is next to the selected row
+        screenManager.showAllMeals(pages.load(null, meals.size() - 1), pages);
+        assertEquals(onePage, countingDataSource.getStatementCount());
+        countingDataSource.closeDataSource();
+    }
+
+    @Test
+    void mealRatingStatsFromHistogram() {
+        MealRatingStats odd = MealRatingStats.fromHistogram(1, new long[]{0, 1, 0, 1, 0, 1});
+        assertEquals(3, odd.reviewCount());
+        assertEquals(3.0, odd.median());
+        assertEquals(3.0, odd.mean());
+
+        MealRatingStats even = MealRatingStats.fromHistogram(2, new long[]{0, 0, 1, 0, 2, 1});
+        assertEquals(4, even.reviewCount());
+        assertEquals(4.0, even.median());
+        assertEquals(3.75, even.mean());
+
+        assertFalse(MealRatingStats.fromHistogram(3, new long[6]).hasReviews());
+    }
+
+    @Test
+    void searchMealUsesOneStatement() {
+        StatementCountingDataSource countingDataSource = new StatementCountingDataSource("hikari-test.properties");
+        MealsRepository countingRepository = new MealsRepository(countingDataSource);
+
+        assertDoesNotThrow(() -> {
+            countingDataSource.reset();
+            MealsRecord meal = countingRepository.searchMealById(3).get(0);
+            assertEquals(1, countingDataSource.getStatementCount());
+
+            countingDataSource.reset();
+            assertFalse(countingRepository.searchMealByName(meal.getName()).isEmpty());
+            assertEquals(1, countingDataSource.getStatementCount());
+        });
+
+        countingDataSource.reset();
+        assertThrows(MealiDNotFoundException.class, () -> countingRepository.searchMealById(100000));
+        assertEquals(1, countingDataSource.getStatementCount());
+
+        countingDataSource.reset();
+        assertThrows(MealDoesntExistException.class, () -> countingRepository.searchMealByName("No such meal"));
+        assertEquals(1, countingDataSource.getStatementCount());
+
+        countingDataSource.closeDataSource();
+    }
+
+    @Test
+    void pagesCoverAllMealsInIdOrder() throws SQLException {
+        List<Integer> expected = mealsRepository.getAllMeals().stream().map(MealsRecord::getMealId).sorted().toList();
+
+        for (SortOrder sort : List.of(SortOrder.ASC, SortOrder.DESC)) {
+            List<Integer> paged = new ArrayList<>();
+            Page<MealsRecord> page = mealsRepository.page(null, 10, sort);
+            paged.addAll(page.items().stream().map(MealsRecord::getMealId).toList());
+            while (page.hasNext()) {
+                assertEquals(10, page.items().size());
+                page = mealsRepository.page(page.nextCursor(), 10, sort);
+                paged.addAll(page.items().stream().map(MealsRecord::getMealId).toList());
+            }
+            assertEquals(sort == SortOrder.ASC ? expected
+                    : expected.stream().sorted(Comparator.reverseOrder()).toList(), paged);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> mealsRepository.page(null, 0, SortOrder.ASC));
+    }
+}
@@ -0,0 +1,83 @@
+package de.htwsaar.cantineplanner.data;
+
+import de.htwsaar.cantineplanner.data.model.Page;
+import de.htwsaar.cantineplanner.presentation.pages.PagedTableModel;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedTableModelTest {
+
+    static final int ROWS = 100_000;
+    static final int PAGE_SIZE = 100;
+
+    // The IDs 1 to ROWS in ascending order, read page by page like a repository
+    final Page.Source<Integer> source = (afterId, limit) -> {
+        int first = afterId == null ? 1 : afterId + 1;
+        List<Integer> fetched = IntStream.rangeClosed(first, Math.min(first + limit, ROWS)).boxed().toList();
+        return Page.of(fetched, limit, Integer::intValue);
+    };
+
+    final AtomicInteger formatted = new AtomicInteger();
+    final Function<Integer, List<String>> formatter = id -> {
+        formatted.incrementAndGet();
+        return List.of(String.valueOf(id), "Review " + id);
+    };
+
+    @Test
+    void opensLargeListingWithThePagesAroundTheFirstRow() throws SQLException {
+        PagedTableModel<Integer> model = new PagedTableModel<>(new String[]{"ID", "Comment"},
+                source.load(null, PAGE_SIZE), source, formatter);
+        assertEquals(0, model.scrollTo(0));
+
+        assertEquals(2 * PAGE_SIZE, model.getRowCount());
+        assertEquals(2 * PAGE_SIZE, formatted.get());
+        assertEquals("1", model.getCell(0, 0));
+    }
+
+    @Test
+    void evictsPagesThatScrollAwayAndReadsThemAgain() throws SQLException {
+        PagedTableModel<Integer> model = new PagedTableModel<>(new String[]{"ID", "Comment"},
+                source.load(null, PAGE_SIZE), source, formatter);
+
+        // Scroll down row by row through the first 1000 rows, the selected row keeps its ID
+        int selected = 0;
+        for (int id = 1; id <= 1_000; id++) {
+            selected += model.scrollTo(selected);
+            assertEquals(String.valueOf(id), model.getCell(0, selected));
+            assertTrue(model.getRowCount() <= 3 * PAGE_SIZE);
+            selected++;
+        }
+
+        // Scroll back up to the first row
+        selected--;
+        for (int id = 1_000; id >= 1; id--) {
+            selected += model.scrollTo(selected);
+            assertEquals(String.valueOf(id), model.getCell(0, selected));
+            assertTrue(model.getRowCount() <= 3 * PAGE_SIZE);
+            selected--;
+        }
+        assertEquals("1", model.getCell(0, 0));
+    }
+
+    @Test
+    void stopsAtTheLastPage() throws SQLException {
+        PagedTableModel<Integer> model = new PagedTableModel<>(new String[]{"ID", "Comment"},
+                source.load(ROWS - 150, PAGE_SIZE), source, formatter);
+        model.scrollTo(0);
+        assertEquals(150, model.getRowCount());
+        model.scrollTo(149);
+        assertEquals(String.valueOf(ROWS), model.getCell(0, model.getRowCount() - 1));
+
+        PagedTableModel<Integer> single = new PagedTableModel<>(new String[]{"ID", "Comment"},
+                Page.of(List.of(1, 2, 3)), null, formatter);
+        assertEquals(0, single.scrollTo(2));
+        assertEquals(3, single.getRowCount());
+    }
+}
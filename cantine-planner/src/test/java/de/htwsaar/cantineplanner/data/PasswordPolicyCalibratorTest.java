@@ -0,0 +1,44 @@
+package de.htwsaar.cantineplanner.data;
+
+import de.htwsaar.cantineplanner.data.security.PasswordPolicy;
+import de.htwsaar.cantineplanner.data.security.PasswordPolicyCalibrator;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordPolicyCalibratorTest {
+
+    @Test
+    void calibrateStaysWithinMemoryBudget() {
+        PasswordPolicyCalibrator calibrator = new PasswordPolicyCalibrator(20, 4, 16L * 1024 * 1024, 64 * 1024);
+
+        PasswordPolicyCalibrator.Calibration calibration = calibrator.calibrate();
+
+        assertTrue(calibration.policy().memoryKb() <= 4 * 1024);
+        assertTrue(calibration.policy().iterations() >= 1);
+        assertEquals(1, calibration.policy().parallelism());
+        assertTrue(calibration.verifyMillis() > 0);
+        assertTrue(calibration.loginsPerSecond() > 0);
+    }
+
+    @Test
+    void storeAndLoadPolicy() throws Exception {
+        Path path = Path.of("target/password-policy-test.properties");
+        Files.deleteIfExists(path);
+        assertEquals(PasswordPolicy.fromApplicationProperties(), PasswordPolicy.load(path));
+
+        PasswordPolicy policy = new PasswordPolicy(32768, 2, 1);
+        policy.store(path, "test");
+        assertEquals(policy, PasswordPolicy.load(path));
+    }
+
+    @Test
+    void rejectsInvalidPolicy() {
+        assertThrows(IllegalArgumentException.class, () -> new PasswordPolicy(4, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PasswordPolicy(1024, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PasswordPolicyCalibrator(0, 4));
+    }
+}
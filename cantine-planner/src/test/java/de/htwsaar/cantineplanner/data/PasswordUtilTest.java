@@ -0,0 +1,62 @@
+package de.htwsaar.cantineplanner.data;
+
+import de.htwsaar.cantineplanner.data.security.PasswordPolicy;
+import de.htwsaar.cantineplanner.data.security.PasswordUtil;
+import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
+import org.bouncycastle.crypto.params.Argon2Parameters;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordUtilTest {
+
+    final PasswordPolicy CHEAP_POLICY = new PasswordPolicy(1024, 1, 1);
+
+    @Test
+    void verifyPassword() {
+        String storedHash = PasswordUtil.hashPassword("secret");
+
+        assertTrue(storedHash.startsWith("$argon2id$v=19$m="));
+        assertTrue(PasswordUtil.verifyPassword("secret", storedHash));
+        assertFalse(PasswordUtil.verifyPassword("Secret", storedHash));
+        assertFalse(PasswordUtil.verifyPassword("secret", "no separator"));
+        assertFalse(PasswordUtil.verifyPassword("secret", "$argon2id$v=19$m=x$broken"));
+    }
+
+    @Test
+    void hashPasswordUsesNewSalt() {
+        assertNotEquals(PasswordUtil.hashPassword("secret"), PasswordUtil.hashPassword("secret"));
+    }
+
+    @Test
+    void verifyPasswordWithStoredParameters() {
+        String storedHash = PasswordUtil.hashPassword("secret", CHEAP_POLICY);
+
+        assertTrue(storedHash.startsWith("$argon2id$v=19$m=1024,t=1,p=1$"));
+        assertTrue(PasswordUtil.verifyPassword("secret", storedHash));
+        assertFalse(PasswordUtil.verifyPassword("Secret", storedHash));
+        assertTrue(PasswordUtil.needsRehash(storedHash));
+        assertFalse(PasswordUtil.needsRehash(PasswordUtil.hashPassword("secret")));
+    }
+
+    @Test
+    void verifyLegacyPassword() {
+        byte[] salt = new byte[16];
+        byte[] hash = new byte[32];
+        Argon2BytesGenerator generator = new Argon2BytesGenerator();
+        generator.init(new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
+                .withSalt(salt)
+                .withParallelism(1)
+                .withMemoryAsKB(65536)
+                .withIterations(3)
+                .build());
+        generator.generateBytes("secret".toCharArray(), hash);
+        String legacyHash = Base64.getEncoder().encodeToString(salt) + "$" + Base64.getEncoder().encodeToString(hash);
+
+        assertTrue(PasswordUtil.verifyPassword("secret", legacyHash));
+        assertFalse(PasswordUtil.verifyPassword("Secret", legacyHash));
+        assertTrue(PasswordUtil.needsRehash(legacyHash));
+    }
+}
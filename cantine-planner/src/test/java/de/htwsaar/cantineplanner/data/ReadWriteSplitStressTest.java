@@ -0,0 +1,146 @@
+package de.htwsaar.cantineplanner.data;
+
+import de.htwsaar.cantineplanner.codegen.tables.records.ReviewRecord;
+import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
+import de.htwsaar.cantineplanner.data.repository.MealsRepository;
+import de.htwsaar.cantineplanner.data.repository.ReviewRepository;
+import de.htwsaar.cantineplanner.data.util.SchemaMigrator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Interleaves review inserts with meal listings on the dual-pool data source and checks and logs the
+ * throughput and p99 latency. The test database is copied to target first, so it is not touched.
+ */
+class ReadWriteSplitStressTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadWriteSplitStressTest.class);
+
+    final String PATH_TO_STRESS_PROPERTIES = "hikari-stress-test.properties";
+    final Path TEST_DATABASE = Path.of("database/test-database.db");
+    final Path STRESS_DATABASE = Path.of("target/stress-test.db");
+    final int WRITERS = 2;
+    final int READERS = 4;
+    final long DURATION_MILLIS = 2_000;
+
+    HikariCPDataSource dataSource;
+    ReviewRepository reviewRepository;
+    MealsRepository mealsRepository;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Files.createDirectories(STRESS_DATABASE.getParent());
+        for (String suffix : List.of("-wal", "-shm")) {
+            Files.deleteIfExists(Path.of(STRESS_DATABASE + suffix));
+        }
+        Files.copy(TEST_DATABASE, STRESS_DATABASE, StandardCopyOption.REPLACE_EXISTING);
+
+        dataSource = new HikariCPDataSource(PATH_TO_STRESS_PROPERTIES);
+        reviewRepository = new ReviewRepository(dataSource);
+        mealsRepository = new MealsRepository(dataSource);
+        SchemaMigrator.migrate(dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dataSource.closeDataSource();
+    }
+
+    @Test
+    void readPoolIsQueryOnly() throws SQLException {
+        assertTrue(dataSource.isSplit());
+        try (Connection connection = dataSource.getReadConnection(); Statement statement = connection.createStatement()) {
+            assertThrows(SQLException.class, () -> statement.executeUpdate("DELETE FROM review"));
+        }
+    }
+
+    @Test
+    void interleavedReviewInsertsAndMealListings() throws Exception {
+        int mealId = mealsRepository.getAllMeals().get(0).getMealId();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS);
+
+        List<Callable<long[]>> workers = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            workers.add(() -> run(deadline, () -> {
+                ReviewRecord review = new ReviewRecord();
+                review.setMealId(mealId);
+                review.setRating(4);
+                review.setComment("Stress test");
+                review.setUserid(9);
+                return reviewRepository.addReview(review);
+            }));
+        }
+        for (int i = 0; i < READERS; i++) {
+            workers.add(() -> run(deadline, () -> !mealsRepository.getAllMeals().isEmpty()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+        List<Long> writeLatencies = new ArrayList<>();
+        List<Long> readLatencies = new ArrayList<>();
+        try {
+            List<Future<long[]>> futures = executor.invokeAll(workers);
+            for (int i = 0; i < futures.size(); i++) {
+                for (long latency : futures.get(i).get()) {
+                    (i < WRITERS ? writeLatencies : readLatencies).add(latency);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertFalse(writeLatencies.isEmpty());
+        assertFalse(readLatencies.isEmpty());
+        report("review inserts", writeLatencies);
+        report("meal listings", readLatencies);
+    }
+
+    /**
+     * Runs an operation until the deadline and records the latency of every call.
+     *
+     * @param deadline  the System.nanoTime at which to stop
+     * @param operation the operation, returning false if it failed
+     * @return the latencies in nanoseconds
+     * @throws Exception if the operation fails
+     */
+    private static long[] run(long deadline, Callable<Boolean> operation) throws Exception {
+        List<Long> latencies = new ArrayList<>();
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            assertTrue(operation.call());
+            latencies.add(System.nanoTime() - start);
+        }
+        return latencies.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Checks that the slowest calls of an operation still finish well within the run and logs the throughput
+     * and the p99 latency at debug level.
+     */
+    private void report(String operation, List<Long> latencies) {
+        Collections.sort(latencies);
+        long p99 = latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1);
+        assertTrue(p99 < TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS / 2),
+                operation + " p99 latency " + p99 / 1_000_000.0 + " ms");
+        LOGGER.debug("{}: {} ops, {} ops/s, p99 {} us", operation, latencies.size(),
+                latencies.size() * 1000L / DURATION_MILLIS, TimeUnit.NANOSECONDS.toMicros(p99));
+    }
+}
@@ -3,12 +3,23 @@ package de.htwsaar.cantineplanner.data;
 import de.htwsaar.cantineplanner.codegen.tables.records.ReviewRecord;
 import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
 import de.htwsaar.cantineplanner.data.exceptions.ReviewiDDoesntExistException;
+import de.htwsaar.cantineplanner.data.model.MealRatingStats;
+import de.htwsaar.cantineplanner.data.model.Page;
+import de.htwsaar.cantineplanner.data.repository.AbstractRepository;
+import de.htwsaar.cantineplanner.data.repository.MealRatingSummaryRepository;
+import de.htwsaar.cantineplanner.data.repository.MealsRepository;
 import de.htwsaar.cantineplanner.data.repository.ReviewRepository;
+import de.htwsaar.cantineplanner.data.util.SchemaMigrator;
+import org.jooq.SortOrder;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -16,12 +27,22 @@ class ReviewRepositoryTest {
 
     final String PATH_TO_TEST_PROPERTIES = "hikari-test.properties";
     ReviewRepository reviewRepository;
+    MealsRepository mealsRepository;
+    MealRatingSummaryRepository mealRatingSummaryRepository;
+
+    @BeforeAll
+    static void copyTestDatabase() throws IOException {
+        TestDatabase.copy();
+    }
 
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws SQLException {
 
         HikariCPDataSource dataSource = new HikariCPDataSource(PATH_TO_TEST_PROPERTIES);
         reviewRepository = new ReviewRepository(dataSource);
+        mealsRepository = new MealsRepository(dataSource);
+        mealRatingSummaryRepository = new MealRatingSummaryRepository(dataSource);
+        SchemaMigrator.migrate(dataSource);
 
     }
 
@@ -62,6 +83,26 @@ class ReviewRepositoryTest {
         });
     }
 
+    @Test
+    void pageByUserReadsOnlyTheReviewsOfTheUser() throws SQLException {
+        List<Integer> expected = reviewRepository.getAllReviewsByUser(1).stream()
+                .map(ReviewRecord::getRatingId).sorted().toList();
+
+        List<Integer> paged = new ArrayList<>();
+        Integer cursor = null;
+        do {
+            Page<ReviewRecord> page = reviewRepository.pageByUser(1, cursor, 1, SortOrder.ASC);
+            assertTrue(page.items().size() <= 1);
+            paged.addAll(page.items().stream().map(ReviewRecord::getRatingId).toList());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        assertEquals(expected, paged);
+
+        Page<ReviewRecord> all = reviewRepository.page(null, 1000, SortOrder.DESC);
+        assertFalse(all.hasNext());
+        assertEquals(reviewRepository.getAllReviews().size(), all.items().size());
+    }
+
     @Test
     void reviewsByMealName() {
         String mealName = "Test Meal";
@@ -118,4 +159,117 @@ class ReviewRepositoryTest {
         assertDoesNotThrow(() -> reviewRepository.deleteReview(ratingId1));
         assertDoesNotThrow(() -> reviewRepository.deleteReview(ratingId2));
     }
-}
\ No newline at end of file
+
+    @Test
+    void addAndDeleteReviewUpdateRatingSummary() throws SQLException {
+        int mealId = 3; // meal 3 exists in the test database
+        MealRatingStats before = mealsRepository.getMealRatingStats(List.of(mealId))
+                .getOrDefault(mealId, MealRatingStats.empty(mealId));
+
+        ReviewRecord review = new ReviewRecord();
+        review.setMealId(mealId);
+        review.setRating(5);
+        review.setComment("Summary test");
+        review.setUserid(16);
+        assertTrue(reviewRepository.addReview(review));
+
+        List<ReviewRecord> allReviews = reviewRepository.getAllReviews();
+        int ratingId = allReviews.get(allReviews.size() - 1).getRatingId();
+        try {
+            MealRatingStats added = mealsRepository.getMealRatingStats(List.of(mealId)).get(mealId);
+            assertEquals(before.reviewCount() + 1, added.reviewCount());
+
+            // the incrementally maintained summary matches a full rebuild
+            Map<Integer, MealRatingStats> maintained = mealsRepository.getAllMealRatingStats();
+            mealRatingSummaryRepository.rebuild();
+            assertEquals(maintained, mealsRepository.getAllMealRatingStats());
+        } finally {
+            reviewRepository.deleteReview(ratingId);
+        }
+
+        MealRatingStats after = mealsRepository.getMealRatingStats(List.of(mealId))
+                .getOrDefault(mealId, MealRatingStats.empty(mealId));
+        assertEquals(before, after);
+    }
+
+    @Test
+    void addReviewRejectsRatingOutOfRange() throws SQLException {
+        ReviewRecord review = new ReviewRecord();
+        review.setMealId(3);
+        review.setRating(6);
+        review.setComment("Too good");
+        review.setUserid(16);
+
+        int reviewCount = reviewRepository.getAllReviews().size();
+        assertFalse(reviewRepository.addReview(review));
+        assertEquals(reviewCount, reviewRepository.getAllReviews().size());
+    }
+
+    @Test
+    void getUserIdFromReviewIdUsesOneStatement() {
+        StatementCountingDataSource countingDataSource = new StatementCountingDataSource(PATH_TO_TEST_PROPERTIES);
+        ReviewRepository countingRepository = new ReviewRepository(countingDataSource);
+
+        assertDoesNotThrow(() -> {
+            countingDataSource.reset();
+            countingRepository.getUserIdFromReviewId(74);
+            assertEquals(1, countingDataSource.getStatementCount());
+        });
+
+        countingDataSource.reset();
+        assertThrows(ReviewiDDoesntExistException.class, () -> countingRepository.getUserIdFromReviewId(1000));
+        assertEquals(1, countingDataSource.getStatementCount());
+
+        countingDataSource.closeDataSource();
+    }
+
+    @Test
+    void inTransactionRollsBackOnFailure() throws SQLException {
+        int mealId = 3;
+        int reviewCount = reviewRepository.getAllReviews().size();
+        MealRatingStats before = mealsRepository.getMealRatingStats(List.of(mealId))
+                .getOrDefault(mealId, MealRatingStats.empty(mealId));
+
+        ReviewRecord review = new ReviewRecord();
+        review.setMealId(mealId);
+        review.setRating(2);
+        review.setComment("Rolled back");
+        review.setUserid(16);
+
+        assertThrows(IllegalStateException.class, () -> AbstractRepository.inTransaction(dsl -> {
+            assertTrue(reviewRepository.addReview(review));
+            throw new IllegalStateException("Abort the unit of work");
+        }));
+
+        assertEquals(reviewCount, reviewRepository.getAllReviews().size());
+        assertEquals(before, mealsRepository.getMealRatingStats(List.of(mealId))
+                .getOrDefault(mealId, MealRatingStats.empty(mealId)));
+    }
+
+    @Test
+    void inTransactionUsesOneConnection() {
+        StatementCountingDataSource countingDataSource = new StatementCountingDataSource(PATH_TO_TEST_PROPERTIES);
+        ReviewRepository countingRepository = new ReviewRepository(countingDataSource);
+        MealsRepository countingMealsRepository = new MealsRepository(countingDataSource);
+
+        ReviewRecord review = new ReviewRecord();
+        review.setMealId(3);
+        review.setRating(4);
+        review.setComment("One connection");
+        review.setUserid(16);
+
+        assertDoesNotThrow(() -> {
+            countingDataSource.reset();
+            AbstractRepository.inTransaction(dsl -> {
+                assertTrue(countingRepository.addReview(review));
+                List<ReviewRecord> reviews = countingRepository.getAllReviewsByUser(16);
+                countingMealsRepository.calculateMedianRatingForMeal(3);
+                countingRepository.deleteReview(reviews.get(reviews.size() - 1).getRatingId());
+                return null;
+            });
+            assertEquals(1, countingDataSource.getConnectionCount());
+        });
+
+        countingDataSource.closeDataSource();
+    }
+}
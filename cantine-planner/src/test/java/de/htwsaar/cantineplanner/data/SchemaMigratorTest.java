@@ -0,0 +1,63 @@
+package de.htwsaar.cantineplanner.data;
+
+import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
+import de.htwsaar.cantineplanner.data.util.SchemaMigrator;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+
+    final String PATH_TO_TEST_PROPERTIES = "hikari-test.properties";
+    HikariCPDataSource dataSource;
+
+    @BeforeAll
+    static void copyTestDatabase() throws IOException {
+        TestDatabase.copy();
+    }
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        dataSource = new HikariCPDataSource(PATH_TO_TEST_PROPERTIES);
+        SchemaMigrator.migrate(dataSource);
+    }
+
+    @Test
+    void migrateIsIdempotent() throws SQLException {
+        assertEquals(0, SchemaMigrator.migrate(dataSource));
+
+        try (Connection connection = dataSource.getConnection()) {
+            DSLContext dsl = DSL.using(connection, SQLDialect.SQLITE);
+            List<Integer> versions = dsl.fetch("select version from schema_version order by version")
+                    .getValues(0, Integer.class);
+            assertEquals(List.of(1, 2, 3, 4), versions);
+        }
+    }
+
+    @Test
+    void hotLookupsUseIndexes() throws SQLException {
+        assertUsesIndex("select * from review where meal_id = 3", "idx_review_meal_id");
+        assertUsesIndex("select * from review where userid = 16", "idx_review_userid");
+        assertUsesIndex("select * from users where username = 'Xudong'", "idx_users_username");
+        assertUsesIndex("select * from meals where Name = 'Chicken Curry'", "idx_meals_name");
+        assertUsesIndex("select * from meals where day = 'Montag'", "idx_meals_day");
+    }
+
+    private void assertUsesIndex(String query, String index) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            DSLContext dsl = DSL.using(connection, SQLDialect.SQLITE);
+            String plan = String.join("\n", dsl.fetch("explain query plan " + query).getValues("detail", String.class));
+            assertTrue(plan.contains("INDEX " + index), () -> query + " does not use " + index + ":\n" + plan);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package de.htwsaar.cantineplanner.data;
+
+import de.htwsaar.cantineplanner.codegen.tables.records.ReviewRecord;
+import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
+import de.htwsaar.cantineplanner.data.model.SearchHit;
+import de.htwsaar.cantineplanner.data.repository.ReviewRepository;
+import de.htwsaar.cantineplanner.data.repository.SearchRepository;
+import de.htwsaar.cantineplanner.data.util.SchemaMigrator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchRepositoryTest {
+
+    final String PATH_TO_TEST_PROPERTIES = "hikari-test.properties";
+    SearchRepository searchRepository;
+    ReviewRepository reviewRepository;
+
+    @BeforeAll
+    static void copyTestDatabase() throws IOException {
+        TestDatabase.copy();
+    }
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        HikariCPDataSource dataSource = new HikariCPDataSource(PATH_TO_TEST_PROPERTIES);
+        searchRepository = new SearchRepository(dataSource);
+        reviewRepository = new ReviewRepository(dataSource);
+        SchemaMigrator.migrate(dataSource);
+    }
+
+    @Test
+    void findsMealsByPrefixIgnoringDiacritics() throws SQLException {
+        List<SearchHit> hits = searchRepository.search("chick", 10);
+        assertTrue(containsMeal(hits, 3), () -> "Chicken Curry not found: " + hits);
+
+        List<SearchHit> curries = searchRepository.search("Hahnchen curry", 10);
+        assertEquals(8, curries.get(0).mealId());
+        assertEquals("Hähnchen-Curry", curries.get(0).mealName());
+
+        assertEquals(1, searchRepository.search("curry", 1).size());
+    }
+
+    @Test
+    void fallsBackToAnyTermIfNothingMatchesAllTerms() throws SQLException {
+        List<SearchHit> hits = searchRepository.search("chicken xyzzy", 10);
+        assertTrue(containsMeal(hits, 3), () -> "Chicken Curry not found: " + hits);
+    }
+
+    @Test
+    void ignoresQuerySyntax() throws SQLException {
+        assertTrue(searchRepository.search("", 10).isEmpty());
+        assertTrue(searchRepository.search(" \"*( - ", 10).isEmpty());
+        assertDoesNotThrow(() -> searchRepository.search("curry\" OR name:* NEAR(", 10));
+        assertThrows(IllegalArgumentException.class, () -> searchRepository.search("curry", 0));
+    }
+
+    @Test
+    void indexFollowsReviewWrites() throws SQLException {
+        ReviewRecord review = new ReviewRecord();
+        review.setMealId(3);
+        review.setRating(4);
+        review.setComment("Wunderbare Zauberpanade");
+        review.setUserid(16);
+        reviewRepository.addReview(review);
+
+        List<SearchHit> hits = searchRepository.search("zauberpan", 10);
+        assertEquals(1, hits.size(), hits::toString);
+        SearchHit hit = hits.get(0);
+        assertEquals(SearchHit.Type.REVIEW, hit.type());
+        assertEquals(3, hit.mealId());
+        assertEquals("Chicken Curry", hit.mealName());
+
+        assertDoesNotThrow(() -> reviewRepository.deleteReview(hit.id()));
+        assertTrue(searchRepository.search("zauberpan", 10).isEmpty());
+    }
+
+    private static boolean containsMeal(List<SearchHit> hits, int mealId) {
+        return hits.stream().anyMatch(hit -> hit.type() == SearchHit.Type.MEAL && hit.mealId() == mealId);
+    }
+}
@@ -0,0 +1,175 @@
+package de.htwsaar.cantineplanner.data;
+
+import de.htwsaar.cantineplanner.businessLogic.mapper.AllergenMapper;
+import de.htwsaar.cantineplanner.businessLogic.manager.Session;
+import de.htwsaar.cantineplanner.businessLogic.manager.SessionContext;
+import de.htwsaar.cantineplanner.businessLogic.manager.SessionManager;
+import de.htwsaar.cantineplanner.businessLogic.types.Permission;
+import de.htwsaar.cantineplanner.businessLogic.types.Role;
+import de.htwsaar.cantineplanner.codegen.tables.records.UsersRecord;
+import de.htwsaar.cantineplanner.data.exceptions.SessionExpiredException;
+import de.htwsaar.cantineplanner.data.exceptions.SessionLimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionManagerTest {
+
+    final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+    @Test
+    void openCachesUserSnapshot() {
+        SessionManager sessionManager = new SessionManager(10, Duration.ofMinutes(30));
+        Session session = sessionManager.open(user(16, 1, "F, N,G"));
+
+        assertEquals(16, session.getUserId());
+        assertTrue(session.isAdmin());
+        assertEquals(AllergenMapper.getAllergenMask("F,N,G"), session.getAllergyMask());
+        assertSame(session, sessionManager.find(session.getSessionId()).orElseThrow());
+        assertTrue(sessionManager.find("unknown").isEmpty());
+    }
+
+    @Test
+    void sessionsHaveDistinctIds() {
+        SessionManager sessionManager = new SessionManager(10, Duration.ofMinutes(30));
+        Session first = sessionManager.open(user(8, 0, null));
+        Session second = sessionManager.open(user(8, 0, null));
+
+        assertNotEquals(first.getSessionId(), second.getSessionId());
+        assertEquals(2, sessionManager.size());
+        assertEquals(0, first.getAllergyMask());
+    }
+
+    @Test
+    void sessionsExpireWhenIdle() {
+        VerifiedCredentialCacheTest.MutableClock clock = new VerifiedCredentialCacheTest.MutableClock(NOW);
+        SessionManager sessionManager = new SessionManager(10, Duration.ofMinutes(30), clock);
+        Session active = sessionManager.open(user(8, 0, null));
+        Session idle = sessionManager.open(user(9, 0, null));
+
+        clock.now = NOW.plus(Duration.ofMinutes(20));
+        assertTrue(sessionManager.find(active.getSessionId()).isPresent());
+
+        clock.now = NOW.plus(Duration.ofMinutes(40));
+        assertTrue(sessionManager.find(active.getSessionId()).isPresent());
+        assertTrue(sessionManager.find(idle.getSessionId()).isEmpty());
+        assertEquals(1, sessionManager.size());
+    }
+
+    @Test
+    void limitsOpenSessions() {
+        VerifiedCredentialCacheTest.MutableClock clock = new VerifiedCredentialCacheTest.MutableClock(NOW);
+        SessionManager sessionManager = new SessionManager(2, Duration.ofMinutes(30), clock);
+        Session first = sessionManager.open(user(8, 0, null));
+        sessionManager.open(user(9, 0, null));
+
+        assertThrows(SessionLimitExceededException.class, () -> sessionManager.open(user(17, 0, null)));
+
+        sessionManager.close(first.getSessionId());
+        sessionManager.open(user(17, 0, null));
+
+        // Expired sessions make room for new ones
+        clock.now = NOW.plus(Duration.ofMinutes(30));
+        sessionManager.open(user(51, 0, null));
+        assertEquals(1, sessionManager.size());
+    }
+
+    @Test
+    void permissionsFollowRole() {
+        SessionManager sessionManager = new SessionManager(10, Duration.ofMinutes(30));
+        SessionContext admin = new SessionContext(sessionManager);
+        SessionContext user = new SessionContext(sessionManager);
+        admin.login(user(16, 1, null));
+        user.login(user(8, 0, null));
+
+        assertEquals(Role.ADMIN, admin.getSession().getRole());
+        for (Permission permission : Permission.values()) {
+            assertTrue(admin.hasPermission(permission));
+            assertFalse(user.hasPermission(permission));
+        }
+    }
+
+    @Test
+    void refreshUpdatesAllSessionsOfUser() {
+        VerifiedCredentialCacheTest.MutableClock clock = new VerifiedCredentialCacheTest.MutableClock(NOW);
+        SessionManager sessionManager = new SessionManager(10, Duration.ofMinutes(30), clock);
+        Session first = sessionManager.open(user(8, 0, null));
+        Session second = sessionManager.open(user(8, 0, null));
+        Session other = sessionManager.open(user(9, 0, null));
+
+        clock.now = NOW.plus(Duration.ofMinutes(20));
+        assertEquals(2, sessionManager.refresh(user(8, 1, null)));
+        assertTrue(sessionManager.find(first.getSessionId()).orElseThrow().hasPermission(Permission.MANAGE_MEALS));
+        assertTrue(sessionManager.find(second.getSessionId()).orElseThrow().isAdmin());
+        assertFalse(sessionManager.find(other.getSessionId()).orElseThrow().isAdmin());
+
+        // A refresh is no access, an idle session still expires
+        Session idle = sessionManager.open(user(17, 0, null));
+        clock.now = NOW.plus(Duration.ofMinutes(45));
+        sessionManager.find(first.getSessionId());
+        sessionManager.refresh(user(17, 1, null));
+        clock.now = NOW.plus(Duration.ofMinutes(55));
+        assertTrue(sessionManager.find(idle.getSessionId()).isEmpty());
+        assertTrue(sessionManager.find(first.getSessionId()).isPresent());
+    }
+
+    @Test
+    void closeAllClosesEverySessionOfUser() {
+        SessionManager sessionManager = new SessionManager(3, Duration.ofMinutes(30));
+        SessionContext firstTerminal = new SessionContext(sessionManager);
+        SessionContext secondTerminal = new SessionContext(sessionManager);
+        firstTerminal.login(user(8, 1, null));
+        secondTerminal.login(user(8, 1, null));
+        Session other = sessionManager.open(user(9, 1, null));
+
+        firstTerminal.closeAll(8);
+
+        assertFalse(firstTerminal.isLoggedIn());
+        assertFalse(secondTerminal.isLoggedIn());
+        assertThrows(SessionExpiredException.class, () -> secondTerminal.hasPermission(Permission.MANAGE_USERS));
+        assertTrue(sessionManager.find(other.getSessionId()).isPresent());
+        assertEquals(0, sessionManager.closeAll(8));
+        // The closed sessions no longer count against the limit
+        sessionManager.open(user(10, 0, null));
+        sessionManager.open(user(11, 0, null));
+        assertEquals(3, sessionManager.size());
+    }
+
+    @Test
+    void contextResolvesSessionOfTerminal() {
+        VerifiedCredentialCacheTest.MutableClock clock = new VerifiedCredentialCacheTest.MutableClock(NOW);
+        SessionManager sessionManager = new SessionManager(10, Duration.ofMinutes(30), clock);
+        SessionContext firstTerminal = new SessionContext(sessionManager);
+        SessionContext secondTerminal = new SessionContext(sessionManager);
+
+        assertFalse(firstTerminal.isLoggedIn());
+        assertThrows(SessionExpiredException.class, firstTerminal::getCurrentUserId);
+
+        firstTerminal.login(user(8, 0, "F"));
+        secondTerminal.login(user(16, 1, null));
+        assertEquals(8, firstTerminal.getCurrentUserId());
+        assertEquals(16, secondTerminal.getCurrentUserId());
+
+        firstTerminal.refresh(user(8, 0, "F,N"));
+        assertEquals(0b11, firstTerminal.getSession().getAllergyMask());
+
+        firstTerminal.logout();
+        assertFalse(firstTerminal.isLoggedIn());
+        assertEquals(1, sessionManager.size());
+
+        clock.now = NOW.plus(Duration.ofHours(1));
+        assertThrows(SessionExpiredException.class, secondTerminal::getSession);
+    }
+
+    private static UsersRecord user(int userId, int role, String allergies) {
+        UsersRecord user = new UsersRecord();
+        user.setUserid(userId);
+        user.setUsername("user" + userId);
+        user.setRole(role);
+        user.setDontShowMeal(allergies);
+        return user;
+    }
+}
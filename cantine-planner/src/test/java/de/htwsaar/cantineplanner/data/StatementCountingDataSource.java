@@ -0,0 +1,76 @@
+package de.htwsaar.cantineplanner.data;
+
+import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HikariCPDataSource that counts the connections it hands out and the statements created on them.
+ */
+class StatementCountingDataSource extends HikariCPDataSource {
+
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("createStatement", "prepareStatement", "prepareCall");
+
+    private final AtomicInteger statementCount = new AtomicInteger();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    StatementCountingDataSource(String pathToProperties) {
+        super(pathToProperties);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return count(super.getConnection());
+    }
+
+    @Override
+    public Connection getReadConnection() throws SQLException {
+        return count(super.getReadConnection());
+    }
+
+    private Connection count(Connection connection) {
+        connectionCount.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (STATEMENT_FACTORIES.contains(method.getName())) {
+                        statementCount.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Returns the number of statements created since the last reset.
+     *
+     * @return the number of statements
+     */
+    int getStatementCount() {
+        return statementCount.get();
+    }
+
+    /**
+     * Returns the number of connections handed out since the last reset.
+     *
+     * @return the number of connections
+     */
+    int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Resets the statement and connection counters.
+     */
+    void reset() {
+        statementCount.set(0);
+        connectionCount.set(0);
+    }
+}
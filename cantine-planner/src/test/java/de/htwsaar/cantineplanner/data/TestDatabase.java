@@ -0,0 +1,31 @@
+package de.htwsaar.cantineplanner.data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Copies the committed test database to the file configured in hikari-test.properties, so the tests migrate
+ * and change a copy and database/test-database.db stays as it is in git.
+ */
+final class TestDatabase {
+
+    static final Path COMMITTED_DATABASE = Path.of("database/test-database.db");
+    static final Path DATABASE = Path.of("target/test-database.db");
+
+    private TestDatabase() {
+    }
+
+    /**
+     * Replaces the copy with a fresh one, called once per test class so every class starts from the
+     * committed state.
+     *
+     * @throws IOException if the database cannot be copied
+     */
+    static void copy() throws IOException {
+        Files.createDirectories(DATABASE.getParent());
+        Files.deleteIfExists(Path.of(DATABASE + "-journal"));
+        Files.copy(COMMITTED_DATABASE, DATABASE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
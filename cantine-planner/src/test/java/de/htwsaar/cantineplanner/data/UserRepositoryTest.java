@@ -4,17 +4,27 @@ import de.htwsaar.cantineplanner.codegen.tables.records.UsersRecord;
 import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
 import de.htwsaar.cantineplanner.data.exceptions.UserAlreadyExistsException;
 import de.htwsaar.cantineplanner.data.exceptions.UserDoesntExistException;
+import de.htwsaar.cantineplanner.data.exceptions.UserNotValidatedException;
 import de.htwsaar.cantineplanner.data.repository.UserRepository;
+import de.htwsaar.cantineplanner.data.security.PasswordPolicy;
 import de.htwsaar.cantineplanner.data.security.PasswordUtil;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class UserRepositoryTest {
 
     UserRepository userRepository;
 
+    @BeforeAll
+    static void copyTestDatabase() throws IOException {
+        TestDatabase.copy();
+    }
+
     @BeforeEach
     public void setUp() {
 
@@ -185,6 +195,56 @@ class UserRepositoryTest {
         });
     }
 
+    @Test
+    void validateUserUpgradesPasswordHash() {
+        PasswordPolicy currentPolicy = PasswordUtil.getPolicy();
+        assertDoesNotThrow(() -> {
+            PasswordUtil.setPolicy(new PasswordPolicy(1024, 1, 1));
+            UsersRecord user = userRepository.registerUser("testUserToRehash", "testPassword",
+                    "testToRehash@example.com");
+            PasswordUtil.setPolicy(currentPolicy);
+            try {
+                assertTrue(PasswordUtil.needsRehash(user.getPassword()));
+
+                assertFalse(userRepository.validateUser(user.getUserid(), "wrongPassword"));
+                assertEquals(user.getPassword(), userRepository.getUserById(user.getUserid()).getPassword());
+
+                assertTrue(userRepository.validateUser("testUserToRehash", "testPassword"));
+                String upgradedHash = userRepository.getUserById(user.getUserid()).getPassword();
+                assertFalse(PasswordUtil.needsRehash(upgradedHash));
+                assertTrue(userRepository.validateUser(user.getUserid(), "testPassword"));
+            } finally {
+                userRepository.deleteUserById(user.getUserid());
+            }
+        });
+        PasswordUtil.setPolicy(currentPolicy);
+    }
+
+    @Test
+    void authenticate() {
+        assertThrows(UserNotValidatedException.class, () -> userRepository.authenticate("invalidUser", "invalidPassword"));
+
+        assertDoesNotThrow(() -> {
+            UsersRecord user = userRepository.registerUser("testUserToAuthenticate", "testPassword",
+                    "testToAuthenticate@example.com");
+            try {
+                UsersRecord authenticated = userRepository.authenticate("testUserToAuthenticate", "testPassword");
+                assertEquals(user.getUserid(), authenticated.getUserid());
+                assertEquals("testToAuthenticate@example.com", authenticated.getEmail());
+                assertTrue(userRepository.validateUser(user.getUserid(), "testPassword"));
+                assertThrows(UserNotValidatedException.class,
+                        () -> userRepository.authenticate("testUserToAuthenticate", "wrongPassword"));
+
+                // A changed password must not be accepted from the verified credential cache
+                userRepository.editUserData(user.getUserid(), "newPassword", null);
+                assertFalse(userRepository.validateUser(user.getUserid(), "testPassword"));
+                assertTrue(userRepository.validateUser(user.getUserid(), "newPassword"));
+            } finally {
+                userRepository.deleteUserById(user.getUserid());
+            }
+        });
+    }
+
     @Test
     void setAllergeneSettings() {
         assertDoesNotThrow(() -> {
@@ -197,4 +257,38 @@ class UserRepositoryTest {
         });
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void lookupsUseOneStatement() {
+        StatementCountingDataSource countingDataSource = new StatementCountingDataSource("hikari-test.properties");
+        UserRepository countingRepository = new UserRepository(countingDataSource);
+
+        assertDoesNotThrow(() -> {
+            countingDataSource.reset();
+            UsersRecord user = countingRepository.getUserById(16);
+            assertEquals(1, countingDataSource.getStatementCount());
+
+            countingDataSource.reset();
+            assertEquals(user.getUserid(), countingRepository.getUser(user.getUsername()).getUserid());
+            assertEquals(1, countingDataSource.getStatementCount());
+
+            countingDataSource.reset();
+            assertEquals(user.getUserid(), countingRepository.getUserId(user.getUsername()));
+            assertEquals(1, countingDataSource.getStatementCount());
+
+            countingDataSource.reset();
+            countingRepository.isAdmin(16);
+            assertEquals(1, countingDataSource.getStatementCount());
+        });
+
+        countingDataSource.reset();
+        assertThrows(UserDoesntExistException.class, () -> countingRepository.getUserById(1000));
+        assertEquals(1, countingDataSource.getStatementCount());
+
+        countingDataSource.reset();
+        assertThrows(UserDoesntExistException.class, () -> countingRepository.deleteUserById(1000));
+        assertEquals(1, countingDataSource.getStatementCount());
+
+        countingDataSource.closeDataSource();
+    }
+}
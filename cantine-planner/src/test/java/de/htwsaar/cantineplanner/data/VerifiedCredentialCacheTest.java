@@ -0,0 +1,85 @@
+package de.htwsaar.cantineplanner.data;
+
+import de.htwsaar.cantineplanner.data.security.VerifiedCredentialCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedCredentialCacheTest {
+
+    final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+    @Test
+    void matchesOnlySamePasswordAndHash() {
+        VerifiedCredentialCache cache = new VerifiedCredentialCache(Duration.ofMinutes(5), 10);
+        cache.put(1, "secret", "hash1");
+
+        assertTrue(cache.matches(1, "secret", "hash1"));
+        assertFalse(cache.matches(1, "Secret", "hash1"));
+        assertFalse(cache.matches(1, "secret", "hash2"));
+        assertFalse(cache.matches(2, "secret", "hash1"));
+
+        cache.invalidate(1);
+        assertFalse(cache.matches(1, "secret", "hash1"));
+    }
+
+    @Test
+    void entriesExpireAfterTtl() {
+        MutableClock clock = new MutableClock(NOW);
+        VerifiedCredentialCache cache = new VerifiedCredentialCache(Duration.ofMinutes(5), 10, clock);
+        cache.put(1, "secret", "hash1");
+
+        clock.now = NOW.plus(Duration.ofMinutes(4));
+        assertTrue(cache.matches(1, "secret", "hash1"));
+
+        clock.now = NOW.plus(Duration.ofMinutes(5));
+        assertFalse(cache.matches(1, "secret", "hash1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        VerifiedCredentialCache cache = new VerifiedCredentialCache(Duration.ofMinutes(5), 2);
+        cache.put(1, "secret", "hash1");
+        cache.put(2, "secret", "hash2");
+        assertTrue(cache.matches(1, "secret", "hash1"));
+        cache.put(3, "secret", "hash3");
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.matches(1, "secret", "hash1"));
+        assertFalse(cache.matches(2, "secret", "hash2"));
+        assertTrue(cache.matches(3, "secret", "hash3"));
+    }
+
+    /**
+     * Clock whose time is set by the test.
+     */
+    static class MutableClock extends Clock {
+        Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -4,9 +4,11 @@ import de.htwsaar.cantineplanner.codegen.tables.records.MealsRecord;
 import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
 import de.htwsaar.cantineplanner.data.repository.MealsRepository;
 import de.htwsaar.cantineplanner.data.repository.WeeklyRepository;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.List;
 
@@ -17,6 +19,11 @@ class WeeklyRepositoryTest {
     final String PATH_TO_TEST_PROPERTIES = "hikari-test.properties";
     WeeklyRepository weeklyRepository;
 
+    @BeforeAll
+    static void copyTestDatabase() throws IOException {
+        TestDatabase.copy();
+    }
+
     @BeforeEach
     public void setUp() {
 
@@ -1,6 +1,7 @@
 package de.htwsaar.cantineplanner.dataAccess;
 
 import de.htwsaar.cantineplanner.data.dataAccess.HikariCPDataSource;
+import de.htwsaar.cantineplanner.data.dataAccess.SQLiteProfile;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -10,6 +11,9 @@ import java.sql.SQLException;
 import static org.junit.Assert.*;
 
 import java.sql.Connection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 
 
 public class HikariCPDataSourceTest {
@@ -48,5 +52,47 @@ public class HikariCPDataSourceTest {
         }
     }
 
+    // Test case to check if the SQLite profile of the properties file is applied to the connections
+    @Test
+    public void testSQLiteProfileIsApplied() {
+        HikariCPDataSource profileDataSource = new HikariCPDataSource("hikari-profile-test.properties");
+        try {
+            Map<String, String> pragmas = profileDataSource.getEffectivePragmas();
+            assertEquals("wal", pragmas.get("journal_mode"));
+            assertEquals("1", pragmas.get("synchronous")); // NORMAL
+            assertEquals("-32000", pragmas.get("cache_size")); // overridden in the properties file
+            assertEquals(String.valueOf(256L * 1024 * 1024), pragmas.get("mmap_size"));
+            assertEquals("2", pragmas.get("temp_store")); // MEMORY
+            assertEquals("10000", pragmas.get("busy_timeout"));
+        } finally {
+            profileDataSource.closeDataSource();
+        }
+    }
+
+    // Test case to check the durable profile of the test database
+    @Test
+    public void testDurableProfile() {
+        Map<String, String> pragmas = hikariCPDataSource.getEffectivePragmas();
+        assertEquals("delete", pragmas.get("journal_mode"));
+        assertEquals("2", pragmas.get("synchronous")); // FULL
+    }
+
+    // Test case to check that profile names and pragmas are validated
+    @Test
+    public void testSQLiteProfileProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("sqlite.profile", "Read-Heavy");
+        properties.setProperty("sqlite.busy_timeout", "250");
+        properties.setProperty("maximumPoolSize", "10");
 
+        SQLiteProfile.Resolved resolved = SQLiteProfile.extract(properties);
+        assertEquals(SQLiteProfile.READ_HEAVY, resolved.profile());
+        assertEquals("250", resolved.pragmas().get("busy_timeout"));
+        assertEquals("WAL", resolved.pragmas().get("journal_mode"));
+        assertEquals(Set.of("maximumPoolSize"), properties.stringPropertyNames());
+
+        Properties unknownPragma = new Properties();
+        unknownPragma.setProperty("sqlite.page_size", "4096");
+        assertThrows(IllegalArgumentException.class, () -> SQLiteProfile.extract(unknownPragma));
+    }
 }